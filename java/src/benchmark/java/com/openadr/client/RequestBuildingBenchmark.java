@@ -0,0 +1,108 @@
+package com.openadr.client;
+
+import com.openadr.client.transport.HttpRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares building the request of a program search page the way
+ * {@code makeRequest} used to, with a varargs query string, a new header map
+ * and a method switch per call, against {@link QueryBuilder} and
+ * {@link RequestTemplate}. Lives in the client package because both are
+ * package-private.
+ *
+ * Usage: runJmh --args="RequestBuildingBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RequestBuildingBenchmark {
+    private static final String BASE_URL = "https://vtn.example.com/openadr3/3.1.0";
+
+    private RequestTemplate get;
+    private String token;
+    private List<String> targets;
+    private Integer skip;
+    private Integer limit;
+
+    @Setup
+    public void setup() {
+        get = RequestTemplate.get(BASE_URL);
+        token = "eyJhbGciOiJIUzI1NiJ9." + "x".repeat(600) + ".signature";
+        targets = List.of("group-1", "resource-42");
+        skip = 100;
+        limit = 50;
+    }
+
+    @Benchmark
+    public HttpRequest legacy() {
+        StringBuilder pathBuilder = new StringBuilder("/programs");
+        String queryParams = legacyQueryString("targets", targets, "skip", skip, "limit", limit);
+        if (!queryParams.isEmpty()) {
+            pathBuilder.append("?").append(queryParams);
+        }
+
+        String httpMethod = "GET".toUpperCase();
+        String url = BASE_URL + pathBuilder;
+        Map<String, String> headers = new LinkedHashMap<>();
+        headers.put("Authorization", "Bearer " + token);
+        headers.put("Accept", "application/json");
+        switch (httpMethod) {
+            case "GET":
+            case "DELETE":
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported method: " + httpMethod);
+        }
+        return new HttpRequest(httpMethod, url, headers, null);
+    }
+
+    @Benchmark
+    public HttpRequest template() {
+        String path = QueryBuilder.path("/programs")
+                .add("targets", targets)
+                .add("skip", skip)
+                .add("limit", limit)
+                .build();
+        return get.newRequest(path, token, null, Map.of());
+    }
+
+    private static String legacyQueryString(Object... params) {
+        StringBuilder query = new StringBuilder();
+        for (int i = 0; i < params.length; i += 2) {
+            String key = (String) params[i];
+            Object value = params[i + 1];
+            if (value != null) {
+                if (query.length() > 0) {
+                    query.append("&");
+                }
+                if (value instanceof List) {
+                    List<?> list = (List<?>) value;
+                    for (int j = 0; j < list.size(); j++) {
+                        if (j > 0) query.append("&");
+                        query.append(key).append("=").append(list.get(j));
+                    }
+                } else {
+                    query.append(key).append("=").append(value);
+                }
+            }
+        }
+        return query.toString();
+    }
+}
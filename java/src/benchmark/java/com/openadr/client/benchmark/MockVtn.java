@@ -0,0 +1,212 @@
+package com.openadr.client.benchmark;
+
+import okhttp3.HttpUrl;
+import okhttp3.Protocol;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local stand-in for a VTN used by the benchmarks
+ *
+ * Serves the OAuth2 token endpoint and the program, event, report and VEN
+ * search endpoints with generated records, honoring skip and limit. Each
+ * collection holds {@code collectionSize} records. Every response is delayed
+ * by a fixed latency to model the network and VTN processing time.
+ *
+ * Search responses carry an ETag derived from the body, and a request whose
+ * If-None-Match matches it is answered with 304 Not Modified.
+ */
+public class MockVtn implements AutoCloseable {
+    private final MockWebServer server = new MockWebServer();
+    private volatile int collectionSize;
+    private final Map<Integer, Integer> revisions = new ConcurrentHashMap<>();
+    private final long latencyMillis;
+    private final AtomicInteger tokenRequests = new AtomicInteger();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong notModified = new AtomicLong();
+
+    /**
+     * @param protocol HTTP/1.1, or h2c prior knowledge for HTTP/2 over cleartext
+     * @param collectionSize Number of records in each collection
+     * @param latencyMillis Delay added before every response
+     */
+    public MockVtn(Protocol protocol, int collectionSize, long latencyMillis) throws IOException {
+        this.collectionSize = collectionSize;
+        this.latencyMillis = latencyMillis;
+        if (protocol == Protocol.H2_PRIOR_KNOWLEDGE) {
+            server.setProtocols(List.of(Protocol.H2_PRIOR_KNOWLEDGE));
+        }
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                return respond(request).setHeadersDelay(MockVtn.this.latencyMillis, TimeUnit.MILLISECONDS);
+            }
+        });
+        server.start();
+    }
+
+    /**
+     * @return the base URL to configure clients with
+     */
+    public String getBaseUrl() {
+        String url = server.url("/").toString();
+        return url.substring(0, url.length() - 1);
+    }
+
+    public int getTokenRequests() {
+        return tokenRequests.get();
+    }
+
+    public long getRequests() {
+        return requests.get();
+    }
+
+    /**
+     * Grows or shrinks every collection, as if records were created or deleted
+     */
+    public void setCollectionSize(int collectionSize) {
+        this.collectionSize = collectionSize;
+    }
+
+    /**
+     * Marks the record at an index as modified in every collection, giving
+     * it a later modificationDateTime
+     */
+    public void touch(int index) {
+        revisions.merge(index, 1, Integer::sum);
+    }
+
+    /**
+     * @return Number of requests answered with 304 Not Modified
+     */
+    public long getNotModified() {
+        return notModified.get();
+    }
+
+    @Override
+    public void close() throws IOException {
+        server.shutdown();
+    }
+
+    private MockResponse respond(RecordedRequest request) {
+        HttpUrl url = request.getRequestUrl();
+        String path = url != null ? url.encodedPath() : "/";
+
+        if (path.equals("/auth/token")) {
+            int n = tokenRequests.incrementAndGet();
+            return json(200, "{\"access_token\":\"token-" + n + "\",\"token_type\":\"Bearer\",\"expires_in\":3600}");
+        }
+
+        requests.incrementAndGet();
+        String method = request.getMethod();
+        if ("POST".equals(method) || "PUT".equals(method)) {
+            // Echo the submitted object back with an id, as a VTN would
+            String body = request.getBody().readUtf8();
+            return json("POST".equals(method) ? 201 : 200,
+                    "{\"id\":\"created-" + requests.get() + "\"," + body.substring(1));
+        }
+        if ("DELETE".equals(method)) {
+            return new MockResponse().setResponseCode(204);
+        }
+
+        int skip = intParam(url, "skip", 0);
+        int limit = intParam(url, "limit", 50);
+        switch (path) {
+            case "/programs":
+                return conditional(request, page(skip, limit, MockVtn::program));
+            case "/events":
+                return conditional(request, page(skip, limit, MockVtn::event));
+            case "/reports":
+                return conditional(request, page(skip, limit, MockVtn::report));
+            case "/vens":
+                return conditional(request, page(skip, limit, MockVtn::ven));
+            default:
+                if (path.startsWith("/programs/")) {
+                    return conditional(request, program(0).replace("\"program-0\"",
+                            "\"" + path.substring("/programs/".length()) + "\""));
+                }
+                return json(404, "{\"type\":\"about:blank\",\"title\":\"Not Found\",\"status\":404}");
+        }
+    }
+
+    private String page(int skip, int limit, RecordFormatter formatter) {
+        StringBuilder json = new StringBuilder("[");
+        int end = Math.min(collectionSize, skip + limit);
+        for (int i = skip; i < end; i++) {
+            if (i > skip) {
+                json.append(',');
+            }
+            String record = formatter.format(i);
+            Integer revision = revisions.get(i);
+            if (revision != null) {
+                record = record.replace("\"modificationDateTime\":\"2025-01-01T00:00:00Z\"",
+                        "\"modificationDateTime\":\"2025-01-01T00:00:" + String.format("%02d", revision % 60) + "Z\"");
+            }
+            json.append(record);
+        }
+        return json.append(']').toString();
+    }
+
+    private static String program(int i) {
+        return "{\"id\":\"program-" + i + "\",\"createdDateTime\":\"2025-01-01T00:00:00Z\","
+                + "\"modificationDateTime\":\"2025-01-01T00:00:00Z\",\"programName\":\"Program " + i + "\","
+                + "\"programLongName\":\"Benchmark program " + i + "\",\"retailerName\":\"Retailer\","
+                + "\"programType\":\"PRICING_TARIFF\",\"country\":\"US\",\"principalSubdivision\":\"CA\","
+                + "\"bindingEvents\":false,\"localPrice\":false}";
+    }
+
+    private static String event(int i) {
+        return "{\"id\":\"event-" + i + "\",\"createdDateTime\":\"2025-01-01T00:00:00Z\","
+                + "\"modificationDateTime\":\"2025-01-01T00:00:00Z\",\"programId\":\"program-" + (i % 10) + "\","
+                + "\"eventName\":\"Event " + i + "\",\"priority\":" + (i % 5) + ","
+                + "\"intervalPeriod\":{\"start\":\"2025-01-01T12:00:00Z\",\"duration\":\"PT1H\"}}";
+    }
+
+    private static String report(int i) {
+        return "{\"id\":\"report-" + i + "\",\"createdDateTime\":\"2025-01-01T00:00:00Z\","
+                + "\"modificationDateTime\":\"2025-01-01T00:00:00Z\",\"programId\":\"program-" + (i % 10) + "\","
+                + "\"eventId\":\"event-" + i + "\",\"clientName\":\"ven-" + (i % 100) + "\","
+                + "\"reportName\":\"Report " + i + "\"}";
+    }
+
+    private static String ven(int i) {
+        return "{\"id\":\"ven-" + i + "\",\"createdDateTime\":\"2025-01-01T00:00:00Z\","
+                + "\"modificationDateTime\":\"2025-01-01T00:00:00Z\",\"venName\":\"VEN " + i + "\"}";
+    }
+
+    private MockResponse conditional(RecordedRequest request, String body) {
+        String etag = "\"" + Integer.toHexString(body.hashCode()) + "\"";
+        if (etag.equals(request.getHeader("If-None-Match"))) {
+            notModified.incrementAndGet();
+            return new MockResponse().setResponseCode(304).setHeader("ETag", etag);
+        }
+        return json(200, body).setHeader("ETag", etag);
+    }
+
+    private static MockResponse json(int status, String body) {
+        return new MockResponse()
+                .setResponseCode(status)
+                .setHeader("Content-Type", "application/json")
+                .setBody(body);
+    }
+
+    private static int intParam(HttpUrl url, String name, int defaultValue) {
+        String value = url != null ? url.queryParameter(name) : null;
+        return value != null ? Integer.parseInt(value) : defaultValue;
+    }
+
+    @FunctionalInterface
+    private interface RecordFormatter {
+        String format(int index);
+    }
+}
@@ -0,0 +1,73 @@
+package com.openadr.client.benchmark;
+
+import okhttp3.Protocol;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the VEN agent once against the mock VTN and checks its summary line
+ *
+ * The arguments are the command that starts the agent, normally the native
+ * executable; the VTN URL and credentials are appended. Works as well with
+ * {@code java -cp ... com.openadr.client.example.VenAgent} for comparison.
+ *
+ * Usage: nativeSmokeTest (builds the executable first), or
+ *        NativeSmokeTest command [args...]
+ */
+public class NativeSmokeTest {
+    private static final int EVENTS = 120;
+    private static final String EXPECTED = "programs=50 events=" + EVENTS;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            System.err.println("Usage: NativeSmokeTest command [args...]");
+            System.exit(2);
+        }
+
+        try (MockVtn vtn = new MockVtn(Protocol.HTTP_1_1, EVENTS, 0)) {
+            List<String> command = new ArrayList<>(Arrays.asList(args));
+            command.addAll(List.of(vtn.getBaseUrl(), "smoke-test", "secret", "--once"));
+
+            long start = System.nanoTime();
+            Process process = new ProcessBuilder(command)
+                    .redirectError(ProcessBuilder.Redirect.INHERIT)
+                    .start();
+            String summary = null;
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.startsWith("programs=")) {
+                        summary = line;
+                    }
+                }
+            }
+            if (!process.waitFor(60, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+                fail("agent did not exit within 60 seconds");
+            }
+            double elapsed = (System.nanoTime() - start) / 1e6;
+
+            if (process.exitValue() != 0) {
+                fail("agent exited with status " + process.exitValue());
+            }
+            if (!EXPECTED.equals(summary)) {
+                fail("expected '" + EXPECTED + "' but the agent printed '" + summary + "'");
+            }
+            System.out.printf("PASSED in %.2f ms (%d token requests, %d API requests)%n",
+                    elapsed, vtn.getTokenRequests(), vtn.getRequests());
+        }
+        System.exit(0);
+    }
+
+    private static void fail(String message) {
+        System.err.println("FAILED: " + message);
+        System.exit(1);
+    }
+}
@@ -0,0 +1,118 @@
+package com.openadr.client.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import com.openadr.client.OADR3Runtime;
+import com.openadr.client.model.Event;
+import com.openadr.client.model.IntervalPeriod;
+import com.openadr.client.model.Report;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the ways of serializing request bodies and parsing list responses
+ *
+ * The {@code write*} benchmarks serialize one report as {@code createReport}
+ * does: through a String re-encoded to bytes, straight to bytes with the
+ * mapper, with a precomputed {@link ObjectWriter}, and with a precomputed
+ * writer on a mapper with the Blackbird module. The {@code read*} benchmarks
+ * parse a page of 50 events with a new {@link TypeReference} per call, with a
+ * precomputed {@link ObjectReader}, and with a precomputed reader on Blackbird.
+ *
+ * Usage: runJmh --args="SerializationBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+    private ObjectMapper mapper;
+    private ObjectWriter reportWriter;
+    private ObjectWriter blackbirdReportWriter;
+    private ObjectReader eventPageReader;
+    private ObjectReader blackbirdEventPageReader;
+    private Report report;
+    private byte[] eventPage;
+
+    @Setup
+    public void setup() throws Exception {
+        mapper = OADR3Runtime.defaultObjectMapper();
+        ObjectMapper blackbird = OADR3Runtime.defaultObjectMapper().registerModule(new BlackbirdModule());
+        TypeReference<List<Event>> eventList = new TypeReference<>() {};
+
+        reportWriter = mapper.writerFor(Report.class);
+        blackbirdReportWriter = blackbird.writerFor(Report.class);
+        eventPageReader = mapper.readerFor(eventList);
+        blackbirdEventPageReader = blackbird.readerFor(eventList);
+
+        report = new Report("program-1", "ven-1", "Usage report");
+        report.setEventId("event-1");
+
+        OffsetDateTime start = OffsetDateTime.of(2025, 1, 1, 12, 0, 0, 0, ZoneOffset.UTC);
+        List<Event> events = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            Event event = new Event("program-" + (i % 10), "Event " + i, i % 5);
+            event.setId("event-" + i);
+            event.setCreatedDateTime(start);
+            event.setModificationDateTime(start);
+            event.setIntervalPeriod(new IntervalPeriod(start, "PT1H"));
+            events.add(event);
+        }
+        eventPage = mapper.writeValueAsBytes(events);
+    }
+
+    @Benchmark
+    public byte[] writeViaString() throws Exception {
+        return mapper.writeValueAsString(report).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public byte[] writeMapperBytes() throws Exception {
+        return mapper.writeValueAsBytes(report);
+    }
+
+    @Benchmark
+    public byte[] writePrecomputedWriter() throws Exception {
+        return reportWriter.writeValueAsBytes(report);
+    }
+
+    @Benchmark
+    public byte[] writePrecomputedWriterBlackbird() throws Exception {
+        return blackbirdReportWriter.writeValueAsBytes(report);
+    }
+
+    @Benchmark
+    public List<Event> readNewTypeReference() throws Exception {
+        return mapper.readValue(eventPage, new TypeReference<List<Event>>() {});
+    }
+
+    @Benchmark
+    public List<Event> readPrecomputedReader() throws Exception {
+        return eventPageReader.readValue(eventPage);
+    }
+
+    @Benchmark
+    public List<Event> readPrecomputedReaderBlackbird() throws Exception {
+        return blackbirdEventPageReader.readValue(eventPage);
+    }
+}
@@ -0,0 +1,99 @@
+package com.openadr.client.benchmark;
+
+import com.openadr.client.APIResponse;
+import com.openadr.client.OADR3;
+import com.openadr.client.OADR3Config;
+import com.openadr.client.OADR3Runtime;
+import com.openadr.client.model.Program;
+import okhttp3.Protocol;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Measures the time from JVM start to the first completed searchAllPrograms
+ *
+ * Every round launches a fresh JVM with the benchmark classpath, which creates
+ * a client against the mock VTN and exits as soon as the first page of
+ * programs is back. The launcher reports the wall time from starting the
+ * process to receiving the result, and the probe reports how much of it was
+ * spent inside {@code main}. Rounds alternate between clients that build their
+ * HTTP stack and mapper on first use ("lazy") and clients whose runtime was
+ * told to build them in the background with {@code initializeAsync()}
+ * ("background").
+ *
+ * Usage: runStartupBenchmark --args="[rounds] [latencyMillis]"
+ */
+public class StartupBenchmark {
+    private static final List<String> MODES = List.of("lazy", "background");
+
+    public static void main(String[] args) throws Exception {
+        int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        long latencyMillis = args.length > 1 ? Long.parseLong(args[1]) : 5;
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        String classpath = System.getProperty("java.class.path");
+
+        try (MockVtn vtn = new MockVtn(Protocol.HTTP_1_1, 50, latencyMillis)) {
+            System.out.printf("latency=%dms rounds=%d%n", latencyMillis, rounds);
+            System.out.printf("%-12s %5s %16s %14s %14s%n", "mode", "round", "process ms", "jvm boot ms", "main ms");
+
+            for (int round = 0; round < rounds; round++) {
+                for (String mode : MODES) {
+                    long start = System.nanoTime();
+                    Process process = new ProcessBuilder(java, "-cp", classpath, Probe.class.getName(),
+                            vtn.getBaseUrl(), mode)
+                            .redirectError(ProcessBuilder.Redirect.INHERIT)
+                            .start();
+                    String result;
+                    try (BufferedReader reader = new BufferedReader(
+                            new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+                        result = reader.readLine();
+                    }
+                    double elapsed = (System.nanoTime() - start) / 1e6;
+                    if (process.waitFor() != 0 || result == null) {
+                        throw new IllegalStateException("Probe failed in mode " + mode);
+                    }
+
+                    String[] times = result.split(" ");
+                    System.out.printf("%-12s %5d %16.2f %14s %14s%n", mode, round, elapsed, times[0], times[1]);
+                }
+            }
+        }
+        System.exit(0);
+    }
+
+    /**
+     * Runs in the child JVM. Prints the JVM boot time and the time spent in
+     * main, in milliseconds, once the first search has completed.
+     */
+    public static final class Probe {
+        public static void main(String[] args) throws Exception {
+            long mainStart = System.nanoTime();
+            String baseUrl = args[0];
+            String mode = args[1];
+
+            OADR3Runtime runtime = new OADR3Runtime();
+            if (mode.equals("background")) {
+                runtime.initializeAsync();
+            }
+            OADR3 client = runtime.newClient(new OADR3Config(baseUrl, "benchmark", "secret"));
+            APIResponse<List<Program>> response = client.searchAllPrograms(null, 0, 50);
+            if (!response.isSuccess()) {
+                throw new IllegalStateException("Search failed: " + response.getProblem());
+            }
+            double main = (System.nanoTime() - mainStart) / 1e6;
+
+            // Read after the measured section so that loading the management classes is not counted
+            long boot = ManagementFactory.getRuntimeMXBean().getUptime() - Math.round(main);
+            System.out.println(String.format(Locale.ROOT, "%d %.2f", boot, main));
+            System.out.flush();
+            runtime.close();
+            System.exit(0);
+        }
+    }
+}
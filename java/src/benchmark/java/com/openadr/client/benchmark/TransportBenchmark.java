@@ -0,0 +1,113 @@
+package com.openadr.client.benchmark;
+
+import com.openadr.client.OADR3;
+import com.openadr.client.OADR3Async;
+import com.openadr.client.OADR3Config;
+import com.openadr.client.OADR3Runtime;
+import com.openadr.client.TransportProfile;
+import okhttp3.Protocol;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Compares transport profiles and backends against a local mock VTN
+ *
+ * Each profile issues the same number of asynchronous event searches with a
+ * fixed number outstanding, and reports throughput and latency percentiles.
+ * With the default profile the per-host limit of 5 caps throughput at roughly
+ * 5 / latency requests per second regardless of the requested concurrency.
+ *
+ * Usage: runTransportBenchmark --args="[requests] [concurrency] [latencyMillis]"
+ */
+public class TransportBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int requests = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 128;
+        long latencyMillis = args.length > 2 ? Long.parseLong(args[2]) : 10;
+
+        Map<String, TransportProfile> profiles = new LinkedHashMap<>();
+        profiles.put("default", TransportProfile.defaults());
+        profiles.put("http1-wide", TransportProfile.highThroughput().toBuilder()
+                .protocol(TransportProfile.Protocol.HTTP_1_1)
+                .build());
+        profiles.put("h2c", TransportProfile.highThroughput().toBuilder()
+                .protocol(TransportProfile.Protocol.H2_PRIOR_KNOWLEDGE)
+                .build());
+        profiles.put("jdk-http1", TransportProfile.highThroughput().toBuilder()
+                .backend(TransportProfile.Backend.JDK)
+                .protocol(TransportProfile.Protocol.HTTP_1_1)
+                .build());
+        profiles.put("jdk-default", TransportProfile.defaults().toBuilder()
+                .backend(TransportProfile.Backend.JDK)
+                .build());
+
+        System.out.printf("requests=%d concurrency=%d latency=%dms%n", requests, concurrency, latencyMillis);
+        System.out.printf("%-12s %10s %10s %10s %10s %12s%n",
+                "profile", "req/s", "p50 ms", "p99 ms", "max ms", "connections");
+
+        for (Map.Entry<String, TransportProfile> entry : profiles.entrySet()) {
+            TransportProfile profile = entry.getValue();
+            Protocol serverProtocol = profile.getProtocol() == TransportProfile.Protocol.H2_PRIOR_KNOWLEDGE
+                    ? Protocol.H2_PRIOR_KNOWLEDGE : Protocol.HTTP_1_1;
+
+            try (MockVtn vtn = new MockVtn(serverProtocol, 1000, latencyMillis);
+                 OADR3Runtime runtime = new OADR3Runtime(profile)) {
+                OADR3 client = runtime.newClient(new OADR3Config(vtn.getBaseUrl(), "benchmark", "secret"));
+                OADR3Async async = new OADR3Async(client);
+
+                // Warm up connections, token and serializers
+                run(async, Math.min(requests, 200), concurrency);
+
+                long start = System.nanoTime();
+                long[] latencies = run(async, requests, concurrency);
+                double seconds = (System.nanoTime() - start) / 1e9;
+
+                Arrays.sort(latencies);
+                System.out.printf("%-12s %10.0f %10.2f %10.2f %10.2f %12s%n",
+                        entry.getKey(),
+                        requests / seconds,
+                        percentile(latencies, 0.50),
+                        percentile(latencies, 0.99),
+                        latencies[latencies.length - 1] / 1e6,
+                        connections(runtime));
+            }
+        }
+        System.exit(0);
+    }
+
+    private static long[] run(OADR3Async async, int requests, int concurrency) throws InterruptedException {
+        long[] latencies = new long[requests];
+        Semaphore permits = new Semaphore(concurrency);
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[requests];
+
+        for (int i = 0; i < requests; i++) {
+            permits.acquire();
+            int index = i;
+            long start = System.nanoTime();
+            futures[i] = async.searchAllEvents(null, (i * 50) % 1000, 50).whenComplete((response, error) -> {
+                latencies[index] = System.nanoTime() - start;
+                permits.release();
+                if (error != null) {
+                    System.err.println("Request failed: " + error);
+                }
+            });
+        }
+        CompletableFuture.allOf(futures).join();
+        return latencies;
+    }
+
+    private static String connections(OADR3Runtime runtime) {
+        int count = runtime.getStats().getConnectionCount();
+        return count < 0 ? "n/a" : String.valueOf(count);
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+}
@@ -0,0 +1,87 @@
+package com.openadr.client.benchmark;
+
+import com.openadr.client.model.Event;
+import com.openadr.client.model.Program;
+import com.openadr.client.validation.ValidationUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the generated validators with reflective Hibernate Validator
+ *
+ * {@code eventPage} validates a full page of 50 events, as
+ * {@code searchAllEvents} does for every response; {@code invalidProgram}
+ * measures the failure path including message formatting.
+ *
+ * Usage: runJmh --args="ValidationBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ValidationBenchmark {
+    private List<Event> events;
+    private Program program;
+    private Program invalidProgram;
+
+    @Setup
+    public void setup() {
+        events = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            Event event = new Event("program-" + (i % 10), "Event " + i, i % 5);
+            event.setId("event-" + i);
+            events.add(event);
+        }
+        program = new Program("Program", "Retailer", "PRICING_TARIFF", "US");
+        invalidProgram = new Program(null, "Retailer", "PRICING_TARIFF", "USA");
+    }
+
+    @Benchmark
+    public void eventPageGenerated(Blackhole blackhole) {
+        for (Event event : events) {
+            blackhole.consume(ValidationUtils.validate(event));
+        }
+    }
+
+    @Benchmark
+    public void eventPageReflective(Blackhole blackhole) {
+        for (Event event : events) {
+            blackhole.consume(ValidationUtils.validateReflectively(event));
+        }
+    }
+
+    @Benchmark
+    public ValidationUtils.ValidationResult programGenerated() {
+        return ValidationUtils.validate(program);
+    }
+
+    @Benchmark
+    public ValidationUtils.ValidationResult programReflective() {
+        return ValidationUtils.validateReflectively(program);
+    }
+
+    @Benchmark
+    public ValidationUtils.ValidationResult invalidProgramGenerated() {
+        return ValidationUtils.validate(invalidProgram);
+    }
+
+    @Benchmark
+    public ValidationUtils.ValidationResult invalidProgramReflective() {
+        return ValidationUtils.validateReflectively(invalidProgram);
+    }
+}
@@ -0,0 +1,76 @@
+package com.openadr.client.benchmark;
+
+import com.openadr.client.DeltaSync;
+import com.openadr.client.OADR3;
+import com.openadr.client.OADR3Config;
+import com.openadr.client.OADR3Runtime;
+import com.openadr.client.model.Event;
+import okhttp3.Protocol;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Measures startup-to-first-decision time for an event replica
+ *
+ * A cold start syncs the whole collection from the mock VTN before the first
+ * lookup. A warm start restores the replica from a snapshot file, answers the
+ * lookup from it, and revalidates against the VTN in the background.
+ *
+ * Usage: runWarmStartBenchmark --args="[events] [latencyMillis] [rounds]"
+ */
+public class WarmStartBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int events = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        long latencyMillis = args.length > 1 ? Long.parseLong(args[1]) : 20;
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+        String lookupId = "event-" + (events / 2);
+
+        Path snapshot = Files.createTempFile("events", ".snapshot");
+        Files.delete(snapshot);
+        ExecutorService background = Executors.newSingleThreadExecutor();
+
+        try (MockVtn vtn = new MockVtn(Protocol.HTTP_1_1, events, latencyMillis)) {
+            // Seed the snapshot as a previous run of the process would have
+            try (OADR3Runtime runtime = new OADR3Runtime()) {
+                DeltaSync.events(client(runtime, vtn), null).persistTo(snapshot).sync();
+            }
+            System.out.printf("events=%d latency=%dms snapshot=%d bytes%n", events, latencyMillis, Files.size(snapshot));
+            System.out.printf("%-6s %18s %18s %14s%n", "start", "first decision ms", "revalidated ms", "304 answers");
+
+            for (int round = 0; round < rounds; round++) {
+                try (OADR3Runtime runtime = new OADR3Runtime()) {
+                    long start = System.nanoTime();
+                    DeltaSync<Event> replica = DeltaSync.events(client(runtime, vtn), null);
+                    replica.sync();
+                    replica.get(lookupId).orElseThrow();
+                    double decision = (System.nanoTime() - start) / 1e6;
+                    System.out.printf("%-6s %18.2f %18.2f %14s%n", "cold", decision, decision, "-");
+                }
+
+                try (OADR3Runtime runtime = new OADR3Runtime()) {
+                    long notModified = vtn.getNotModified();
+                    long start = System.nanoTime();
+                    DeltaSync<Event> replica = DeltaSync.events(client(runtime, vtn), null).persistTo(snapshot);
+                    replica.get(lookupId).orElseThrow();
+                    double decision = (System.nanoTime() - start) / 1e6;
+                    replica.syncAsync(background).join();
+                    double revalidated = (System.nanoTime() - start) / 1e6;
+                    System.out.printf("%-6s %18.2f %18.2f %14d%n", "warm", decision, revalidated,
+                            vtn.getNotModified() - notModified);
+                }
+            }
+        } finally {
+            background.shutdown();
+            Files.deleteIfExists(snapshot);
+        }
+        System.exit(0);
+    }
+
+    private static OADR3 client(OADR3Runtime runtime, MockVtn vtn) {
+        return runtime.newClient(new OADR3Config(vtn.getBaseUrl(), "benchmark", "secret"));
+    }
+}
@@ -0,0 +1,185 @@
+package com.openadr.client;
+
+import com.openadr.client.validation.ValidationUtils;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+
+/**
+ * Submits a batch of items with several requests in flight
+ *
+ * Up to {@code concurrency} requests are outstanding at once; each completed
+ * request launches the next item, so the pipeline stays full without a thread
+ * per request. Every item gets its own result, in input order: the VTN's
+ * answer, or a response with status 0 and a {@code CLIENT_ERROR} problem when
+ * no usable answer was obtained: on a network error, but also when the
+ * response could not be parsed or failed validation, in which case the VTN may
+ * have stored the item. One failed item never stops the others.
+ */
+final class BatchSubmitter<T, R> {
+    static final String CLIENT_ERROR = "CLIENT_ERROR";
+
+    private final Function<T, CompletableFuture<APIResponse<R>>> submit;
+    private final int concurrency;
+
+    BatchSubmitter(Function<T, CompletableFuture<APIResponse<R>>> submit, int concurrency) {
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("concurrency must be at least 1");
+        }
+        this.submit = submit;
+        this.concurrency = concurrency;
+    }
+
+    /**
+     * Validates every item of a batch, so that an invalid item is reported
+     * before anything is sent
+     *
+     * @param name Name of the batch in error messages, such as "events"
+     * @return the combined result, naming each invalid item by its index
+     */
+    static ValidationUtils.ValidationResult validateAll(String name, List<?> items) {
+        if (items == null) {
+            return ValidationUtils.ValidationResult.failure(name + " cannot be null");
+        }
+        StringBuilder errors = new StringBuilder();
+        for (int i = 0; i < items.size(); i++) {
+            ValidationUtils.ValidationResult result = ValidationUtils.validate(items.get(i));
+            if (!result.isValid()) {
+                if (errors.length() > 0) {
+                    errors.append("; ");
+                }
+                errors.append(name).append('[').append(i).append("]: ").append(result.getErrorMessage());
+            }
+        }
+        return errors.length() == 0 ? ValidationUtils.ValidationResult.success()
+                : ValidationUtils.ValidationResult.failure(errors.toString());
+    }
+
+    /**
+     * Submits every item. The returned future completes when all requests
+     * have; cancelling it cancels the requests in flight and launches no more.
+     */
+    CompletableFuture<List<APIResponse<R>>> submitAll(List<T> items) {
+        if (items.isEmpty()) {
+            return CompletableFuture.completedFuture(Collections.emptyList());
+        }
+        return new Run(items).start();
+    }
+
+    /**
+     * Waits for a batch submitted by {@link #submitAll}
+     */
+    static <R> List<APIResponse<R>> await(CompletableFuture<List<APIResponse<R>>> batch) throws IOException {
+        try {
+            return batch.get();
+        } catch (InterruptedException e) {
+            batch.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for batch");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    private final class Run {
+        private final List<T> items;
+        private final AtomicReferenceArray<APIResponse<R>> results;
+        private final AtomicInteger next = new AtomicInteger();
+        private final AtomicInteger remaining;
+        private final AtomicInteger credits = new AtomicInteger();
+        private final AtomicInteger wip = new AtomicInteger();
+        private final Set<CompletableFuture<APIResponse<R>>> inFlight = ConcurrentHashMap.newKeySet();
+        private final CompletableFuture<List<APIResponse<R>>> done = new CompletableFuture<>();
+
+        Run(List<T> items) {
+            this.items = items;
+            this.results = new AtomicReferenceArray<>(items.size());
+            this.remaining = new AtomicInteger(items.size());
+        }
+
+        CompletableFuture<List<APIResponse<R>>> start() {
+            done.whenComplete((list, error) -> {
+                if (done.isCancelled()) {
+                    inFlight.forEach(call -> call.cancel(true));
+                }
+            });
+            credits.addAndGet(Math.min(concurrency, items.size()));
+            drain();
+            return done;
+        }
+
+        /**
+         * Launches one item per credit. Requests that complete on the calling
+         * thread re-enter here; the work counter turns that into another
+         * pass of the loop instead of a deeper stack.
+         */
+        private void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            do {
+                while (credits.get() > 0) {
+                    credits.decrementAndGet();
+                    int index = next.getAndIncrement();
+                    if (index < items.size() && !done.isDone()) {
+                        launch(index);
+                    }
+                }
+            } while (wip.decrementAndGet() != 0);
+        }
+
+        private void launch(int index) {
+            CompletableFuture<APIResponse<R>> call = submit(items.get(index));
+            inFlight.add(call);
+            call.whenComplete((response, error) -> {
+                inFlight.remove(call);
+                results.set(index, error == null ? response : failure(error));
+                if (remaining.decrementAndGet() == 0) {
+                    List<APIResponse<R>> list = new ArrayList<>(results.length());
+                    for (int i = 0; i < results.length(); i++) {
+                        list.add(results.get(i));
+                    }
+                    done.complete(Collections.unmodifiableList(list));
+                } else {
+                    credits.incrementAndGet();
+                    drain();
+                }
+            });
+        }
+    }
+
+    private CompletableFuture<APIResponse<R>> submit(T item) {
+        try {
+            return submit.apply(item);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * @return the result recorded for an item whose request failed or whose
+     *         response could not be used
+     */
+    static <R> APIResponse<R> failure(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        return new APIResponse<>(0, new APIError(CLIENT_ERROR, cause.getClass().getSimpleName(), 0, cause.getMessage()));
+    }
+}
@@ -0,0 +1,128 @@
+package com.openadr.client;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.openadr.client.transport.HttpResponse;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * HTTP validator cache for GET responses
+ *
+ * Remembers the ETag and Last-Modified validators of successful responses,
+ * together with the validated result in serialized form, keyed by request path
+ * and query. The next request for the same path is sent with If-None-Match and
+ * If-Modified-Since, and a 304 Not Modified answer is served by reading the
+ * stored result again without validating it. Every caller therefore gets its
+ * own model objects, and changes made to them never reach the cache.
+ *
+ * Entries are evicted least recently used first once {@code maxEntries} is
+ * reached. A cache with a size of 0 stores nothing.
+ */
+final class ConditionalGetCache {
+    private final int maxEntries;
+    private final Map<String, Entry> entries;
+
+    ConditionalGetCache(int maxEntries) {
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > ConditionalGetCache.this.maxEntries;
+            }
+        };
+    }
+
+    boolean isEnabled() {
+        return maxEntries > 0;
+    }
+
+    /**
+     * @return the stored entry for a path, or null
+     */
+    Entry get(String path) {
+        if (!isEnabled()) {
+            return null;
+        }
+        synchronized (entries) {
+            return entries.get(path);
+        }
+    }
+
+    /**
+     * Records the outcome of a full (non-304) response. Successful responses
+     * carrying a validator are stored; successful responses without one, and
+     * 404 or 410 answers, drop any stored entry. Other errors leave the entry
+     * in place so the next request can still be conditional.
+     */
+    void update(String path, HttpResponse response, APIResponse<?> result, JsonCodec codec) throws IOException {
+        if (!isEnabled()) {
+            return;
+        }
+
+        int status = response.getStatus();
+        if (result.isSuccess()) {
+            String etag = response.getHeader("ETag");
+            String lastModified = response.getHeader("Last-Modified");
+            Entry entry = null;
+            if (etag != null || lastModified != null) {
+                Object value = result.getResponse();
+                entry = new Entry(etag, lastModified, status, value != null ? codec.write(value) : null);
+            }
+            synchronized (entries) {
+                if (entry != null) {
+                    entries.put(path, entry);
+                } else {
+                    entries.remove(path);
+                }
+            }
+        } else if (status == 404 || status == 410) {
+            synchronized (entries) {
+                entries.remove(path);
+            }
+        }
+    }
+
+    /**
+     * Reads a stored result into new model objects
+     */
+    <T> APIResponse<T> read(Entry entry, TypeReference<T> responseType, JsonCodec codec) throws IOException {
+        if (entry.body == null) {
+            return new APIResponse<>(entry.status, null);
+        }
+        return new APIResponse<>(entry.status, codec.reader(responseType).<T>readValue(entry.body));
+    }
+
+    /**
+     * Validators and the serialized validated result of one response
+     */
+    static final class Entry {
+        private final String etag;
+        private final String lastModified;
+        private final int status;
+        private final byte[] body;
+
+        Entry(String etag, String lastModified, int status, byte[] body) {
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.status = status;
+            this.body = body;
+        }
+
+        /**
+         * @return the If-None-Match and If-Modified-Since headers for a revalidation request
+         */
+        Map<String, String> conditionalHeaders() {
+            Map<String, String> headers = new LinkedHashMap<>();
+            if (etag != null) {
+                headers.put("If-None-Match", etag);
+            }
+            if (lastModified != null) {
+                headers.put("If-Modified-Since", lastModified);
+            }
+            return Collections.unmodifiableMap(headers);
+        }
+    }
+}
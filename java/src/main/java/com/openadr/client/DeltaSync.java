@@ -0,0 +1,608 @@
+package com.openadr.client;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import com.openadr.client.model.Event;
+import com.openadr.client.model.Program;
+import com.openadr.client.model.Report;
+import com.openadr.client.model.Ven;
+import com.openadr.client.transport.HttpResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+/**
+ * Local replica of a VTN collection kept current by delta synchronization
+ *
+ * Each call to {@link #sync()} pages through the collection and compares it
+ * with the replica. Elements are fingerprinted from their raw JSON bytes while
+ * the page is scanned, so only new and changed elements are deserialized and
+ * validated; unchanged ones cost a hash. Pages are requested with the ETag or
+ * Last-Modified value of their previous answer, and a 304 marks every element
+ * of the page as unchanged without transferring it.
+ *
+ * The replica is updated and listeners are notified of added, modified and
+ * removed elements only once the whole collection has been read. A cycle that
+ * hits an error response leaves the replica untouched.
+ *
+ * <pre>
+ * DeltaSync&lt;Event&gt; events = DeltaSync.events(client, programId);
+ * events.addListener(change -&gt; System.out.println(change));
+ *
+ * // Call periodically, for example every 30 seconds
+ * events.sync();
+ * </pre>
+ *
+ * With {@link #persistTo(Path)} the replica survives restarts: it is saved
+ * to a snapshot file after every cycle that changed it, and loaded from that
+ * file when the process starts again. Reads are served from the snapshot
+ * immediately, and the next cycle revalidates every page with the validators
+ * stored in the file. Restored entities are only deserialized when first
+ * accessed; their JSON is then checked against its fingerprint, and the
+ * entity passes through the client's response validation like one read from
+ * the VTN. A restored element that fails either check is left out of reads,
+ * and a corrupt one is fetched again by the next cycle, which reports it as
+ * added.
+ *
+ * Because the VTN pages by skip and limit, an element inserted or deleted
+ * while a cycle is in progress can shift later pages, which may report an
+ * element as removed and then added again on the next cycle.
+ *
+ * @param <T> The entity type
+ */
+public final class DeltaSync<T> {
+    private static final Logger logger = LoggerFactory.getLogger(DeltaSync.class);
+
+    private final OADR3 client;
+    private final Class<T> type;
+    private final String path;
+    private final String query;
+    private final int pageSize;
+    private final Map<String, Entry<T>> replica = new ConcurrentHashMap<>();
+    // Restored elements whose JSON could not be read; their pages are fetched in full
+    private final Set<String> corrupt = ConcurrentHashMap.newKeySet();
+    private final List<Consumer<? super Change<T>>> listeners = new CopyOnWriteArrayList<>();
+    private Map<Integer, Page> pages = new HashMap<>();
+    private Path snapshotFile;
+
+    DeltaSync(OADR3 client, Class<T> type, String path, String query, int pageSize) {
+        if (client == null) {
+            throw new IllegalArgumentException("client cannot be null");
+        }
+        if (pageSize <= 0 || pageSize > PagedIterator.MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("pageSize must be between 1 and " + PagedIterator.MAX_PAGE_SIZE);
+        }
+        this.client = client;
+        this.type = type;
+        this.path = path;
+        this.query = query;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Creates a replica of the programs matching the given targets
+     *
+     * @param client The client used to read from the VTN
+     * @param targets Optional target filters
+     * @return an empty replica; call {@link #sync()} to populate it
+     */
+    public static DeltaSync<Program> programs(OADR3 client, List<String> targets) {
+        return new DeltaSync<>(client, Program.class, "/programs",
+                QueryBuilder.query().add("targets", targets).build(), PagedIterator.MAX_PAGE_SIZE);
+    }
+
+    /**
+     * Creates a replica of the events of a program
+     *
+     * @param client The client used to read from the VTN
+     * @param programId Optional program ID filter
+     * @return an empty replica; call {@link #sync()} to populate it
+     */
+    public static DeltaSync<Event> events(OADR3 client, String programId) {
+        return new DeltaSync<>(client, Event.class, "/events",
+                QueryBuilder.query().add("programId", programId).build(), PagedIterator.MAX_PAGE_SIZE);
+    }
+
+    /**
+     * Creates a replica of the reports matching the given filters
+     *
+     * @param client The client used to read from the VTN
+     * @param programId Optional program ID filter
+     * @param clientName Optional client name filter
+     * @return an empty replica; call {@link #sync()} to populate it
+     */
+    public static DeltaSync<Report> reports(OADR3 client, String programId, String clientName) {
+        return new DeltaSync<>(client, Report.class, "/reports",
+                QueryBuilder.query().add("programId", programId).add("clientName", clientName).build(),
+                PagedIterator.MAX_PAGE_SIZE);
+    }
+
+    /**
+     * Creates a replica of the VENs matching the given name
+     *
+     * @param client The client used to read from the VTN
+     * @param venName Optional VEN name filter
+     * @return an empty replica; call {@link #sync()} to populate it
+     */
+    public static DeltaSync<Ven> vens(OADR3 client, String venName) {
+        return new DeltaSync<>(client, Ven.class, "/vens",
+                QueryBuilder.query().add("venName", venName).build(), PagedIterator.MAX_PAGE_SIZE);
+    }
+
+    /**
+     * Registers a listener for changes detected by later sync cycles.
+     * Listeners run on the thread calling {@link #sync()}.
+     *
+     * @param listener Receives each change
+     */
+    public void addListener(Consumer<? super Change<T>> listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("listener cannot be null");
+        }
+        listeners.add(listener);
+    }
+
+    public void removeListener(Consumer<? super Change<T>> listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * @param id The entity id
+     * @return the replicated entity, or empty if it is not in the replica or
+     *         was restored from a snapshot and cannot be read
+     */
+    public Optional<T> get(String id) {
+        Entry<T> entry = id != null ? replica.get(id) : null;
+        return entry != null ? Optional.ofNullable(entity(id, entry)) : Optional.empty();
+    }
+
+    /**
+     * @return a snapshot of the replica keyed by entity id, without restored
+     *         entities that cannot be read
+     */
+    public Map<String, T> getAll() {
+        Map<String, T> snapshot = new LinkedHashMap<>();
+        replica.forEach((id, entry) -> {
+            T entity = entity(id, entry);
+            if (entity != null) {
+                snapshot.put(id, entity);
+            }
+        });
+        return Collections.unmodifiableMap(snapshot);
+    }
+
+    public int size() {
+        return replica.size();
+    }
+
+    /**
+     * Reads the whole collection, updates the replica and notifies listeners
+     * of every difference from the previous cycle. The first cycle reports
+     * every element as added.
+     *
+     * @return API response containing the changes, or the first error response,
+     *         in which case the replica is left unchanged
+     */
+    public synchronized APIResponse<List<Change<T>>> sync() throws IOException {
+        Set<String> seen = new HashSet<>();
+        Map<String, Entry<T>> updated = new HashMap<>();
+        Map<Integer, Page> nextPages = new HashMap<>();
+        List<Change<T>> changes = new ArrayList<>();
+        ObjectReader reader = client.getCodec().reader(type);
+        boolean fetched = false;
+
+        for (int skip = 0; ; skip += pageSize) {
+            Page previous = pages.get(skip);
+            // A page holding a corrupt element is fetched in full to repair it
+            boolean conditional = previous != null
+                    && (corrupt.isEmpty() || previous.ids.stream().noneMatch(corrupt::contains));
+            Map<String, String> headers = conditional ? previous.conditionalHeaders() : Collections.emptyMap();
+
+            Page page;
+            try (HttpResponse response = client.executeGet(pagePath(skip), headers)) {
+                if (conditional && response.getStatus() == 304) {
+                    page = previous;
+                } else if (!response.isSuccessful()) {
+                    return client.parseError(response);
+                } else {
+                    byte[] body;
+                    try (InputStream in = response.getBody()) {
+                        body = in != null ? in.readAllBytes() : new byte[0];
+                    }
+                    page = new Page(response.getHeader("ETag"), response.getHeader("Last-Modified"));
+                    scan(reader, body, page, updated, changes);
+                    fetched = true;
+                }
+            }
+
+            seen.addAll(page.ids);
+            if (page.hasValidator()) {
+                nextPages.put(skip, page);
+            }
+            if (page.elementCount < pageSize) {
+                break;
+            }
+        }
+
+        for (Map.Entry<String, Entry<T>> entry : replica.entrySet()) {
+            if (!seen.contains(entry.getKey())) {
+                changes.add(new Change<>(Change.Type.REMOVED, entry.getKey(),
+                        entity(entry.getKey(), entry.getValue()), null));
+            }
+        }
+
+        // Apply the cycle only now that the whole collection has been read
+        replica.putAll(updated);
+        replica.keySet().retainAll(seen);
+        corrupt.removeAll(updated.keySet());
+        corrupt.retainAll(seen);
+        boolean pagesChanged = fetched || nextPages.size() != pages.size();
+        pages = nextPages;
+
+        if (snapshotFile != null && (pagesChanged || !changes.isEmpty())) {
+            try {
+                saveSnapshot();
+            } catch (IOException e) {
+                logger.warn("Could not save {} snapshot to {}", path, snapshotFile, e);
+            }
+        }
+
+        for (Change<T> change : changes) {
+            for (Consumer<? super Change<T>> listener : listeners) {
+                try {
+                    listener.accept(change);
+                } catch (RuntimeException e) {
+                    logger.warn("Sync listener failed for {}", change, e);
+                }
+            }
+        }
+        if (!changes.isEmpty()) {
+            logger.debug("Sync of {} found {} changes", path, changes.size());
+        }
+        return new APIResponse<>(200, Collections.unmodifiableList(changes));
+    }
+
+    /**
+     * Runs {@link #sync()} on the given executor, for example to revalidate a
+     * replica restored from a snapshot while it already serves reads
+     *
+     * @param executor The executor to run the cycle on
+     * @return future API response containing the changes
+     */
+    public CompletableFuture<APIResponse<List<Change<T>>>> syncAsync(Executor executor) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return sync();
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
+    /**
+     * Persists the replica to a snapshot file. If the file exists, the replica
+     * is restored from it right away; a missing, unreadable or mismatched file
+     * leaves the replica empty. Afterwards the snapshot is rewritten after
+     * every sync cycle that changed the replica.
+     *
+     * @param file The snapshot file
+     * @return this replica
+     */
+    public synchronized DeltaSync<T> persistTo(Path file) {
+        if (file == null) {
+            throw new IllegalArgumentException("file cannot be null");
+        }
+        if (!replica.isEmpty()) {
+            throw new IllegalStateException("persistTo must be called before the first sync");
+        }
+        this.snapshotFile = file;
+
+        try {
+            ReplicaSnapshot snapshot = ReplicaSnapshot.map(file, source());
+            if (snapshot != null) {
+                for (ReplicaSnapshot.Record record : snapshot.getRecords()) {
+                    replica.put(record.id, new Entry<>(null, record.fingerprint, record.json));
+                }
+                for (ReplicaSnapshot.PageRecord record : snapshot.getPages()) {
+                    pages.put(record.skip, new Page(record));
+                }
+                logger.debug("Restored {} {} elements from {}", replica.size(), path, file);
+            }
+        } catch (IOException e) {
+            logger.warn("Ignoring snapshot {}", file, e);
+            replica.clear();
+            pages.clear();
+        }
+        return this;
+    }
+
+    /**
+     * Writes the replica to the file given to {@link #persistTo(Path)}. This
+     * happens automatically after sync cycles; call it to force a save.
+     */
+    public synchronized void saveSnapshot() throws IOException {
+        if (snapshotFile == null) {
+            throw new IllegalStateException("No snapshot file; call persistTo first");
+        }
+
+        List<ReplicaSnapshot.Record> records = new ArrayList<>(replica.size());
+        replica.forEach((id, entry) -> records.add(new ReplicaSnapshot.Record(id, entry.fingerprint, entry.json)));
+        List<ReplicaSnapshot.PageRecord> pageRecords = new ArrayList<>(pages.size());
+        pages.forEach((skip, page) -> pageRecords.add(new ReplicaSnapshot.PageRecord(
+                skip, page.etag, page.lastModified, page.elementCount, page.ids)));
+        ReplicaSnapshot.write(snapshotFile, source(), records, pageRecords);
+    }
+
+    /**
+     * Identifies the replicated collection in snapshot files
+     */
+    private String source() {
+        return type.getSimpleName() + " " + path + "?" + query + " pageSize=" + pageSize;
+    }
+
+    private String pagePath(int skip) {
+        return QueryBuilder.path(path).append(query).add("skip", skip).add("limit", pageSize).build();
+    }
+
+    /**
+     * Walks a JSON array page, fingerprinting each element from its raw bytes
+     * and binding only the elements that are new or differ from the replica
+     */
+    private void scan(ObjectReader reader, byte[] body, Page page,
+                      Map<String, Entry<T>> updated, List<Change<T>> changes) throws IOException {
+        try (JsonParser parser = reader.createParser(body)) {
+            JsonToken token = parser.nextToken();
+            if (token == null) {
+                return;
+            }
+            if (token != JsonToken.START_ARRAY) {
+                throw new IOException("Expected JSON array but found " + token);
+            }
+
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (token != JsonToken.START_OBJECT) {
+                    throw new IOException("Expected JSON object but found " + token);
+                }
+                page.elementCount++;
+
+                int start = (int) parser.currentTokenLocation().getByteOffset();
+                String id = null;
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.currentName();
+                    JsonToken value = parser.nextToken();
+                    if (value == JsonToken.VALUE_STRING && "id".equals(field)) {
+                        id = parser.getText();
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+                int end = (int) parser.currentLocation().getByteOffset();
+
+                if (id == null) {
+                    logger.warn("Skipping {} element without an id", path);
+                    continue;
+                }
+                page.ids.add(id);
+
+                long fingerprint = fingerprint(body, start, end);
+                Entry<T> current = updated.containsKey(id) ? updated.get(id) : replica.get(id);
+                if (current != null && current.fingerprint == fingerprint && !isCorrupt(current)) {
+                    continue;
+                }
+
+                T entity = reader.readValue(body, start, end - start);
+                client.getResponseValidator().validate(entity);
+                // A previous value that cannot be read is reported as unknown
+                T previous = current != null ? entity(id, current) : null;
+                // Copied so the entry does not keep the whole page alive
+                updated.put(id, new Entry<>(entity, fingerprint, ByteBuffer.wrap(Arrays.copyOfRange(body, start, end))));
+                changes.add(new Change<>(previous == null ? Change.Type.ADDED : Change.Type.MODIFIED,
+                        id, previous, entity));
+            }
+        }
+    }
+
+    /**
+     * 64-bit FNV-1a hash of an element's JSON bytes
+     */
+    private static long fingerprint(byte[] bytes, int start, int end) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = start; i < end; i++) {
+            hash ^= bytes[i] & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private static long fingerprint(ByteBuffer json) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = json.position(); i < json.limit(); i++) {
+            hash ^= json.get(i) & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * @return true if an entry restored from a snapshot no longer matches its
+     *         fingerprint or could not be bound, so an unchanged page must
+     *         still replace it
+     */
+    private static boolean isCorrupt(Entry<?> entry) {
+        return entry.entity == null
+                && (entry.state == Entry.CORRUPT || fingerprint(entry.json) != entry.fingerprint);
+    }
+
+    /**
+     * Returns an entry's entity, binding and validating it on first access.
+     * An entry restored from a snapshot whose JSON is corrupt, or whose entity
+     * fails response validation, is logged once and yields null from then on;
+     * a corrupt one is replaced from its page on the next sync.
+     */
+    private T entity(String id, Entry<T> entry) {
+        T entity = entry.entity;
+        if (entity != null || entry.state != Entry.UNBOUND) {
+            return entity;
+        }
+
+        try {
+            if (fingerprint(entry.json) != entry.fingerprint) {
+                throw new IOException("Fingerprint mismatch");
+            }
+            entity = client.getCodec().reader(type).readValue(
+                    new ByteBufferBackedInputStream(entry.json.duplicate()));
+        } catch (IOException e) {
+            logger.warn("Cannot read {} {} from snapshot; it is fetched again on the next sync",
+                    type.getSimpleName(), id, e);
+            entry.state = Entry.CORRUPT;
+            corrupt.add(id);
+            return null;
+        }
+        try {
+            client.getResponseValidator().validate(entity);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Ignoring invalid {} {} from snapshot: {}", type.getSimpleName(), id, e.getMessage());
+            entry.state = Entry.INVALID;
+            return null;
+        }
+        entry.entity = entity;
+        return entity;
+    }
+
+    /**
+     * A replicated element: its JSON as received and, once bound, its entity
+     */
+    private static final class Entry<T> {
+        private static final int UNBOUND = 0;
+        private static final int CORRUPT = 1;
+        private static final int INVALID = 2;
+
+        private final long fingerprint;
+        private final ByteBuffer json;
+        private volatile T entity;
+        // Why an unbound entry has no entity; only set for snapshot entries
+        private volatile int state = UNBOUND;
+
+        private Entry(T entity, long fingerprint, ByteBuffer json) {
+            this.entity = entity;
+            this.fingerprint = fingerprint;
+            this.json = json;
+        }
+    }
+
+    /**
+     * Validators and element ids of one page from the previous cycle
+     */
+    private static final class Page {
+        private final String etag;
+        private final String lastModified;
+        private final List<String> ids = new ArrayList<>();
+        private int elementCount;
+
+        private Page(String etag, String lastModified) {
+            this.etag = etag;
+            this.lastModified = lastModified;
+        }
+
+        private Page(ReplicaSnapshot.PageRecord record) {
+            this(record.etag, record.lastModified);
+            this.ids.addAll(record.ids);
+            this.elementCount = record.elementCount;
+        }
+
+        private boolean hasValidator() {
+            return etag != null || lastModified != null;
+        }
+
+        private Map<String, String> conditionalHeaders() {
+            Map<String, String> headers = new LinkedHashMap<>();
+            if (etag != null) {
+                headers.put("If-None-Match", etag);
+            }
+            if (lastModified != null) {
+                headers.put("If-Modified-Since", lastModified);
+            }
+            return headers;
+        }
+    }
+
+    /**
+     * One difference between two sync cycles
+     *
+     * @param <T> The entity type
+     */
+    public static final class Change<T> {
+        /**
+         * Kind of change
+         */
+        public enum Type {
+            ADDED,
+            MODIFIED,
+            REMOVED
+        }
+
+        private final Type type;
+        private final String id;
+        private final T previous;
+        private final T current;
+
+        Change(Type type, String id, T previous, T current) {
+            this.type = type;
+            this.id = id;
+            this.previous = previous;
+            this.current = current;
+        }
+
+        public Type getType() {
+            return type;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        /**
+         * @return the replicated entity before the change, null when added
+         */
+        public T getPrevious() {
+            return previous;
+        }
+
+        /**
+         * @return the entity after the change, null when removed
+         */
+        public T getCurrent() {
+            return current;
+        }
+
+        @Override
+        public String toString() {
+            return "Change{" +
+                    "type=" + type +
+                    ", id='" + id + '\'' +
+                    '}';
+        }
+    }
+}
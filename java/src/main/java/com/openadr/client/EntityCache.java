@@ -0,0 +1,292 @@
+package com.openadr.client;
+
+import com.openadr.client.model.Event;
+import com.openadr.client.model.Program;
+import com.openadr.client.model.Report;
+import com.openadr.client.model.Ven;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Bounded in-memory cache of programs, events, reports and VENs by id
+ *
+ * Every entity a client reads or writes is stored here: search results,
+ * created entities and updated programs. {@link OADR3#searchProgramByProgramId}
+ * is answered from the cache while the entry is fresh, without a round trip to
+ * the VTN. Entries expire {@code ttl} after they were last stored, and the
+ * least recently used entry is evicted once {@code maxEntries} is reached.
+ *
+ * Mutations made through the owning client keep the cache consistent: updates
+ * replace the stored entity and deletes remove it. Changes made by other
+ * parties are only seen once the entry expires or is replaced by a newer read.
+ *
+ * Entities are stored serialized, so every lookup returns new model objects:
+ * neither the caller that stored an entity nor the callers that read it can
+ * change what the cache holds. A cache with a size of 0 stores nothing.
+ */
+public final class EntityCache {
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final Supplier<JsonCodec> codec;
+    private final Map<String, Entry> entries;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+
+    EntityCache(int maxEntries, Duration ttl, Supplier<JsonCodec> codec) {
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttl.toNanos();
+        this.codec = codec;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > EntityCache.this.maxEntries) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * @return true if the cache stores entities
+     */
+    public boolean isEnabled() {
+        return maxEntries > 0;
+    }
+
+    /**
+     * Looks up a cached entity
+     *
+     * @param type The entity type: {@link Program}, {@link Event}, {@link Report} or {@link Ven}
+     * @param id The entity id
+     * @return a copy of the cached entity, or empty if it is not cached or
+     *         has expired
+     */
+    public <T> Optional<T> get(Class<T> type, String id) {
+        if (!isEnabled() || id == null) {
+            return Optional.empty();
+        }
+
+        String key = key(type, id);
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+            if (entry == null) {
+                misses.incrementAndGet();
+                return Optional.empty();
+            }
+            if (System.nanoTime() - entry.storedAt >= ttlNanos) {
+                entries.remove(key);
+                expirations.incrementAndGet();
+                misses.incrementAndGet();
+                return Optional.empty();
+            }
+        }
+        try {
+            T entity = codec.get().reader(type).readValue(entry.json);
+            hits.incrementAndGet();
+            return Optional.of(entity);
+        } catch (IOException e) {
+            synchronized (entries) {
+                entries.remove(key, entry);
+            }
+            misses.incrementAndGet();
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Removes one entity from the cache
+     *
+     * @param type The entity type
+     * @param id The entity id
+     */
+    public void invalidate(Class<?> type, String id) {
+        if (!isEnabled() || id == null) {
+            return;
+        }
+        synchronized (entries) {
+            entries.remove(key(type, id));
+        }
+    }
+
+    /**
+     * Removes every entity from the cache
+     */
+    public void invalidateAll() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    /**
+     * @return a snapshot of the cache counters
+     */
+    public Stats getStats() {
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+        return new Stats(size, hits.get(), misses.get(), evictions.get(), expirations.get());
+    }
+
+    /**
+     * Stores a copy of an entity under its id, replacing any previous entry
+     */
+    void put(Object entity) {
+        String id = idOf(entity);
+        if (!isEnabled() || id == null) {
+            return;
+        }
+        String key = key(entity.getClass(), id);
+        byte[] json;
+        try {
+            json = codec.get().write(entity);
+        } catch (IOException e) {
+            // Do not keep serving the previous version
+            synchronized (entries) {
+                entries.remove(key);
+            }
+            return;
+        }
+        Entry entry = new Entry(json, System.nanoTime());
+        synchronized (entries) {
+            entries.put(key, entry);
+        }
+    }
+
+    /**
+     * Stores the payload of a successful single-entity response
+     */
+    <T> APIResponse<T> store(APIResponse<T> response) {
+        if (isEnabled() && response.isSuccess() && response.getResponse() != null) {
+            put(response.getResponse());
+        }
+        return response;
+    }
+
+    /**
+     * Stores every element of a successful list response
+     */
+    <T> APIResponse<List<T>> storeAll(APIResponse<List<T>> response) {
+        if (isEnabled() && response.isSuccess() && response.getResponse() != null) {
+            for (T entity : response.getResponse()) {
+                put(entity);
+            }
+        }
+        return response;
+    }
+
+    private static String key(Class<?> type, String id) {
+        return type.getSimpleName() + '/' + id;
+    }
+
+    private static String idOf(Object entity) {
+        if (entity instanceof Program program) {
+            return program.getId();
+        }
+        if (entity instanceof Event event) {
+            return event.getId();
+        }
+        if (entity instanceof Report report) {
+            return report.getId();
+        }
+        if (entity instanceof Ven ven) {
+            return ven.getId();
+        }
+        return null;
+    }
+
+    private static final class Entry {
+        private final byte[] json;
+        private final long storedAt;
+
+        private Entry(byte[] json, long storedAt) {
+            this.json = json;
+            this.storedAt = storedAt;
+        }
+    }
+
+    /**
+     * Point-in-time counters for an entity cache
+     */
+    public static final class Stats {
+        private final int size;
+        private final long hitCount;
+        private final long missCount;
+        private final long evictionCount;
+        private final long expirationCount;
+
+        Stats(int size, long hitCount, long missCount, long evictionCount, long expirationCount) {
+            this.size = size;
+            this.hitCount = hitCount;
+            this.missCount = missCount;
+            this.evictionCount = evictionCount;
+            this.expirationCount = expirationCount;
+        }
+
+        /**
+         * @return Number of entities currently cached
+         */
+        public int getSize() {
+            return size;
+        }
+
+        /**
+         * @return Number of lookups answered from the cache
+         */
+        public long getHitCount() {
+            return hitCount;
+        }
+
+        /**
+         * @return Number of lookups that were not cached or had expired
+         */
+        public long getMissCount() {
+            return missCount;
+        }
+
+        /**
+         * @return Number of entries evicted to stay within the size bound
+         */
+        public long getEvictionCount() {
+            return evictionCount;
+        }
+
+        /**
+         * @return Number of entries dropped because their TTL had passed
+         */
+        public long getExpirationCount() {
+            return expirationCount;
+        }
+
+        /**
+         * @return hits divided by lookups, or 0 if there were no lookups
+         */
+        public double getHitRate() {
+            long lookups = hitCount + missCount;
+            return lookups == 0 ? 0 : (double) hitCount / lookups;
+        }
+
+        @Override
+        public String toString() {
+            return "Stats{" +
+                    "size=" + size +
+                    ", hitCount=" + hitCount +
+                    ", missCount=" + missCount +
+                    ", evictionCount=" + evictionCount +
+                    ", expirationCount=" + expirationCount +
+                    '}';
+        }
+    }
+}
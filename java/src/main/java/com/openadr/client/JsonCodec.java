@@ -0,0 +1,92 @@
+package com.openadr.client;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.openadr.client.model.Event;
+import com.openadr.client.model.Program;
+import com.openadr.client.model.Report;
+import com.openadr.client.model.Ven;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Jackson readers and writers for the client's request and response types
+ *
+ * Readers and writers are immutable and thread-safe, and resolve their
+ * (de)serializers once when they are created. Building them per runtime
+ * instead of per call spares every request the type resolution and
+ * serializer lookups of {@link ObjectMapper#readValue} and
+ * {@link ObjectMapper#writeValueAsBytes}. Response types are the constants
+ * below, so call sites do not create a new {@link TypeReference} either.
+ */
+final class JsonCodec {
+    static final TypeReference<Program> PROGRAM = new TypeReference<>() {};
+    static final TypeReference<List<Program>> PROGRAM_LIST = new TypeReference<>() {};
+    static final TypeReference<Event> EVENT = new TypeReference<>() {};
+    static final TypeReference<List<Event>> EVENT_LIST = new TypeReference<>() {};
+    static final TypeReference<Report> REPORT = new TypeReference<>() {};
+    static final TypeReference<List<Report>> REPORT_LIST = new TypeReference<>() {};
+    static final TypeReference<Ven> VEN = new TypeReference<>() {};
+    static final TypeReference<List<Ven>> VEN_LIST = new TypeReference<>() {};
+
+    private final ObjectMapper objectMapper;
+    // TypeReference does not override equals, so the constants are looked up by identity
+    private final Map<TypeReference<?>, ObjectReader> typeReaders = new ConcurrentHashMap<>();
+    private final Map<Class<?>, ObjectReader> classReaders = new ConcurrentHashMap<>();
+    private final Map<Class<?>, ObjectWriter> writers = new ConcurrentHashMap<>();
+
+    JsonCodec(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        for (TypeReference<?> type : List.of(PROGRAM, PROGRAM_LIST, EVENT, EVENT_LIST,
+                REPORT, REPORT_LIST, VEN, VEN_LIST)) {
+            reader(type);
+        }
+        for (Class<?> type : List.of(Program.class, Event.class, Report.class, Ven.class)) {
+            reader(type);
+            writer(type);
+        }
+        reader(APIError.class);
+    }
+
+    ObjectMapper getObjectMapper() {
+        return objectMapper;
+    }
+
+    /**
+     * @return the reader for a response type, built on first use for types
+     *         other than the constants
+     */
+    ObjectReader reader(TypeReference<?> type) {
+        return typeReaders.computeIfAbsent(type, objectMapper::readerFor);
+    }
+
+    /**
+     * @return the reader for a class, built on first use
+     */
+    ObjectReader reader(Class<?> type) {
+        return classReaders.computeIfAbsent(type, objectMapper::readerFor);
+    }
+
+    /**
+     * Serializes a request body straight to UTF-8 bytes
+     */
+    byte[] write(Object value) throws IOException {
+        return writer(value.getClass()).writeValueAsBytes(value);
+    }
+
+    /**
+     * @return a deep copy of a value, made by writing and reading it again
+     */
+    <T> T copy(T value, TypeReference<T> type) throws IOException {
+        return value != null ? reader(type).<T>readValue(write(value)) : null;
+    }
+
+    private ObjectWriter writer(Class<?> type) {
+        return writers.computeIfAbsent(type, objectMapper::writerFor);
+    }
+}
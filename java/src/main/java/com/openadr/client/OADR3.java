@@ -1,18 +1,37 @@
 package com.openadr.client;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.openadr.client.model.*;
+import com.openadr.client.transport.HttpRequest;
+import com.openadr.client.transport.HttpResponse;
 import com.openadr.client.validation.ValidationUtils;
-import okhttp3.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
 
 /**
  * OpenADR 3 client for Java
@@ -20,163 +39,680 @@ import java.util.concurrent.TimeUnit;
  * This client provides access to all OpenADR 3.1.0 API operations with
  * OAuth2 Client Credentials Flow authentication and comprehensive validation.
  */
-public class OADR3 {
+public class OADR3 implements AutoCloseable {
     private static final Logger logger = LoggerFactory.getLogger(OADR3.class);
-    private static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
 
     private final OADR3Config config;
-    private final OkHttpClient httpClient;
-    private final ObjectMapper objectMapper;
-    private volatile String accessToken;
-    private volatile long tokenExpiresAt;
+    private final OADR3Runtime runtime;
+    private final boolean ownsRuntime;
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private final TokenManager tokenManager;
+    private final ConditionalGetCache conditionalCache;
+    private final EntityCache entityCache;
+    private final ResponseValidator responseValidator;
+    private final SingleFlight singleFlight;
+    private final RequestLimiter limiter;
+    private final Retrier retrier;
+    // Package-private for OADR3Async
+    final RequestTemplate get;
+    final RequestTemplate post;
+    final RequestTemplate put;
+    final RequestTemplate delete;
+    private volatile OADR3Async async;
 
     /**
-     * Creates a new OpenADR 3 client instance
+     * Creates a new OpenADR 3 client instance with its own HTTP stack and
+     * JSON mapper, configured by the config's transport profile
      * 
      * @param config The client configuration
      */
     public OADR3(OADR3Config config) {
-        this.config = config;
-        
-        // Configure HTTP client with reasonable timeouts
-        this.httpClient = new OkHttpClient.Builder()
-                .connectTimeout(30, TimeUnit.SECONDS)
-                .writeTimeout(30, TimeUnit.SECONDS)
-                .readTimeout(60, TimeUnit.SECONDS)
-                .build();
+        this(config, new OADR3Runtime(config != null ? config.getTransportProfile() : TransportProfile.defaults()), true);
+    }
+
+    /**
+     * Creates a new OpenADR 3 client instance that shares the HTTP stack and
+     * JSON mapper of the given runtime. Credentials and the OAuth2 token remain
+     * specific to this client.
+     * 
+     * @param config The client configuration
+     * @param runtime The shared runtime
+     * @throws IllegalArgumentException if another client of the runtime uses
+     *         a different {@link RequestLimitPolicy} for the same base URL
+     */
+    public OADR3(OADR3Config config, OADR3Runtime runtime) {
+        this(config, runtime, false);
+    }
 
-        // Configure JSON object mapper
-        this.objectMapper = new ObjectMapper();
-        this.objectMapper.registerModule(new JavaTimeModule());
-        this.objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private OADR3(OADR3Config config, OADR3Runtime runtime, boolean ownsRuntime) {
+        if (config == null) {
+            throw new IllegalArgumentException("config cannot be null");
+        }
+        if (runtime == null) {
+            throw new IllegalArgumentException("runtime cannot be null");
+        }
+        this.config = config;
+        this.runtime = runtime;
+        this.ownsRuntime = ownsRuntime;
+        this.tokenManager = new TokenManager(() -> fetchToken(config, runtime));
+        this.conditionalCache = new ConditionalGetCache(config.getConditionalCacheSize());
+        this.entityCache = new EntityCache(config.getEntityCacheSize(), config.getEntityCacheTtl(), runtime::getCodec);
+        this.responseValidator = new ResponseValidator(config.getResponseValidation());
+        this.singleFlight = new SingleFlight(config.isCoalesceGets());
+        this.limiter = runtime.getLimiter(config.getBaseUrl(), config.getRequestLimits());
+        this.retrier = new Retrier(config.getRetryPolicy());
+        this.get = RequestTemplate.get(config.getBaseUrl());
+        this.post = get.forMethod("POST", true);
+        this.put = get.forMethod("PUT", true);
+        this.delete = get.forMethod("DELETE", false);
+        runtime.registerClient();
     }
 
     /**
-     * Gets a valid OAuth2 access token, refreshing if necessary
+     * @return the asynchronous facade the bulk and streaming operations run
+     *         on, created on first use
      */
-    private synchronized String getAccessToken() throws IOException {
-        // Check if we have a valid token (with 30-second buffer)
-        long now = System.currentTimeMillis();
-        if (accessToken != null && tokenExpiresAt > now + 30000) {
-            return accessToken;
+    private OADR3Async async() {
+        OADR3Async async = this.async;
+        if (async != null) {
+            return async;
+        }
+        synchronized (this) {
+            if (this.async == null) {
+                this.async = new OADR3Async(this);
+            }
+            return this.async;
         }
+    }
 
-        // Request new token using OAuth2 Client Credentials flow
-        RequestBody tokenRequestBody = new FormBody.Builder()
-                .add("grant_type", "client_credentials")
-                .add("client_id", config.getClientId())
-                .add("client_secret", config.getClientSecret())
-                .add("scope", config.getScope() != null ? config.getScope() : "")
-                .build();
+    /**
+     * Requests a new OAuth2 access token using the Client Credentials flow.
+     * Static so that the token manager does not hold on to a client that is
+     * still being constructed.
+     */
+    private static CompletableFuture<TokenManager.Token> fetchToken(OADR3Config config, OADR3Runtime runtime) {
+        long requestedAt = System.currentTimeMillis();
+        return runtime.getTransport().sendAsync(buildTokenRequest(config)).thenApply(response -> {
+            try (response) {
+                return parseTokenResponse(response, requestedAt, runtime.getCodec());
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        });
+    }
 
-        Request tokenRequest = new Request.Builder()
-                .url(config.getBaseUrl() + "/auth/token")
-                .post(tokenRequestBody)
-                .addHeader("Accept", "application/json")
-                .build();
+    /**
+     * Builds the OAuth2 Client Credentials token request
+     */
+    private static HttpRequest buildTokenRequest(OADR3Config config) {
+        String form = "grant_type=client_credentials"
+                + "&client_id=" + formEncode(config.getClientId())
+                + "&client_secret=" + formEncode(config.getClientSecret())
+                + "&scope=" + formEncode(config.getScope() != null ? config.getScope() : "");
 
-        try (Response response = httpClient.newCall(tokenRequest).execute()) {
-            if (!response.isSuccessful()) {
-                throw new IOException("OAuth2 token request failed: " + response.code() + " " + response.message());
-            }
+        Map<String, String> headers = new LinkedHashMap<>();
+        headers.put("Accept", "application/json");
+        headers.put("Content-Type", "application/x-www-form-urlencoded");
+        return new HttpRequest("POST", config.getBaseUrl() + "/auth/token", headers,
+                form.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Parses a token endpoint response
+     */
+    private static TokenManager.Token parseTokenResponse(HttpResponse response, long requestedAt, JsonCodec codec)
+            throws IOException {
+        if (!response.isSuccessful()) {
+            throw new IOException("OAuth2 token request failed: " + response.getStatus() + " " + response.getMessage());
+        }
 
-            ResponseBody body = response.body();
+        TokenResponse tokenResponse;
+        try (InputStream body = response.getBody()) {
             if (body == null) {
                 throw new IOException("Empty response body from token endpoint");
             }
+            tokenResponse = codec.reader(TokenResponse.class).readValue(body);
+        }
+        if (tokenResponse.getAccessToken() == null || tokenResponse.getAccessToken().isEmpty()) {
+            throw new IOException("Token endpoint response did not contain an access_token");
+        }
 
-            String responseString = body.string();
-            TokenResponse tokenResponse = objectMapper.readValue(responseString, TokenResponse.class);
-            
-            this.accessToken = tokenResponse.getAccessToken();
-            // Set expiration with 30-second buffer
-            this.tokenExpiresAt = now + (tokenResponse.getExpiresIn() - 30) * 1000L;
-            
-            logger.debug("Successfully obtained OAuth2 access token");
-            return accessToken;
+        logger.debug("Successfully obtained OAuth2 access token");
+        return TokenManager.Token.of(tokenResponse.getAccessToken(), tokenResponse.getExpiresIn(), requestedAt);
+    }
+
+    /**
+     * Sends an authenticated request. If the VTN rejects the token with a 401,
+     * the token is invalidated and the request is retried once with a new one.
+     * The caller must close the returned response.
+     */
+    private HttpResponse execute(RequestTemplate template, String path, Object requestBody) throws IOException {
+        return execute(template, path, requestBody, Collections.emptyMap());
+    }
+
+    /**
+     * Sends an authenticated request with additional headers, retried and
+     * hedged according to the client's {@link RetryPolicy}
+     */
+    private HttpResponse execute(RequestTemplate template, String path, Object requestBody, 
+                                 Map<String, String> extraHeaders) throws IOException {
+        if (closed.get()) {
+            throw new IllegalStateException("Client is closed");
+        }
+        if (retrier.isHedged(template.getMethod())) {
+            return Retrier.await(executeAsync(template, path, requestBody, extraHeaders));
+        }
+        return retrier.execute(template.getMethod(), () -> attempt(template, path, requestBody, extraHeaders));
+    }
+
+    /**
+     * Sends one attempt of a request once the request limiter grants a permit
+     */
+    private HttpResponse attempt(RequestTemplate template, String path, Object requestBody,
+                                 Map<String, String> extraHeaders) throws IOException {
+        RequestLimiter.Permit permit = limiter.acquire(isWrite(template));
+        HttpResponse response;
+        try {
+            response = send(template, path, requestBody, extraHeaders);
+        } catch (IOException | RuntimeException e) {
+            permit.release(null, e);
+            throw e;
+        }
+        permit.release(response, null);
+        return response;
+    }
+
+    private HttpResponse send(RequestTemplate template, String path, Object requestBody,
+                              Map<String, String> extraHeaders) throws IOException {
+        String token = tokenManager.getToken();
+        HttpRequest request = buildRequest(template, path, requestBody, token, extraHeaders);
+
+        HttpResponse response = runtime.getTransport().send(request);
+        if (response.getStatus() != 401) {
+            return response;
+        }
+
+        response.close();
+        tokenManager.invalidate(token);
+        logger.debug("Request to {} was rejected with 401, retrying with a new token", path);
+        return runtime.getTransport().send(template.withToken(request, tokenManager.getToken()));
+    }
+
+    /**
+     * Sends an authenticated request with additional headers without
+     * blocking, with the same single 401 retry, retries and hedging as
+     * {@link #execute}. Waiting for a permit from the request limiter or for
+     * a retry does not block a thread. Cancelling the returned future cancels
+     * the call in flight.
+     */
+    private CompletableFuture<HttpResponse> executeAsync(RequestTemplate template, String path, Object requestBody,
+                                                         Map<String, String> extraHeaders) {
+        if (closed.get()) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Client is closed"));
         }
+        return retrier.executeAsync(template.getMethod(), () -> attemptAsync(template, path, requestBody, extraHeaders));
+    }
+
+    private CompletableFuture<HttpResponse> attemptAsync(RequestTemplate template, String path, Object requestBody,
+                                                         Map<String, String> extraHeaders) {
+        AtomicReference<CompletableFuture<HttpResponse>> sent = new AtomicReference<>();
+        CompletableFuture<RequestLimiter.Permit> acquired = limiter.acquireAsync(isWrite(template));
+        CompletableFuture<HttpResponse> result = acquired.thenCompose(permit -> tokenManager.getTokenAsync().thenCompose(token -> {
+            HttpRequest request;
+            try {
+                request = buildRequest(template, path, requestBody, token, extraHeaders);
+            } catch (IOException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+
+            CompletableFuture<HttpResponse> first = runtime.getTransport().sendAsync(request);
+            sent.set(first);
+            return first.thenCompose(response -> {
+                if (response.getStatus() != 401) {
+                    return CompletableFuture.completedFuture(response);
+                }
+
+                response.close();
+                tokenManager.invalidate(token);
+                logger.debug("Request to {} was rejected with 401, retrying with a new token", path);
+                return tokenManager.getTokenAsync().thenCompose(newToken -> {
+                    CompletableFuture<HttpResponse> retry = runtime.getTransport().sendAsync(template.withToken(request, newToken));
+                    sent.set(retry);
+                    return retry;
+                });
+            });
+        }).whenComplete(permit::release));
+        result.whenComplete((response, error) -> {
+            if (!result.isCancelled()) {
+                return;
+            }
+            acquired.cancel(false);
+            CompletableFuture<HttpResponse> call = sent.get();
+            if (call != null) {
+                call.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    private static boolean isWrite(RequestTemplate template) {
+        return !"GET".equals(template.getMethod());
     }
 
     /**
      * Makes an HTTP request with proper authentication and error handling
      */
-    private <T> APIResponse<T> makeRequest(String method, String path, Object requestBody, 
+    private <T> APIResponse<T> makeRequest(RequestTemplate template, String path, Object requestBody, 
                                           TypeReference<T> responseType) throws IOException {
-        String token = getAccessToken();
-        
-        // Build URL
-        String url = config.getBaseUrl() + path;
-        
-        // Build request
-        Request.Builder requestBuilder = new Request.Builder()
-                .url(url)
-                .addHeader("Authorization", "Bearer " + token)
-                .addHeader("Accept", "application/json");
-
-        // Add request body if present
-        if (requestBody != null) {
-            String jsonBody = objectMapper.writeValueAsString(requestBody);
-            RequestBody body = RequestBody.create(jsonBody, JSON);
-            
-            switch (method.toUpperCase()) {
-                case "POST":
-                    requestBuilder.post(body);
-                    break;
-                case "PUT":
-                    requestBuilder.put(body);
-                    break;
-                case "PATCH":
-                    requestBuilder.patch(body);
-                    break;
-                default:
-                    throw new IllegalArgumentException("Unsupported method with body: " + method);
+        try (HttpResponse response = execute(template, path, requestBody)) {
+            return parseResponse(response, responseType);
+        }
+    }
+
+    /**
+     * Makes an HTTP request asynchronously. Token acquisition, request serialization
+     * and response parsing all run as stages of the returned future, so no thread
+     * is blocked while the request is in flight. Cancelling the returned future
+     * cancels the underlying call.
+     */
+    <T> CompletableFuture<APIResponse<T>> makeRequestAsync(RequestTemplate template, String path, Object requestBody,
+                                                          TypeReference<T> responseType) {
+        CompletableFuture<HttpResponse> call = executeAsync(template, path, requestBody, Collections.emptyMap());
+        CompletableFuture<APIResponse<T>> result = call.thenApply(response -> {
+            try (response) {
+                return parseResponse(response, responseType);
+            } catch (IOException e) {
+                throw new CompletionException(e);
             }
-        } else {
-            switch (method.toUpperCase()) {
-                case "GET":
-                    requestBuilder.get();
-                    break;
-                case "DELETE":
-                    requestBuilder.delete();
-                    break;
-                default:
-                    throw new IllegalArgumentException("Unsupported method: " + method);
+        });
+        result.whenComplete((response, error) -> {
+            if (result.isCancelled()) {
+                call.cancel(true);
             }
-        }
+        });
+        return result;
+    }
 
-        Request request = requestBuilder.build();
-        
-        try (Response response = httpClient.newCall(request).execute()) {
-            ResponseBody responseBody = response.body();
-            String responseString = responseBody != null ? responseBody.string() : "";
+    /**
+     * Makes an HTTP request with additional headers asynchronously, for
+     * callers that must know whether the VTN answered. A response that
+     * arrives but cannot be read is returned with its status and a
+     * {@code CLIENT_ERROR} problem, so the future fails only when no
+     * response was received.
+     */
+    <T> CompletableFuture<APIResponse<T>> makeAnsweredRequestAsync(RequestTemplate template, String path,
+                                                                  Object requestBody, TypeReference<T> responseType,
+                                                                  Map<String, String> extraHeaders) {
+        CompletableFuture<HttpResponse> call = executeAsync(template, path, requestBody, extraHeaders);
+        CompletableFuture<APIResponse<T>> result = call.thenApply(response -> {
+            try (response) {
+                return parseResponse(response, responseType);
+            } catch (IOException | RuntimeException e) {
+                logger.warn("Could not read the {} response to {}", response.getStatus(), path, e);
+                return new APIResponse<>(response.getStatus(), new APIError(BatchSubmitter.CLIENT_ERROR,
+                        e.getClass().getSimpleName(), response.getStatus(), e.getMessage()));
+            }
+        });
+        result.whenComplete((response, error) -> {
+            if (result.isCancelled()) {
+                call.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Sends an authenticated GET and returns the raw response, for callers
+     * that parse the body themselves. The caller must close the response.
+     */
+    HttpResponse executeGet(String path, Map<String, String> headers) throws IOException {
+        return execute(get, path, null, headers);
+    }
+
+    JsonCodec getCodec() {
+        return runtime.getCodec();
+    }
+
+    /**
+     * Makes a GET request through the conditional cache. A stored response is
+     * revalidated with its ETag or Last-Modified value, and a 304 answer
+     * returns a fresh copy of the stored result without validating it again. Full responses are parsed, passed
+     * through {@code validation} and stored when they carry a validator.
+     * Identical requests already in flight are joined, see {@link SingleFlight}.
+     */
+    private <T> APIResponse<T> makeConditionalGetRequest(String path, TypeReference<T> responseType,
+                                                        UnaryOperator<APIResponse<T>> validation) throws IOException {
+        return singleFlight.execute(path, () -> {
+            ConditionalGetCache.Entry cached = conditionalCache.get(path);
+            Map<String, String> headers = cached != null ? cached.conditionalHeaders() : Collections.emptyMap();
 
-            if (response.isSuccessful()) {
-                // Parse successful response
-                if (responseString.isEmpty() || responseType == null) {
-                    return new APIResponse<>(response.code(), null);
+            try (HttpResponse response = execute(get, path, null, headers)) {
+                if (cached != null && response.getStatus() == 304) {
+                    logger.debug("{} not modified, using cached response", path);
+                    return conditionalCache.read(cached, responseType, getCodec());
                 }
-                
-                T responseData = objectMapper.readValue(responseString, responseType);
-                return new APIResponse<>(response.code(), responseData);
-            } else {
-                // Parse error response
-                APIError error;
-                try {
-                    error = objectMapper.readValue(responseString, APIError.class);
-                } catch (Exception e) {
-                    // Fallback error
-                    error = new APIError("HTTP_ERROR", response.message(), response.code(), responseString);
+
+                APIResponse<T> result = validation.apply(parseResponse(response, responseType));
+                conditionalCache.update(path, response, result, getCodec());
+                return result;
+            }
+        }, copier(responseType));
+    }
+
+    /**
+     * Asynchronous variant of {@link #makeConditionalGetRequest}. Validation
+     * failures complete the future exceptionally and are never cached.
+     * Cancelling the returned future cancels the underlying call once no
+     * other caller is waiting for it.
+     */
+    <T> CompletableFuture<APIResponse<T>> makeConditionalGetRequestAsync(String path, TypeReference<T> responseType,
+                                                                        UnaryOperator<APIResponse<T>> validation) {
+        return singleFlight.executeAsync(path, () -> {
+            ConditionalGetCache.Entry cached = conditionalCache.get(path);
+            Map<String, String> headers = cached != null ? cached.conditionalHeaders() : Collections.emptyMap();
+
+            CompletableFuture<HttpResponse> call = executeAsync(get, path, null, headers);
+            CompletableFuture<APIResponse<T>> result = call.thenApply(response -> {
+                try (response) {
+                    if (cached != null && response.getStatus() == 304) {
+                        logger.debug("{} not modified, using cached response", path);
+                        return conditionalCache.read(cached, responseType, getCodec());
+                    }
+
+                    APIResponse<T> parsed = validation.apply(parseResponse(response, responseType));
+                    conditionalCache.update(path, response, parsed, getCodec());
+                    return parsed;
+                } catch (IOException e) {
+                    throw new CompletionException(e);
+                }
+            });
+            result.whenComplete((response, error) -> {
+                if (result.isCancelled()) {
+                    call.cancel(true);
                 }
-                return new APIResponse<>(response.code(), error);
+            });
+            return result;
+        }, copier(responseType));
+    }
+
+    /**
+     * Builds an authenticated request from the template of its method
+     */
+    private HttpRequest buildRequest(RequestTemplate template, String path, Object requestBody, String token,
+                                     Map<String, String> extraHeaders) throws IOException {
+        byte[] body = requestBody != null ? getCodec().write(requestBody) : null;
+        return template.newRequest(path, token, body, extraHeaders);
+    }
+
+    /**
+     * Converts an HTTP response into an API response, parsing either the
+     * payload or the error body. Successful payloads are parsed directly from
+     * the response byte stream without first buffering them into a String.
+     */
+    private <T> APIResponse<T> parseResponse(HttpResponse response, TypeReference<T> responseType) 
+            throws IOException {
+        if (!response.isSuccessful()) {
+            return parseError(response);
+        }
+
+        if (responseType == null) {
+            return new APIResponse<>(response.getStatus(), null);
+        }
+
+        ObjectReader reader = getCodec().reader(responseType);
+        try (JsonParser parser = reader.createParser(response.getBody())) {
+            // An empty body has no first token
+            if (parser.nextToken() == null) {
+                return new APIResponse<>(response.getStatus(), null);
+            }
+            T responseData = reader.readValue(parser);
+            return new APIResponse<>(response.getStatus(), responseData);
+        }
+    }
+
+    /**
+     * Parses a JSON array response one element at a time, handing each element
+     * to the consumer as soon as it is read. The full list is never built.
+     * 
+     * @return API response containing the number of elements delivered
+     */
+    private <T> APIResponse<Integer> parseElements(HttpResponse response, Class<T> elementType, 
+                                                   Consumer<? super T> consumer) throws IOException {
+        if (!response.isSuccessful()) {
+            return parseError(response);
+        }
+
+        ObjectReader reader = getCodec().reader(elementType);
+        try (JsonParser parser = reader.createParser(response.getBody())) {
+            JsonToken token = parser.nextToken();
+            if (token == null) {
+                return new APIResponse<>(response.getStatus(), 0);
+            }
+            if (token != JsonToken.START_ARRAY) {
+                throw new IOException("Expected JSON array but found " + token);
+            }
+
+            int count = 0;
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                consumer.accept(reader.<T>readValue(parser));
+                count++;
             }
+            return new APIResponse<>(response.getStatus(), count);
+        }
+    }
+
+    /**
+     * Parses an error response body, falling back to a generic error when the
+     * body is not a problem document
+     */
+    <T> APIResponse<T> parseError(HttpResponse response) throws IOException {
+        String responseString = response.getBodyAsString();
+
+        APIError error;
+        try {
+            error = getCodec().reader(APIError.class).readValue(responseString);
+        } catch (Exception e) {
+            // Fallback error
+            error = new APIError("HTTP_ERROR", response.getMessage(), response.getStatus(), responseString);
+        }
+        return new APIResponse<>(response.getStatus(), error);
+    }
+
+    /**
+     * Makes a GET request for a JSON array and streams its elements to the consumer
+     */
+    private <T> APIResponse<Integer> makeStreamingGetRequest(String path, Class<T> elementType, 
+                                                             Consumer<? super T> consumer) throws IOException {
+        try (HttpResponse response = execute(get, path, null)) {
+            return parseElements(response, elementType, consumer);
         }
     }
 
     /**
-     * Makes a GET request with query parameters
+     * Makes a GET request with query parameters and passes the response
+     * through {@code validation}. Identical requests already in flight are
+     * joined, see {@link SingleFlight}.
+     */
+    private <T> APIResponse<T> makeGetRequest(String path, TypeReference<T> responseType,
+                                              UnaryOperator<APIResponse<T>> validation) throws IOException {
+        return singleFlight.execute(path, () -> validation.apply(makeRequest(get, path, null, responseType)),
+                copier(responseType));
+    }
+
+    /**
+     * @return a function that gives a caller joining a coalesced request its
+     *         own copy of the response
+     */
+    private <T> UnaryOperator<APIResponse<T>> copier(TypeReference<T> responseType) {
+        return response -> {
+            APIError problem = response.getProblem();
+            if (problem != null) {
+                return new APIResponse<>(response.getStatus(), new APIError(problem.getType(),
+                        problem.getTitle(), problem.getStatus(), problem.getDetail()));
+            }
+            try {
+                return new APIResponse<>(response.getStatus(), getCodec().copy(response.getResponse(), responseType));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+    }
+
+    /**
+     * Asynchronous variant of {@link #makeGetRequest}. Validation failures
+     * complete the future exceptionally. Cancelling the returned future
+     * cancels the underlying call once no other caller is waiting for it.
+     */
+    <T> CompletableFuture<APIResponse<T>> makeGetRequestAsync(String path, TypeReference<T> responseType,
+                                                              UnaryOperator<APIResponse<T>> validation) {
+        return singleFlight.executeAsync(path, () -> {
+            CompletableFuture<APIResponse<T>> call = makeRequestAsync(get, path, null, responseType);
+            CompletableFuture<APIResponse<T>> result = call.thenApply(validation);
+            result.whenComplete((response, error) -> {
+                if (result.isCancelled()) {
+                    call.cancel(true);
+                }
+            });
+            return result;
+        }, copier(responseType));
+    }
+
+    /**
+     * Closes the client. A client created with {@link #OADR3(OADR3Config)}
+     * closes its private runtime, releasing its connections and threads; a
+     * client of a shared runtime only leaves it, and the runtime stays open
+     * for its other clients. Requests sent afterwards fail with an
+     * {@link IllegalStateException}.
+     */
+    @Override
+    public void close() {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        runtime.unregisterClient();
+        if (ownsRuntime) {
+            runtime.close();
+        }
+    }
+
+    /**
+     * @return this client's entity cache, which is disabled unless configured
+     *         with {@link OADR3Config.Builder#entityCache}
+     */
+    public EntityCache getEntityCache() {
+        return entityCache;
+    }
+
+    /**
+     * @return this client's response validator, which applies the configured
+     *         {@link ResponseValidationPolicy} and counts its outcomes
+     */
+    public ResponseValidator getResponseValidator() {
+        return responseValidator;
+    }
+
+    /**
+     * @return this client's GET coalescing, which is enabled unless turned off
+     *         with {@link OADR3Config.Builder#coalesceGets}
+     */
+    public SingleFlight getSingleFlight() {
+        return singleFlight;
+    }
+
+    /**
+     * @return the limiter shaping this client's requests, shared with the
+     *         other clients of the same runtime and VTN; it lets every request
+     *         through unless configured with {@link OADR3Config.Builder#requestLimits}
+     */
+    public RequestLimiter getRequestLimiter() {
+        return limiter;
+    }
+
+    /**
+     * @return this client's retries and hedged GETs, which are off unless
+     *         configured with {@link OADR3Config.Builder#retryPolicy}
+     */
+    public Retrier getRetrier() {
+        return retrier;
+    }
+
+    /**
+     * Performs ahead of time the work that would otherwise slow down the first
+     * request: building the HTTP stack, JSON mapper and the Jackson readers
+     * and writers, resolving the VTN host, obtaining an OAuth2 token (which
+     * also opens a connection, including the TLS handshake), running every
+     * model and response type through them once, and loading the model
+     * validators.
+     * Calling it is optional; every phase otherwise happens on first use.
+     *
+     * @return how long each phase took
+     * @throws IOException if the host cannot be resolved or no token can be obtained
+     */
+    public WarmUpResult warmUp() throws IOException {
+        long start = System.nanoTime();
+
+        JsonCodec codec = getCodec();
+        runtime.getTransport();
+        long runtimeDone = System.nanoTime();
+
+        InetAddress.getAllByName(URI.create(config.getBaseUrl()).getHost());
+        long dnsDone = System.nanoTime();
+
+        tokenManager.getToken();
+        long tokenDone = System.nanoTime();
+
+        Program program = new Program("warm-up", "warm-up", "PRICING_TARIFF", "US");
+        Event event = new Event("warm-up", "warm-up", 0);
+        Report report = new Report("warm-up", "warm-up", "warm-up");
+        Ven ven = new Ven("warm-up");
+        roundTrip(codec, program, JsonCodec.PROGRAM, JsonCodec.PROGRAM_LIST);
+        roundTrip(codec, event, JsonCodec.EVENT, JsonCodec.EVENT_LIST);
+        roundTrip(codec, report, JsonCodec.REPORT, JsonCodec.REPORT_LIST);
+        roundTrip(codec, ven, JsonCodec.VEN, JsonCodec.VEN_LIST);
+        codec.reader(APIError.class).readValue("{}");
+        long jsonDone = System.nanoTime();
+
+        ValidationUtils.validate(program);
+        ValidationUtils.validate(event);
+        ValidationUtils.validate(report);
+        ValidationUtils.validate(ven);
+        long validationDone = System.nanoTime();
+
+        WarmUpResult result = new WarmUpResult(
+                Duration.ofNanos(runtimeDone - start),
+                Duration.ofNanos(dnsDone - runtimeDone),
+                Duration.ofNanos(tokenDone - dnsDone),
+                Duration.ofNanos(jsonDone - tokenDone),
+                Duration.ofNanos(validationDone - jsonDone));
+        logger.debug("Warm-up finished: {}", result);
+        return result;
+    }
+
+    /**
+     * Serializes a sample entity and reads it back, alone and as a list
+     */
+    private static void roundTrip(JsonCodec codec, Object sample, TypeReference<?> type,
+                                  TypeReference<?> listType) throws IOException {
+        String json = new String(codec.write(sample), StandardCharsets.UTF_8);
+        codec.reader(type).readValue(json);
+        codec.reader(listType).readValue("[" + json + "]");
+    }
+
+    /**
+     * Runs {@link #warmUp()} on the given executor, for example while the
+     * rest of the application starts
+     *
+     * @param executor The executor to run the warm-up on
+     * @return future completed with how long each phase took
      */
-    private <T> APIResponse<T> makeGetRequest(String path, TypeReference<T> responseType) throws IOException {
-        return makeRequest("GET", path, null, responseType);
+    public CompletableFuture<WarmUpResult> warmUpAsync(Executor executor) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return warmUp();
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
     }
 
     // Programs API
@@ -196,27 +732,78 @@ public class OADR3 {
         ValidationUtils.validateSearchParams(skip, limit).throwIfInvalid();
         
         // Build query string
-        StringBuilder pathBuilder = new StringBuilder("/programs");
-        String queryParams = buildQueryString(
-                "targets", targets,
-                "skip", skip,
-                "limit", limit
-        );
-        if (!queryParams.isEmpty()) {
-            pathBuilder.append("?").append(queryParams);
-        }
+        String path = QueryBuilder.path("/programs")
+                .add("targets", targets)
+                .add("skip", skip)
+                .add("limit", limit)
+                .build();
 
-        APIResponse<List<Program>> response = makeGetRequest(pathBuilder.toString(), 
-                new TypeReference<List<Program>>() {});
-        
-        // Validate response data
-        if (response.isSuccess() && response.getResponse() != null) {
-            for (Program program : response.getResponse()) {
-                ValidationUtils.validate(program).throwIfInvalid();
-            }
+        // Validate response data; unchanged results are served from the conditional cache
+        return entityCache.storeAll(makeConditionalGetRequest(path, 
+                JsonCodec.PROGRAM_LIST, responseValidator::validateList));
+    }
+
+    /**
+     * Searches all programs, parsing the response incrementally and passing each
+     * validated program to the consumer as it is read. The full list is never
+     * materialized, which keeps memory flat for large pages.
+     * 
+     * @param targets Optional target filters
+     * @param skip Number of records to skip for pagination
+     * @param limit Maximum number of records to return (max 50)
+     * @param consumer Receives each program in response order
+     * @return API response containing the number of programs delivered
+     */
+    public APIResponse<Integer> searchAllPrograms(List<String> targets, Integer skip, Integer limit,
+                                                  Consumer<? super Program> consumer) throws IOException {
+        if (consumer == null) {
+            throw new IllegalArgumentException("consumer cannot be null");
         }
         
-        return response;
+        // Validate parameters
+        ValidationUtils.validateSearchParams(skip, limit).throwIfInvalid();
+        
+        // Build query string
+        String path = QueryBuilder.path("/programs")
+                .add("targets", targets)
+                .add("skip", skip)
+                .add("limit", limit)
+                .build();
+
+        return makeStreamingGetRequest(path, Program.class, program -> {
+            responseValidator.validate(program);
+            entityCache.put(program);
+            consumer.accept(program);
+        });
+    }
+
+    /**
+     * Streams every program, paging through the VTN transparently. The next
+     * page is prefetched while the current one is consumed, and the stream
+     * ends at the first short page. Request failures surface as
+     * {@link java.io.UncheckedIOException}.
+     * 
+     * @param targets Optional target filters
+     * @return lazy stream of programs; close it to cancel any outstanding prefetch
+     */
+    public Stream<Program> streamAllPrograms(List<String> targets) {
+        return PagedIterator.stream((skip, limit) -> async().searchAllPrograms(targets, skip, limit),
+                PagedIterator.MAX_PAGE_SIZE);
+    }
+
+    /**
+     * Fetches every program with up to {@code concurrency} page requests in
+     * flight at once. Pages are reassembled in their original order, and
+     * speculative requests past the end of the collection are cancelled.
+     * 
+     * @param targets Optional target filters
+     * @param concurrency Maximum number of page requests in flight
+     * @return API response containing the complete list of programs, or the
+     *         first error response encountered
+     */
+    public APIResponse<List<Program>> bulkSearchAllPrograms(List<String> targets, int concurrency) throws IOException {
+        return new PageFanOut<Program>((skip, limit) -> async().searchAllPrograms(targets, skip, limit),
+                PagedIterator.MAX_PAGE_SIZE, concurrency).fetchAll();
     }
 
     /**
@@ -233,19 +820,32 @@ public class OADR3 {
         // Validate input
         ValidationUtils.validate(program).throwIfInvalid();
         
-        APIResponse<Program> response = makeRequest("POST", "/programs", program, 
-                new TypeReference<Program>() {});
+        APIResponse<Program> response = makeRequest(post, "/programs", program, 
+                JsonCodec.PROGRAM);
         
         // Validate response data
-        if (response.isSuccess() && response.getResponse() != null) {
-            ValidationUtils.validate(response.getResponse()).throwIfInvalid();
-        }
-        
-        return response;
+        return entityCache.store(responseValidator.validateOne(response));
+    }
+
+    /**
+     * Creates a batch of programs, pipelining up to {@code concurrency}
+     * requests. The whole batch is validated before anything is sent. A
+     * failed program does not stop the others: its result carries the VTN's
+     * error, or status 0 and a {@code CLIENT_ERROR} problem if the request
+     * failed or its response could not be parsed or validated.
+     * 
+     * @param programs The programs to create
+     * @param concurrency Maximum number of requests in flight
+     * @return one API response per program, in input order
+     * @throws IllegalArgumentException if any program is invalid, naming each by index
+     */
+    public List<APIResponse<Program>> createPrograms(List<Program> programs, int concurrency) throws IOException {
+        return BatchSubmitter.await(async().createPrograms(programs, concurrency));
     }
 
     /**
-     * Searches for a specific program by ID
+     * Searches for a specific program by ID. When the entity cache is enabled,
+     * a fresh cached program is returned without contacting the VTN.
      * 
      * @param programId The program ID
      * @return API response containing the program
@@ -253,15 +853,14 @@ public class OADR3 {
     public APIResponse<Program> searchProgramByProgramId(String programId) throws IOException {
         ValidationUtils.validateId(programId, "programId").throwIfInvalid();
         
-        APIResponse<Program> response = makeGetRequest("/programs/" + programId, 
-                new TypeReference<Program>() {});
-        
-        // Validate response data
-        if (response.isSuccess() && response.getResponse() != null) {
-            ValidationUtils.validate(response.getResponse()).throwIfInvalid();
+        Optional<Program> cached = entityCache.get(Program.class, programId);
+        if (cached.isPresent()) {
+            return new APIResponse<>(200, cached.get());
         }
-        
-        return response;
+
+        // Validate response data; an unchanged program is served from the conditional cache
+        return entityCache.store(makeConditionalGetRequest("/programs/" + programId, 
+                JsonCodec.PROGRAM, responseValidator::validateOne));
     }
 
     /**
@@ -280,15 +879,13 @@ public class OADR3 {
         // Validate input
         ValidationUtils.validate(program).throwIfInvalid();
         
-        APIResponse<Program> response = makeRequest("PUT", "/programs/" + programId, program, 
-                new TypeReference<Program>() {});
+        // Drop the cached copy first so a failed update cannot leave it stale
+        entityCache.invalidate(Program.class, programId);
+        APIResponse<Program> response = makeRequest(put, "/programs/" + programId, program, 
+                JsonCodec.PROGRAM);
         
         // Validate response data
-        if (response.isSuccess() && response.getResponse() != null) {
-            ValidationUtils.validate(response.getResponse()).throwIfInvalid();
-        }
-        
-        return response;
+        return entityCache.store(responseValidator.validateOne(response));
     }
 
     /**
@@ -300,7 +897,8 @@ public class OADR3 {
     public APIResponse<Void> deleteProgram(String programId) throws IOException {
         ValidationUtils.validateId(programId, "programId").throwIfInvalid();
         
-        return makeRequest("DELETE", "/programs/" + programId, null, null);
+        entityCache.invalidate(Program.class, programId);
+        return makeRequest(delete, "/programs/" + programId, null, null);
     }
 
     // Events API
@@ -320,27 +918,78 @@ public class OADR3 {
         ValidationUtils.validateSearchParams(skip, limit).throwIfInvalid();
         
         // Build query string
-        StringBuilder pathBuilder = new StringBuilder("/events");
-        String queryParams = buildQueryString(
-                "programId", programId,
-                "skip", skip,
-                "limit", limit
-        );
-        if (!queryParams.isEmpty()) {
-            pathBuilder.append("?").append(queryParams);
-        }
+        String path = QueryBuilder.path("/events")
+                .add("programId", programId)
+                .add("skip", skip)
+                .add("limit", limit)
+                .build();
 
-        APIResponse<List<Event>> response = makeGetRequest(pathBuilder.toString(), 
-                new TypeReference<List<Event>>() {});
-        
-        // Validate response data
-        if (response.isSuccess() && response.getResponse() != null) {
-            for (Event event : response.getResponse()) {
-                ValidationUtils.validate(event).throwIfInvalid();
-            }
+        // Validate response data; unchanged results are served from the conditional cache
+        return entityCache.storeAll(makeConditionalGetRequest(path, 
+                JsonCodec.EVENT_LIST, responseValidator::validateList));
+    }
+
+    /**
+     * Searches all events, parsing the response incrementally and passing each
+     * validated event to the consumer as it is read. The full list is never
+     * materialized, which keeps memory flat for large pages.
+     * 
+     * @param programId Optional program ID filter
+     * @param skip Number of records to skip for pagination
+     * @param limit Maximum number of records to return (max 50)
+     * @param consumer Receives each event in response order
+     * @return API response containing the number of events delivered
+     */
+    public APIResponse<Integer> searchAllEvents(String programId, Integer skip, Integer limit,
+                                                Consumer<? super Event> consumer) throws IOException {
+        if (consumer == null) {
+            throw new IllegalArgumentException("consumer cannot be null");
         }
         
-        return response;
+        // Validate parameters
+        ValidationUtils.validateSearchParams(skip, limit).throwIfInvalid();
+        
+        // Build query string
+        String path = QueryBuilder.path("/events")
+                .add("programId", programId)
+                .add("skip", skip)
+                .add("limit", limit)
+                .build();
+
+        return makeStreamingGetRequest(path, Event.class, event -> {
+            responseValidator.validate(event);
+            entityCache.put(event);
+            consumer.accept(event);
+        });
+    }
+
+    /**
+     * Streams every event, paging through the VTN transparently. The next
+     * page is prefetched while the current one is consumed, and the stream
+     * ends at the first short page. Request failures surface as
+     * {@link java.io.UncheckedIOException}.
+     * 
+     * @param programId Optional program ID filter
+     * @return lazy stream of events; close it to cancel any outstanding prefetch
+     */
+    public Stream<Event> streamAllEvents(String programId) {
+        return PagedIterator.stream((skip, limit) -> async().searchAllEvents(programId, skip, limit),
+                PagedIterator.MAX_PAGE_SIZE);
+    }
+
+    /**
+     * Fetches every event with up to {@code concurrency} page requests in
+     * flight at once. Pages are reassembled in their original order, and
+     * speculative requests past the end of the collection are cancelled.
+     * 
+     * @param programId Optional program ID filter
+     * @param concurrency Maximum number of page requests in flight
+     * @return API response containing the complete list of events, or the
+     *         first error response encountered
+     */
+    public APIResponse<List<Event>> bulkSearchAllEvents(String programId, int concurrency) throws IOException {
+        return new PageFanOut<Event>((skip, limit) -> async().searchAllEvents(programId, skip, limit),
+                PagedIterator.MAX_PAGE_SIZE, concurrency).fetchAll();
     }
 
     /**
@@ -357,15 +1006,27 @@ public class OADR3 {
         // Validate input
         ValidationUtils.validate(event).throwIfInvalid();
         
-        APIResponse<Event> response = makeRequest("POST", "/events", event, 
-                new TypeReference<Event>() {});
+        APIResponse<Event> response = makeRequest(post, "/events", event, 
+                JsonCodec.EVENT);
         
         // Validate response data
-        if (response.isSuccess() && response.getResponse() != null) {
-            ValidationUtils.validate(response.getResponse()).throwIfInvalid();
-        }
-        
-        return response;
+        return entityCache.store(responseValidator.validateOne(response));
+    }
+
+    /**
+     * Creates a batch of events, pipelining up to {@code concurrency}
+     * requests. The whole batch is validated before anything is sent. A
+     * failed event does not stop the others: its result carries the VTN's
+     * error, or status 0 and a {@code CLIENT_ERROR} problem if the request
+     * failed or its response could not be parsed or validated.
+     * 
+     * @param events The events to create
+     * @param concurrency Maximum number of requests in flight
+     * @return one API response per event, in input order
+     * @throws IllegalArgumentException if any event is invalid, naming each by index
+     */
+    public List<APIResponse<Event>> createEvents(List<Event> events, int concurrency) throws IOException {
+        return BatchSubmitter.await(async().createEvents(events, concurrency));
     }
 
     // Reports API
@@ -386,28 +1047,84 @@ public class OADR3 {
         ValidationUtils.validateSearchParams(skip, limit).throwIfInvalid();
         
         // Build query string
-        StringBuilder pathBuilder = new StringBuilder("/reports");
-        String queryParams = buildQueryString(
-                "programId", programId,
-                "clientName", clientName,
-                "skip", skip,
-                "limit", limit
-        );
-        if (!queryParams.isEmpty()) {
-            pathBuilder.append("?").append(queryParams);
-        }
+        String path = QueryBuilder.path("/reports")
+                .add("programId", programId)
+                .add("clientName", clientName)
+                .add("skip", skip)
+                .add("limit", limit)
+                .build();
 
-        APIResponse<List<Report>> response = makeGetRequest(pathBuilder.toString(), 
-                new TypeReference<List<Report>>() {});
+        APIResponse<List<Report>> response = makeGetRequest(path, 
+                JsonCodec.REPORT_LIST, responseValidator::validateList);
         
-        // Validate response data
-        if (response.isSuccess() && response.getResponse() != null) {
-            for (Report report : response.getResponse()) {
-                ValidationUtils.validate(report).throwIfInvalid();
-            }
+        return entityCache.storeAll(response);
+    }
+
+    /**
+     * Searches all reports, parsing the response incrementally and passing each
+     * validated report to the consumer as it is read. The full list is never
+     * materialized, which keeps memory flat for large pages.
+     * 
+     * @param programId Optional program ID filter
+     * @param clientName Optional client name filter
+     * @param skip Number of records to skip for pagination
+     * @param limit Maximum number of records to return (max 50)
+     * @param consumer Receives each report in response order
+     * @return API response containing the number of reports delivered
+     */
+    public APIResponse<Integer> searchAllReports(String programId, String clientName, Integer skip, Integer limit,
+                                                 Consumer<? super Report> consumer) throws IOException {
+        if (consumer == null) {
+            throw new IllegalArgumentException("consumer cannot be null");
         }
         
-        return response;
+        // Validate parameters
+        ValidationUtils.validateSearchParams(skip, limit).throwIfInvalid();
+        
+        // Build query string
+        String path = QueryBuilder.path("/reports")
+                .add("programId", programId)
+                .add("clientName", clientName)
+                .add("skip", skip)
+                .add("limit", limit)
+                .build();
+
+        return makeStreamingGetRequest(path, Report.class, report -> {
+            responseValidator.validate(report);
+            entityCache.put(report);
+            consumer.accept(report);
+        });
+    }
+
+    /**
+     * Streams every report, paging through the VTN transparently. The next
+     * page is prefetched while the current one is consumed, and the stream
+     * ends at the first short page. Request failures surface as
+     * {@link java.io.UncheckedIOException}.
+     * 
+     * @param programId Optional program ID filter
+     * @param clientName Optional client name filter
+     * @return lazy stream of reports; close it to cancel any outstanding prefetch
+     */
+    public Stream<Report> streamAllReports(String programId, String clientName) {
+        return PagedIterator.stream((skip, limit) -> async().searchAllReports(programId, clientName, skip, limit),
+                PagedIterator.MAX_PAGE_SIZE);
+    }
+
+    /**
+     * Fetches every report with up to {@code concurrency} page requests in
+     * flight at once. Pages are reassembled in their original order, and
+     * speculative requests past the end of the collection are cancelled.
+     * 
+     * @param programId Optional program ID filter
+     * @param clientName Optional client name filter
+     * @param concurrency Maximum number of page requests in flight
+     * @return API response containing the complete list of reports, or the
+     *         first error response encountered
+     */
+    public APIResponse<List<Report>> bulkSearchAllReports(String programId, String clientName, int concurrency) throws IOException {
+        return new PageFanOut<Report>((skip, limit) -> async().searchAllReports(programId, clientName, skip, limit),
+                PagedIterator.MAX_PAGE_SIZE, concurrency).fetchAll();
     }
 
     /**
@@ -424,15 +1141,27 @@ public class OADR3 {
         // Validate input
         ValidationUtils.validate(report).throwIfInvalid();
         
-        APIResponse<Report> response = makeRequest("POST", "/reports", report, 
-                new TypeReference<Report>() {});
+        APIResponse<Report> response = makeRequest(post, "/reports", report, 
+                JsonCodec.REPORT);
         
         // Validate response data
-        if (response.isSuccess() && response.getResponse() != null) {
-            ValidationUtils.validate(response.getResponse()).throwIfInvalid();
-        }
-        
-        return response;
+        return entityCache.store(responseValidator.validateOne(response));
+    }
+
+    /**
+     * Creates a batch of reports, pipelining up to {@code concurrency}
+     * requests. The whole batch is validated before anything is sent. A
+     * failed report does not stop the others: its result carries the VTN's
+     * error, or status 0 and a {@code CLIENT_ERROR} problem if the request
+     * failed or its response could not be parsed or validated.
+     * 
+     * @param reports The reports to create
+     * @param concurrency Maximum number of requests in flight
+     * @return one API response per report, in input order
+     * @throws IllegalArgumentException if any report is invalid, naming each by index
+     */
+    public List<APIResponse<Report>> createReports(List<Report> reports, int concurrency) throws IOException {
+        return BatchSubmitter.await(async().createReports(reports, concurrency));
     }
 
     // VENs API
@@ -452,27 +1181,64 @@ public class OADR3 {
         ValidationUtils.validateSearchParams(skip, limit).throwIfInvalid();
         
         // Build query string
-        StringBuilder pathBuilder = new StringBuilder("/vens");
-        String queryParams = buildQueryString(
-                "venName", venName,
-                "skip", skip,
-                "limit", limit
-        );
-        if (!queryParams.isEmpty()) {
-            pathBuilder.append("?").append(queryParams);
-        }
+        String path = QueryBuilder.path("/vens")
+                .add("venName", venName)
+                .add("skip", skip)
+                .add("limit", limit)
+                .build();
 
-        APIResponse<List<Ven>> response = makeGetRequest(pathBuilder.toString(), 
-                new TypeReference<List<Ven>>() {});
+        APIResponse<List<Ven>> response = makeGetRequest(path, 
+                JsonCodec.VEN_LIST, responseValidator::validateList);
         
-        // Validate response data
-        if (response.isSuccess() && response.getResponse() != null) {
-            for (Ven ven : response.getResponse()) {
-                ValidationUtils.validate(ven).throwIfInvalid();
-            }
+        return entityCache.storeAll(response);
+    }
+
+    /**
+     * Searches VENs, parsing the response incrementally and passing each
+     * validated VEN to the consumer as it is read. The full list is never
+     * materialized, which keeps memory flat for large pages.
+     * 
+     * @param venName Optional VEN name filter
+     * @param skip Number of records to skip for pagination
+     * @param limit Maximum number of records to return (max 50)
+     * @param consumer Receives each VEN in response order
+     * @return API response containing the number of VENs delivered
+     */
+    public APIResponse<Integer> searchVens(String venName, Integer skip, Integer limit,
+                                           Consumer<? super Ven> consumer) throws IOException {
+        if (consumer == null) {
+            throw new IllegalArgumentException("consumer cannot be null");
         }
         
-        return response;
+        // Validate parameters
+        ValidationUtils.validateSearchParams(skip, limit).throwIfInvalid();
+        
+        // Build query string
+        String path = QueryBuilder.path("/vens")
+                .add("venName", venName)
+                .add("skip", skip)
+                .add("limit", limit)
+                .build();
+
+        return makeStreamingGetRequest(path, Ven.class, ven -> {
+            responseValidator.validate(ven);
+            entityCache.put(ven);
+            consumer.accept(ven);
+        });
+    }
+
+    /**
+     * Streams every VEN, paging through the VTN transparently. The next
+     * page is prefetched while the current one is consumed, and the stream
+     * ends at the first short page. Request failures surface as
+     * {@link java.io.UncheckedIOException}.
+     * 
+     * @param venName Optional VEN name filter
+     * @return lazy stream of VENs; close it to cancel any outstanding prefetch
+     */
+    public Stream<Ven> streamVens(String venName) {
+        return PagedIterator.stream((skip, limit) -> async().searchVens(venName, skip, limit),
+                PagedIterator.MAX_PAGE_SIZE);
     }
 
     /**
@@ -489,47 +1255,111 @@ public class OADR3 {
         // Validate input
         ValidationUtils.validate(ven).throwIfInvalid();
         
-        APIResponse<Ven> response = makeRequest("POST", "/vens", ven, 
-                new TypeReference<Ven>() {});
+        APIResponse<Ven> response = makeRequest(post, "/vens", ven, 
+                JsonCodec.VEN);
         
         // Validate response data
-        if (response.isSuccess() && response.getResponse() != null) {
-            ValidationUtils.validate(response.getResponse()).throwIfInvalid();
-        }
-        
-        return response;
+        return entityCache.store(responseValidator.validateOne(response));
+    }
+
+    /**
+     * Creates a batch of VENs, pipelining up to {@code concurrency}
+     * requests. The whole batch is validated before anything is sent. A
+     * failed VEN does not stop the others: its result carries the VTN's
+     * error, or status 0 and a {@code CLIENT_ERROR} problem if the request
+     * failed or its response could not be parsed or validated.
+     * 
+     * @param vens The VENs to create
+     * @param concurrency Maximum number of requests in flight
+     * @return one API response per VEN, in input order
+     * @throws IllegalArgumentException if any VEN is invalid, naming each by index
+     */
+    public List<APIResponse<Ven>> createVens(List<Ven> vens, int concurrency) throws IOException {
+        return BatchSubmitter.await(async().createVens(vens, concurrency));
     }
 
     // Utility methods
 
     /**
-     * Builds a query string from key-value pairs
+     * Form-encodes a value of the token request
      */
-    private String buildQueryString(Object... params) {
-        StringBuilder query = new StringBuilder();
-        
-        for (int i = 0; i < params.length; i += 2) {
-            String key = (String) params[i];
-            Object value = params[i + 1];
-            
-            if (value != null) {
-                if (query.length() > 0) {
-                    query.append("&");
-                }
-                
-                if (value instanceof List) {
-                    List<?> list = (List<?>) value;
-                    for (int j = 0; j < list.size(); j++) {
-                        if (j > 0) query.append("&");
-                        query.append(key).append("=").append(list.get(j));
-                    }
-                } else {
-                    query.append(key).append("=").append(value);
-                }
-            }
+    private static String formEncode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Time spent in each phase of {@link #warmUp()}
+     */
+    public static final class WarmUpResult {
+        private final Duration runtime;
+        private final Duration dns;
+        private final Duration token;
+        private final Duration json;
+        private final Duration validation;
+
+        WarmUpResult(Duration runtime, Duration dns, Duration token, Duration json, Duration validation) {
+            this.runtime = runtime;
+            this.dns = dns;
+            this.token = token;
+            this.json = json;
+            this.validation = validation;
+        }
+
+        /**
+         * @return Time to build the HTTP stack, JSON mapper and Jackson readers
+         *         and writers, zero if already built
+         */
+        public Duration getRuntime() {
+            return runtime;
+        }
+
+        /**
+         * @return Time to resolve the VTN host
+         */
+        public Duration getDns() {
+            return dns;
+        }
+
+        /**
+         * @return Time to obtain an OAuth2 token, including connection setup and
+         *         TLS handshake, zero if a valid token was already cached
+         */
+        public Duration getToken() {
+            return token;
+        }
+
+        /**
+         * @return Time to run the models through the Jackson readers and writers
+         */
+        public Duration getJson() {
+            return json;
+        }
+
+        /**
+         * @return Time to load the model validators
+         */
+        public Duration getValidation() {
+            return validation;
+        }
+
+        /**
+         * @return Sum of all phases
+         */
+        public Duration getTotal() {
+            return runtime.plus(dns).plus(token).plus(json).plus(validation);
+        }
+
+        @Override
+        public String toString() {
+            return "WarmUpResult{" +
+                    "runtime=" + runtime.toMillis() + "ms" +
+                    ", dns=" + dns.toMillis() + "ms" +
+                    ", token=" + token.toMillis() + "ms" +
+                    ", json=" + json.toMillis() + "ms" +
+                    ", validation=" + validation.toMillis() + "ms" +
+                    ", total=" + getTotal().toMillis() + "ms" +
+                    '}';
         }
-        
-        return query.toString();
     }
 
     /**
@@ -0,0 +1,417 @@
+package com.openadr.client;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.openadr.client.model.*;
+import com.openadr.client.validation.ValidationUtils;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.UnaryOperator;
+
+/**
+ * Non-blocking OpenADR 3 client for Java
+ *
+ * Exposes the same operations as {@link OADR3}, but every method returns a
+ * {@link CompletableFuture} backed by the transport's asynchronous dispatch instead
+ * of blocking the calling thread. Token acquisition, request serialization,
+ * response parsing and validation all run as stages of the returned future.
+ *
+ * Invalid arguments and response validation failures complete the future
+ * exceptionally with an {@link IllegalArgumentException}; network failures
+ * complete it with an {@link java.io.IOException}. Which responses are
+ * validated depends on the client's {@link ResponseValidationPolicy}.
+ */
+public class OADR3Async implements AutoCloseable {
+    private final OADR3 client;
+    private final boolean ownsClient;
+
+    /**
+     * Creates a new asynchronous OpenADR 3 client instance
+     *
+     * @param config The client configuration
+     */
+    public OADR3Async(OADR3Config config) {
+        this(new OADR3(config), true);
+    }
+
+    /**
+     * Creates an asynchronous view of an existing client. Both share the
+     * same HTTP client and OAuth2 token.
+     *
+     * @param client The blocking client to share state with
+     */
+    public OADR3Async(OADR3 client) {
+        this(client, false);
+    }
+
+    private OADR3Async(OADR3 client, boolean ownsClient) {
+        if (client == null) {
+            throw new IllegalArgumentException("client cannot be null");
+        }
+        this.client = client;
+        this.ownsClient = ownsClient;
+    }
+
+    /**
+     * Closes the client created by {@link #OADR3Async(OADR3Config)}. A view
+     * of an existing client leaves that client open.
+     */
+    @Override
+    public void close() {
+        if (ownsClient) {
+            client.close();
+        }
+    }
+
+    // Programs API
+
+    /**
+     * Searches all programs
+     *
+     * @param targets Optional target filters
+     * @param skip Number of records to skip for pagination
+     * @param limit Maximum number of records to return (max 50)
+     * @return future API response containing list of programs
+     */
+    public CompletableFuture<APIResponse<List<Program>>> searchAllPrograms(List<String> targets,
+                                                                          Integer skip, Integer limit) {
+        ValidationUtils.ValidationResult params = ValidationUtils.validateSearchParams(skip, limit);
+        if (!params.isValid()) {
+            return invalid(params);
+        }
+
+        String path = QueryBuilder.path("/programs")
+                .add("targets", targets)
+                .add("skip", skip)
+                .add("limit", limit)
+                .build();
+
+        return andThen(client.makeConditionalGetRequestAsync(path, JsonCodec.PROGRAM_LIST,
+                client.getResponseValidator()::validateList), client.getEntityCache()::storeAll);
+    }
+
+    /**
+     * Creates a new program
+     *
+     * @param program The program to create
+     * @return future API response containing the created program
+     */
+    public CompletableFuture<APIResponse<Program>> createProgram(Program program) {
+        if (program == null) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Program cannot be null"));
+        }
+        ValidationUtils.ValidationResult input = ValidationUtils.validate(program);
+        if (!input.isValid()) {
+            return invalid(input);
+        }
+
+        return andThen(client.makeRequestAsync(client.post, "/programs", program, JsonCodec.PROGRAM),
+                this::validateAndStore);
+    }
+
+    /**
+     * Creates a batch of programs with up to {@code concurrency} requests in
+     * flight. The whole batch is validated before anything is sent; if any
+     * program is invalid the future fails with an
+     * {@link IllegalArgumentException} naming each invalid item by index.
+     *
+     * @param programs The programs to create
+     * @param concurrency Maximum number of requests in flight
+     * @return future list with one response per program, in input order;
+     *         see {@link OADR3#createPrograms}
+     */
+    public CompletableFuture<List<APIResponse<Program>>> createPrograms(List<Program> programs, int concurrency) {
+        return createAll("programs", programs, concurrency, "/programs", JsonCodec.PROGRAM);
+    }
+
+    /**
+     * Searches for a specific program by ID. When the entity cache is enabled,
+     * a fresh cached program completes the future immediately.
+     *
+     * @param programId The program ID
+     * @return future API response containing the program
+     */
+    public CompletableFuture<APIResponse<Program>> searchProgramByProgramId(String programId) {
+        ValidationUtils.ValidationResult id = ValidationUtils.validateId(programId, "programId");
+        if (!id.isValid()) {
+            return invalid(id);
+        }
+
+        Optional<Program> cached = client.getEntityCache().get(Program.class, programId);
+        if (cached.isPresent()) {
+            return CompletableFuture.completedFuture(new APIResponse<>(200, cached.get()));
+        }
+
+        return andThen(client.makeConditionalGetRequestAsync("/programs/" + programId, JsonCodec.PROGRAM,
+                client.getResponseValidator()::validateOne), client.getEntityCache()::store);
+    }
+
+    /**
+     * Updates an existing program
+     *
+     * @param programId The program ID
+     * @param program The updated program data
+     * @return future API response containing the updated program
+     */
+    public CompletableFuture<APIResponse<Program>> updateProgram(String programId, Program program) {
+        ValidationUtils.ValidationResult id = ValidationUtils.validateId(programId, "programId");
+        if (!id.isValid()) {
+            return invalid(id);
+        }
+        if (program == null) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Program cannot be null"));
+        }
+        ValidationUtils.ValidationResult input = ValidationUtils.validate(program);
+        if (!input.isValid()) {
+            return invalid(input);
+        }
+
+        // Drop the cached copy first so a failed update cannot leave it stale
+        client.getEntityCache().invalidate(Program.class, programId);
+        return andThen(client.makeRequestAsync(client.put, "/programs/" + programId, program, JsonCodec.PROGRAM),
+                this::validateAndStore);
+    }
+
+    /**
+     * Deletes a program
+     *
+     * @param programId The program ID
+     * @return future API response
+     */
+    public CompletableFuture<APIResponse<Void>> deleteProgram(String programId) {
+        ValidationUtils.ValidationResult id = ValidationUtils.validateId(programId, "programId");
+        if (!id.isValid()) {
+            return invalid(id);
+        }
+
+        client.getEntityCache().invalidate(Program.class, programId);
+        return client.makeRequestAsync(client.delete, "/programs/" + programId, null, null);
+    }
+
+    // Events API
+
+    /**
+     * Searches all events
+     *
+     * @param programId Optional program ID filter
+     * @param skip Number of records to skip for pagination
+     * @param limit Maximum number of records to return (max 50)
+     * @return future API response containing list of events
+     */
+    public CompletableFuture<APIResponse<List<Event>>> searchAllEvents(String programId, Integer skip,
+                                                                      Integer limit) {
+        ValidationUtils.ValidationResult params = ValidationUtils.validateSearchParams(skip, limit);
+        if (!params.isValid()) {
+            return invalid(params);
+        }
+
+        String path = QueryBuilder.path("/events")
+                .add("programId", programId)
+                .add("skip", skip)
+                .add("limit", limit)
+                .build();
+
+        return andThen(client.makeConditionalGetRequestAsync(path, JsonCodec.EVENT_LIST,
+                client.getResponseValidator()::validateList), client.getEntityCache()::storeAll);
+    }
+
+    /**
+     * Creates a new event
+     *
+     * @param event The event to create
+     * @return future API response containing the created event
+     */
+    public CompletableFuture<APIResponse<Event>> createEvent(Event event) {
+        if (event == null) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Event cannot be null"));
+        }
+        ValidationUtils.ValidationResult input = ValidationUtils.validate(event);
+        if (!input.isValid()) {
+            return invalid(input);
+        }
+
+        return andThen(client.makeRequestAsync(client.post, "/events", event, JsonCodec.EVENT),
+                this::validateAndStore);
+    }
+
+    /**
+     * Creates a batch of events with up to {@code concurrency} requests in
+     * flight. The whole batch is validated before anything is sent; if any
+     * event is invalid the future fails with an
+     * {@link IllegalArgumentException} naming each invalid item by index.
+     *
+     * @param events The events to create
+     * @param concurrency Maximum number of requests in flight
+     * @return future list with one response per event, in input order;
+     *         see {@link OADR3#createEvents}
+     */
+    public CompletableFuture<List<APIResponse<Event>>> createEvents(List<Event> events, int concurrency) {
+        return createAll("events", events, concurrency, "/events", JsonCodec.EVENT);
+    }
+
+    // Reports API
+
+    /**
+     * Searches all reports
+     *
+     * @param programId Optional program ID filter
+     * @param clientName Optional client name filter
+     * @param skip Number of records to skip for pagination
+     * @param limit Maximum number of records to return (max 50)
+     * @return future API response containing list of reports
+     */
+    public CompletableFuture<APIResponse<List<Report>>> searchAllReports(String programId, String clientName,
+                                                                        Integer skip, Integer limit) {
+        ValidationUtils.ValidationResult params = ValidationUtils.validateSearchParams(skip, limit);
+        if (!params.isValid()) {
+            return invalid(params);
+        }
+
+        String path = QueryBuilder.path("/reports")
+                .add("programId", programId)
+                .add("clientName", clientName)
+                .add("skip", skip)
+                .add("limit", limit)
+                .build();
+
+        return andThen(client.makeGetRequestAsync(path, JsonCodec.REPORT_LIST,
+                client.getResponseValidator()::validateList), client.getEntityCache()::storeAll);
+    }
+
+    /**
+     * Creates a new report
+     *
+     * @param report The report to create
+     * @return future API response containing the created report
+     */
+    public CompletableFuture<APIResponse<Report>> createReport(Report report) {
+        if (report == null) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Report cannot be null"));
+        }
+        ValidationUtils.ValidationResult input = ValidationUtils.validate(report);
+        if (!input.isValid()) {
+            return invalid(input);
+        }
+
+        return andThen(client.makeRequestAsync(client.post, "/reports", report, JsonCodec.REPORT),
+                this::validateAndStore);
+    }
+
+    /**
+     * Creates a batch of reports with up to {@code concurrency} requests in
+     * flight. The whole batch is validated before anything is sent; if any
+     * report is invalid the future fails with an
+     * {@link IllegalArgumentException} naming each invalid item by index.
+     *
+     * @param reports The reports to create
+     * @param concurrency Maximum number of requests in flight
+     * @return future list with one response per report, in input order;
+     *         see {@link OADR3#createReports}
+     */
+    public CompletableFuture<List<APIResponse<Report>>> createReports(List<Report> reports, int concurrency) {
+        return createAll("reports", reports, concurrency, "/reports", JsonCodec.REPORT);
+    }
+
+    // VENs API
+
+    /**
+     * Searches VENs
+     *
+     * @param venName Optional VEN name filter
+     * @param skip Number of records to skip for pagination
+     * @param limit Maximum number of records to return (max 50)
+     * @return future API response containing list of VENs
+     */
+    public CompletableFuture<APIResponse<List<Ven>>> searchVens(String venName, Integer skip, Integer limit) {
+        ValidationUtils.ValidationResult params = ValidationUtils.validateSearchParams(skip, limit);
+        if (!params.isValid()) {
+            return invalid(params);
+        }
+
+        String path = QueryBuilder.path("/vens")
+                .add("venName", venName)
+                .add("skip", skip)
+                .add("limit", limit)
+                .build();
+
+        return andThen(client.makeGetRequestAsync(path, JsonCodec.VEN_LIST,
+                client.getResponseValidator()::validateList), client.getEntityCache()::storeAll);
+    }
+
+    /**
+     * Creates a new VEN
+     *
+     * @param ven The VEN to create
+     * @return future API response containing the created VEN
+     */
+    public CompletableFuture<APIResponse<Ven>> createVen(Ven ven) {
+        if (ven == null) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("VEN cannot be null"));
+        }
+        ValidationUtils.ValidationResult input = ValidationUtils.validate(ven);
+        if (!input.isValid()) {
+            return invalid(input);
+        }
+
+        return andThen(client.makeRequestAsync(client.post, "/vens", ven, JsonCodec.VEN),
+                this::validateAndStore);
+    }
+
+    /**
+     * Creates a batch of VENs with up to {@code concurrency} requests in
+     * flight. The whole batch is validated before anything is sent; if any
+     * VEN is invalid the future fails with an
+     * {@link IllegalArgumentException} naming each invalid item by index.
+     *
+     * @param vens The VENs to create
+     * @param concurrency Maximum number of requests in flight
+     * @return future list with one response per VEN, in input order;
+     *         see {@link OADR3#createVens}
+     */
+    public CompletableFuture<List<APIResponse<Ven>>> createVens(List<Ven> vens, int concurrency) {
+        return createAll("vens", vens, concurrency, "/vens", JsonCodec.VEN);
+    }
+
+    // Utility methods
+
+    private <T> CompletableFuture<List<APIResponse<T>>> createAll(String name, List<T> items, int concurrency,
+                                                                 String path, TypeReference<T> responseType) {
+        if (concurrency < 1) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("concurrency must be at least 1"));
+        }
+        ValidationUtils.ValidationResult input = BatchSubmitter.validateAll(name, items);
+        if (!input.isValid()) {
+            return invalid(input);
+        }
+
+        return new BatchSubmitter<T, T>(item -> andThen(
+                client.makeRequestAsync(client.post, path, item, responseType), this::validateAndStore),
+                concurrency).submitAll(items);
+    }
+
+    private static <T> CompletableFuture<T> invalid(ValidationUtils.ValidationResult result) {
+        return CompletableFuture.failedFuture(new IllegalArgumentException(result.getErrorMessage()));
+    }
+
+    /**
+     * Applies response validation or caching as a further stage of a request
+     * future. Cancelling the returned future also cancels the request.
+     */
+    private static <T> CompletableFuture<T> andThen(CompletableFuture<T> request, UnaryOperator<T> stage) {
+        CompletableFuture<T> result = request.thenApply(stage);
+        result.whenComplete((response, error) -> {
+            if (result.isCancelled()) {
+                request.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Validates a single-entity response and stores it in the entity cache
+     */
+    private <T> APIResponse<T> validateAndStore(APIResponse<T> response) {
+        return client.getEntityCache().store(client.getResponseValidator().validateOne(response));
+    }
+}
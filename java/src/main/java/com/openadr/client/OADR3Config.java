@@ -1,19 +1,50 @@
 package com.openadr.client;
 
+import java.time.Duration;
+
 /**
  * Configuration class for OpenADR 3 client
+ *
+ * The constructors cover the common case. Use {@link #builder} to also set
+ * transport, cache and response validation options.
  */
 public class OADR3Config {
+    /**
+     * Default number of responses kept for conditional GET revalidation
+     */
+    public static final int DEFAULT_CONDITIONAL_CACHE_SIZE = 256;
+
+    /**
+     * Default time an entity stays in the entity cache
+     */
+    public static final Duration DEFAULT_ENTITY_CACHE_TTL = Duration.ofSeconds(30);
+
     private final String baseUrl;
     private final String clientId;
     private final String clientSecret;
     private final String scope;
+    private final TransportProfile transportProfile;
+    private final int conditionalCacheSize;
+    private final int entityCacheSize;
+    private final Duration entityCacheTtl;
+    private final ResponseValidationPolicy responseValidation;
+    private final boolean coalesceGets;
+    private final RequestLimitPolicy requestLimits;
+    private final RetryPolicy retryPolicy;
 
     public OADR3Config(String baseUrl, String clientId, String clientSecret) {
-        this(baseUrl, clientId, clientSecret, null);
+        this(new Builder(baseUrl, clientId, clientSecret));
     }
 
     public OADR3Config(String baseUrl, String clientId, String clientSecret, String scope) {
+        this(new Builder(baseUrl, clientId, clientSecret).scope(scope));
+    }
+
+    private OADR3Config(Builder builder) {
+        String baseUrl = builder.baseUrl;
+        String clientId = builder.clientId;
+        String clientSecret = builder.clientSecret;
+
         if (baseUrl == null || baseUrl.trim().isEmpty()) {
             throw new IllegalArgumentException("baseUrl cannot be null or empty");
         }
@@ -27,7 +58,27 @@ public class OADR3Config {
         this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
         this.clientId = clientId;
         this.clientSecret = clientSecret;
-        this.scope = scope;
+        this.scope = builder.scope;
+        this.transportProfile = builder.transportProfile;
+        this.conditionalCacheSize = builder.conditionalCacheSize;
+        this.entityCacheSize = builder.entityCacheSize;
+        this.entityCacheTtl = builder.entityCacheTtl;
+        this.responseValidation = builder.responseValidation;
+        this.coalesceGets = builder.coalesceGets;
+        this.requestLimits = builder.requestLimits;
+        this.retryPolicy = builder.retryPolicy;
+    }
+
+    /**
+     * Creates a builder for a client configuration
+     *
+     * @param baseUrl The VTN server base URL
+     * @param clientId OAuth2 client ID
+     * @param clientSecret OAuth2 client secret
+     * @return a new builder
+     */
+    public static Builder builder(String baseUrl, String clientId, String clientSecret) {
+        return new Builder(baseUrl, clientId, clientSecret);
     }
 
     public String getBaseUrl() {
@@ -46,6 +97,64 @@ public class OADR3Config {
         return scope;
     }
 
+    /**
+     * @return the transport profile used when the client creates its own runtime
+     */
+    public TransportProfile getTransportProfile() {
+        return transportProfile;
+    }
+
+    /**
+     * @return the maximum number of program and event responses kept for
+     *         ETag / Last-Modified revalidation, 0 if disabled
+     */
+    public int getConditionalCacheSize() {
+        return conditionalCacheSize;
+    }
+
+    /**
+     * @return the maximum number of entities in the entity cache, 0 if disabled
+     */
+    public int getEntityCacheSize() {
+        return entityCacheSize;
+    }
+
+    /**
+     * @return how long an entity stays in the entity cache after it was stored
+     */
+    public Duration getEntityCacheTtl() {
+        return entityCacheTtl;
+    }
+
+    /**
+     * @return how entities returned by the VTN are validated
+     */
+    public ResponseValidationPolicy getResponseValidation() {
+        return responseValidation;
+    }
+
+    /**
+     * @return true if identical GET requests in flight at the same time are
+     *         sent once and share the response
+     */
+    public boolean isCoalesceGets() {
+        return coalesceGets;
+    }
+
+    /**
+     * @return how the rate and concurrency of requests to the VTN are limited
+     */
+    public RequestLimitPolicy getRequestLimits() {
+        return requestLimits;
+    }
+
+    /**
+     * @return how idempotent requests are retried and GETs hedged
+     */
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
     @Override
     public String toString() {
         return "OADR3Config{" +
@@ -53,6 +162,140 @@ public class OADR3Config {
                 ", clientId='" + clientId + '\'' +
                 ", clientSecret='***'" +
                 ", scope='" + scope + '\'' +
+                ", transportProfile=" + transportProfile +
+                ", conditionalCacheSize=" + conditionalCacheSize +
+                ", entityCacheSize=" + entityCacheSize +
+                ", entityCacheTtl=" + entityCacheTtl +
+                ", responseValidation=" + responseValidation +
+                ", coalesceGets=" + coalesceGets +
+                ", requestLimits=" + requestLimits +
+                ", retryPolicy=" + retryPolicy +
                 '}';
     }
+
+    /**
+     * Builder for {@link OADR3Config}
+     */
+    public static final class Builder {
+        private final String baseUrl;
+        private final String clientId;
+        private final String clientSecret;
+        private String scope;
+        private TransportProfile transportProfile = TransportProfile.defaults();
+        private int conditionalCacheSize = DEFAULT_CONDITIONAL_CACHE_SIZE;
+        private int entityCacheSize;
+        private Duration entityCacheTtl = DEFAULT_ENTITY_CACHE_TTL;
+        private ResponseValidationPolicy responseValidation = ResponseValidationPolicy.strict();
+        private boolean coalesceGets = true;
+        private RequestLimitPolicy requestLimits = RequestLimitPolicy.unlimited();
+        private RetryPolicy retryPolicy = RetryPolicy.none();
+
+        private Builder(String baseUrl, String clientId, String clientSecret) {
+            this.baseUrl = baseUrl;
+            this.clientId = clientId;
+            this.clientSecret = clientSecret;
+        }
+
+        /**
+         * @param scope Optional OAuth2 scope
+         */
+        public Builder scope(String scope) {
+            this.scope = scope;
+            return this;
+        }
+
+        /**
+         * @param transportProfile HTTP transport settings, used when the client
+         *                         is not created from a shared {@link OADR3Runtime}
+         */
+        public Builder transportProfile(TransportProfile transportProfile) {
+            if (transportProfile == null) {
+                throw new IllegalArgumentException("transportProfile cannot be null");
+            }
+            this.transportProfile = transportProfile;
+            return this;
+        }
+
+        /**
+         * @param conditionalCacheSize Maximum number of program and event responses
+         *                             kept for ETag / Last-Modified revalidation;
+         *                             0 disables conditional requests
+         */
+        public Builder conditionalCacheSize(int conditionalCacheSize) {
+            if (conditionalCacheSize < 0) {
+                throw new IllegalArgumentException("conditionalCacheSize cannot be negative");
+            }
+            this.conditionalCacheSize = conditionalCacheSize;
+            return this;
+        }
+
+        /**
+         * Enables the {@link EntityCache}, which is off by default
+         *
+         * @param maxEntries Maximum number of cached programs, events, reports and VENs
+         * @param ttl How long an entity is served from the cache after it was stored
+         */
+        public Builder entityCache(int maxEntries, Duration ttl) {
+            if (maxEntries < 0) {
+                throw new IllegalArgumentException("maxEntries cannot be negative");
+            }
+            if (ttl == null || ttl.isNegative() || ttl.isZero()) {
+                throw new IllegalArgumentException("ttl must be positive");
+            }
+            this.entityCacheSize = maxEntries;
+            this.entityCacheTtl = ttl;
+            return this;
+        }
+
+        /**
+         * @param responseValidation How entities returned by the VTN are validated;
+         *                           defaults to {@link ResponseValidationPolicy#strict()}
+         */
+        public Builder responseValidation(ResponseValidationPolicy responseValidation) {
+            if (responseValidation == null) {
+                throw new IllegalArgumentException("responseValidation cannot be null");
+            }
+            this.responseValidation = responseValidation;
+            return this;
+        }
+
+        /**
+         * @param coalesceGets Whether identical GET requests in flight at the same
+         *                     time are sent once and share the response, see
+         *                     {@link SingleFlight}; defaults to true
+         */
+        public Builder coalesceGets(boolean coalesceGets) {
+            this.coalesceGets = coalesceGets;
+            return this;
+        }
+
+        /**
+         * @param requestLimits How the rate and concurrency of requests to the
+         *                      VTN are limited; defaults to
+         *                      {@link RequestLimitPolicy#unlimited()}
+         */
+        public Builder requestLimits(RequestLimitPolicy requestLimits) {
+            if (requestLimits == null) {
+                throw new IllegalArgumentException("requestLimits cannot be null");
+            }
+            this.requestLimits = requestLimits;
+            return this;
+        }
+
+        /**
+         * @param retryPolicy How GET, PUT and DELETE requests are retried and
+         *                    GETs hedged; defaults to {@link RetryPolicy#none()}
+         */
+        public Builder retryPolicy(RetryPolicy retryPolicy) {
+            if (retryPolicy == null) {
+                throw new IllegalArgumentException("retryPolicy cannot be null");
+            }
+            this.retryPolicy = retryPolicy;
+            return this;
+        }
+
+        public OADR3Config build() {
+            return new OADR3Config(this);
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,299 @@
+package com.openadr.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.openadr.client.transport.HttpTransport;
+import com.openadr.client.transport.JdkHttpTransport;
+import com.openadr.client.transport.OkHttpTransport;
+import com.openadr.client.transport.TransportStats;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Shared resources for OpenADR 3 clients
+ *
+ * A runtime owns one HTTP transport (connection pool and threads) and
+ * one JSON object mapper. Every client created from the same runtime shares
+ * them, while keeping its own credentials and OAuth2 token. Processes that run
+ * many clients, such as one per VEN identity, should create a single runtime
+ * and build all clients from it:
+ *
+ * <pre>
+ * OADR3Runtime runtime = new OADR3Runtime();
+ * OADR3 ven1 = runtime.newClient(config1);
+ * OADR3 ven2 = runtime.newClient(config2);
+ * </pre>
+ *
+ * A client created with {@link OADR3#OADR3(OADR3Config)} gets a private runtime
+ * built from the config's {@link TransportProfile}. Clients created from a
+ * shared runtime use the runtime's profile instead.
+ *
+ * The HTTP stack and the object mapper are built on first use, so creating a
+ * runtime or a client is cheap. Short-lived processes can overlap that work
+ * with their own startup by calling {@link #initializeAsync()}.
+ *
+ * A runtime can be given its own object mapper, for example one based on
+ * {@link #defaultObjectMapper()} with Jackson's Blackbird module registered
+ * to replace reflective property access with generated lambdas.
+ */
+public final class OADR3Runtime implements AutoCloseable {
+    private final TransportProfile profile;
+    private volatile HttpTransport transport;
+    private final ObjectMapper objectMapper;
+    private volatile JsonCodec codec;
+    private volatile boolean closed;
+    private final AtomicInteger clientCount = new AtomicInteger();
+    private final Map<String, RequestLimiter> limiters = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a runtime with the default transport profile
+     */
+    public OADR3Runtime() {
+        this(TransportProfile.defaults());
+    }
+
+    /**
+     * Creates a runtime whose HTTP stack is configured by the given profile.
+     * The HTTP stack is built when the first request is sent.
+     *
+     * @param profile The transport profile
+     */
+    public OADR3Runtime(TransportProfile profile) {
+        this(profile, null);
+    }
+
+    /**
+     * Creates a runtime whose HTTP stack is configured by the given profile
+     * and which reads and writes JSON with the given object mapper
+     *
+     * @param profile The transport profile
+     * @param objectMapper The object mapper, normally built from
+     *                     {@link #defaultObjectMapper()}; null for the default
+     */
+    public OADR3Runtime(TransportProfile profile, ObjectMapper objectMapper) {
+        if (profile == null) {
+            throw new IllegalArgumentException("profile cannot be null");
+        }
+        this.profile = profile;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Creates a runtime around a caller-supplied transport
+     *
+     * @param transport The HTTP transport; closed when the runtime is closed
+     */
+    public OADR3Runtime(HttpTransport transport) {
+        if (transport == null) {
+            throw new IllegalArgumentException("transport cannot be null");
+        }
+        this.profile = null;
+        this.objectMapper = null;
+        this.transport = transport;
+    }
+
+    /**
+     * @return a new object mapper configured as the client expects: Java time
+     *         support with ISO-8601 dates instead of timestamps
+     */
+    public static ObjectMapper defaultObjectMapper() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+        objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        return objectMapper;
+    }
+
+    /**
+     * Creates a client that uses this runtime's shared resources
+     *
+     * @param config The client configuration
+     * @return a new client
+     */
+    public OADR3 newClient(OADR3Config config) {
+        return new OADR3(config, this);
+    }
+
+    /**
+     * Builds the HTTP stack and the object mapper in the background, so that
+     * the first request does not pay for them. Calling it is optional: both
+     * are otherwise built on first use.
+     *
+     * @return a future completed once both are ready
+     */
+    public CompletableFuture<Void> initializeAsync() {
+        return CompletableFuture.allOf(
+                CompletableFuture.runAsync(this::getTransport),
+                CompletableFuture.runAsync(this::getCodec));
+    }
+
+    HttpTransport getTransport() {
+        HttpTransport transport = this.transport;
+        if (transport != null) {
+            return transport;
+        }
+        synchronized (this) {
+            if (closed) {
+                throw new IllegalStateException("Runtime is closed");
+            }
+            if (this.transport == null) {
+                this.transport = createTransport(profile);
+            }
+            return this.transport;
+        }
+    }
+
+    JsonCodec getCodec() {
+        JsonCodec codec = this.codec;
+        if (codec != null) {
+            return codec;
+        }
+        synchronized (this) {
+            if (this.codec == null) {
+                this.codec = new JsonCodec(objectMapper != null ? objectMapper : defaultObjectMapper());
+            }
+            return this.codec;
+        }
+    }
+
+    ObjectMapper getObjectMapper() {
+        return getCodec().getObjectMapper();
+    }
+
+    private static HttpTransport createTransport(TransportProfile profile) {
+        switch (profile.getBackend()) {
+            case JDK:
+                return new JdkHttpTransport(profile);
+            default:
+                return new OkHttpTransport(profile);
+        }
+    }
+
+    void registerClient() {
+        clientCount.incrementAndGet();
+    }
+
+    void unregisterClient() {
+        clientCount.decrementAndGet();
+    }
+
+    /**
+     * @return the request limiter shared by this runtime's clients of the VTN
+     *         at {@code baseUrl}; unlimited policies get a limiter of their
+     *         own that is never shared
+     * @throws IllegalArgumentException if another client of the same VTN
+     *         already uses a different policy
+     */
+    RequestLimiter getLimiter(String baseUrl, RequestLimitPolicy policy) {
+        if (!policy.isEnabled()) {
+            return new RequestLimiter(policy);
+        }
+        RequestLimiter limiter = limiters.computeIfAbsent(baseUrl, url -> new RequestLimiter(policy));
+        if (!limiter.getPolicy().equals(policy)) {
+            throw new IllegalArgumentException("Clients of " + baseUrl + " already use " + limiter.getPolicy()
+                    + "; a runtime applies one request limit policy per VTN");
+        }
+        return limiter;
+    }
+
+    /**
+     * @return a snapshot of connection pool and dispatcher usage across all
+     *         clients of this runtime
+     */
+    public Stats getStats() {
+        HttpTransport transport = this.transport;
+        TransportStats stats = transport != null ? transport.getStats() : new TransportStats(0, 0, 0, 0);
+        return new Stats(
+                clientCount.get(),
+                stats.getConnectionCount(),
+                stats.getIdleConnectionCount(),
+                stats.getRunningCalls(),
+                stats.getQueuedCalls());
+    }
+
+    /**
+     * Releases pooled connections and stops the dispatcher threads. Clients
+     * created from this runtime cannot be used afterwards.
+     */
+    @Override
+    public void close() {
+        HttpTransport transport;
+        synchronized (this) {
+            closed = true;
+            transport = this.transport;
+        }
+        if (transport != null) {
+            transport.close();
+        }
+    }
+
+    /**
+     * Point-in-time usage statistics for a runtime
+     */
+    public static final class Stats {
+        private final int clientCount;
+        private final int connectionCount;
+        private final int idleConnectionCount;
+        private final int runningCalls;
+        private final int queuedCalls;
+
+        Stats(int clientCount, int connectionCount, int idleConnectionCount, int runningCalls, int queuedCalls) {
+            this.clientCount = clientCount;
+            this.connectionCount = connectionCount;
+            this.idleConnectionCount = idleConnectionCount;
+            this.runningCalls = runningCalls;
+            this.queuedCalls = queuedCalls;
+        }
+
+        /**
+         * @return Number of open clients of the runtime
+         */
+        public int getClientCount() {
+            return clientCount;
+        }
+
+        /**
+         * @return Number of open connections in the shared pool, or -1 if the
+         *         transport does not report it
+         */
+        public int getConnectionCount() {
+            return connectionCount;
+        }
+
+        /**
+         * @return Number of pooled connections currently idle, or -1 if the
+         *         transport does not report it
+         */
+        public int getIdleConnectionCount() {
+            return idleConnectionCount;
+        }
+
+        /**
+         * @return Number of calls currently executing
+         */
+        public int getRunningCalls() {
+            return runningCalls;
+        }
+
+        /**
+         * @return Number of calls waiting for a request slot
+         */
+        public int getQueuedCalls() {
+            return queuedCalls;
+        }
+
+        @Override
+        public String toString() {
+            return "Stats{" +
+                    "clientCount=" + clientCount +
+                    ", connectionCount=" + connectionCount +
+                    ", idleConnectionCount=" + idleConnectionCount +
+                    ", runningCalls=" + runningCalls +
+                    ", queuedCalls=" + queuedCalls +
+                    '}';
+        }
+    }
+}
@@ -0,0 +1,567 @@
+package com.openadr.client;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only, segmented log of outbox entries on local disk
+ *
+ * Entries get consecutive sequence numbers. They are appended to the head
+ * segment, named after the sequence number of its first entry, and a new
+ * segment is started once the head exceeds the segment size. {@link #sync}
+ * forces the head to disk on behalf of every entry appended so far, so
+ * concurrent writers share one fsync: whoever gets to sync first commits
+ * the whole group, and the others find their entries already durable.
+ *
+ * Delivered entries are recorded in a checkpoint file holding the sequence
+ * number of the first undelivered entry. Segments that hold only delivered
+ * entries are deleted by {@link #release}.
+ *
+ * Segment layout (big-endian): magic, version, first sequence number, then
+ * entries (body length, CRC-32 of the body, body). An entry body is the
+ * sequence number, the idempotency key as a length followed by UTF-8 bytes,
+ * and the report JSON. On open, a torn entry at the end of the head segment,
+ * left by a crash during an append, is truncated away, and a head segment
+ * whose header never reached the disk, left by a crash while starting it, is
+ * started again. An entry found corrupt while reading is skipped together
+ * with the rest of its segment, since entry boundaries after it cannot be
+ * trusted; the loss is logged.
+ */
+final class OutboxLog implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(OutboxLog.class);
+    private static final int MAGIC = 0x4F414F42; // "OAOB"
+    private static final int CHECKPOINT_MAGIC = 0x4F414F43; // "OAOC"
+    private static final int VERSION = 1;
+    private static final int SEGMENT_HEADER = 16;
+    private static final int ENTRY_HEADER = 8;
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String CHECKPOINT = "checkpoint";
+
+    private final Path directory;
+    private final long segmentSize;
+    private final Object writeLock = new Object();
+    private final Object syncLock = new Object();
+    private final TreeMap<Long, Segment> segments = new TreeMap<>();
+    private final AtomicLong durableSequence = new AtomicLong();
+    private final AtomicLong syncCount = new AtomicLong();
+    private Segment head;
+    private long nextSequence;
+    private volatile long writtenSequence;
+    private volatile long checkpoint;
+    private boolean closed;
+
+    private OutboxLog(Path directory, long segmentSize) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+    }
+
+    /**
+     * Opens the log in a directory, creating it if needed, and recovers the
+     * entries of a previous run
+     */
+    static OutboxLog open(Path directory, long segmentSize) throws IOException {
+        Files.createDirectories(directory);
+        OutboxLog log = new OutboxLog(directory, segmentSize);
+        try {
+            log.recover();
+        } catch (IOException | RuntimeException e) {
+            log.close();
+            throw e;
+        }
+        return log;
+    }
+
+    private void recover() throws IOException {
+        checkpoint = readCheckpoint();
+
+        List<Long> bases = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                bases.add(Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length())));
+            }
+        }
+        bases.sort(null);
+
+        for (long base : bases) {
+            Segment segment = new Segment(base, FileChannel.open(segmentFile(base),
+                    StandardOpenOption.READ, StandardOpenOption.WRITE));
+            segments.put(base, segment);
+            ByteBuffer header = ByteBuffer.allocate(SEGMENT_HEADER);
+            boolean complete = readFully(segment.channel, header, 0);
+            header.flip();
+            boolean valid = complete && header.getInt() == MAGIC && header.getInt() == VERSION
+                    && header.getLong() == base;
+            if (!valid && base == bases.get(bases.size() - 1) && segment.channel.size() <= SEGMENT_HEADER) {
+                // Crash while a roll was creating this segment, before its header was durable
+                logger.warn("Restarting outbox segment {} left incomplete by a crash", segmentFile(base));
+                writeHeader(segment.channel, base);
+            } else if (!complete) {
+                throw new IOException("Truncated outbox segment: " + segmentFile(base));
+            } else if (!valid) {
+                throw new IOException("Not an outbox segment: " + segmentFile(base));
+            }
+            segment.size = segment.channel.size();
+        }
+
+        if (segments.isEmpty()) {
+            nextSequence = checkpoint;
+            head = createSegment(nextSequence);
+        } else {
+            head = segments.lastEntry().getValue();
+            nextSequence = head.base;
+            long end = SEGMENT_HEADER;
+            long fileSize = head.channel.size();
+            Entry entry;
+            while (end < fileSize && (entry = readEntry(head, end)) != null) {
+                nextSequence = entry.sequence + 1;
+                end += entry.length;
+            }
+            if (end < fileSize) {
+                // Torn write from a crash during an append
+                head.channel.truncate(end);
+                head.channel.force(true);
+            }
+            head.size = end;
+        }
+        writtenSequence = nextSequence;
+        durableSequence.set(nextSequence);
+    }
+
+    /**
+     * Appends an entry. It is not durable until {@link #sync} returns.
+     *
+     * @return the entry's sequence number
+     * @throws IllegalArgumentException if the entry does not fit in a segment
+     */
+    long append(String key, byte[] json) throws IOException {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        long entryLength = (long) ENTRY_HEADER + Long.BYTES + Integer.BYTES + keyBytes.length + json.length;
+        if (SEGMENT_HEADER + entryLength > segmentSize) {
+            throw new IllegalArgumentException("Entry of " + entryLength + " bytes does not fit in a segment of "
+                    + segmentSize + " bytes");
+        }
+        int bodyLength = (int) entryLength - ENTRY_HEADER;
+        ByteBuffer buffer = ByteBuffer.allocate(ENTRY_HEADER + bodyLength);
+        buffer.putInt(bodyLength).putInt(0).putLong(0).putInt(keyBytes.length).put(keyBytes).put(json).flip();
+
+        synchronized (writeLock) {
+            if (closed) {
+                throw new IOException("Outbox is closed");
+            }
+            if (head.size > SEGMENT_HEADER && head.size + buffer.remaining() > segmentSize) {
+                roll();
+            }
+
+            long sequence = nextSequence;
+            buffer.putLong(ENTRY_HEADER, sequence);
+            CRC32 crc = new CRC32();
+            crc.update(buffer.array(), ENTRY_HEADER, bodyLength);
+            buffer.putInt(Integer.BYTES, (int) crc.getValue());
+
+            long position = head.size;
+            while (buffer.hasRemaining()) {
+                position += head.channel.write(buffer, position);
+            }
+            head.size = position;
+            nextSequence = sequence + 1;
+            writtenSequence = nextSequence;
+            return sequence;
+        }
+    }
+
+    /**
+     * Makes every entry up to the given one durable
+     */
+    void sync(long sequence) throws IOException {
+        if (durableSequence.get() > sequence) {
+            return;
+        }
+        synchronized (syncLock) {
+            if (durableSequence.get() > sequence) {
+                return;
+            }
+            Segment target;
+            long upTo;
+            synchronized (writeLock) {
+                target = head;
+                upTo = writtenSequence;
+            }
+            // Earlier segments were forced when they were rolled over
+            target.channel.force(false);
+            durableSequence.accumulateAndGet(upTo, Math::max);
+            syncCount.incrementAndGet();
+        }
+    }
+
+    private void roll() throws IOException {
+        head.channel.force(false);
+        durableSequence.accumulateAndGet(nextSequence, Math::max);
+        head = createSegment(nextSequence);
+    }
+
+    private Segment createSegment(long base) throws IOException {
+        Path file = segmentFile(base);
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        writeHeader(channel, base);
+        forceDirectory();
+        Segment segment = new Segment(base, channel);
+        segment.size = SEGMENT_HEADER;
+        segments.put(base, segment);
+        return segment;
+    }
+
+    private static void writeHeader(FileChannel channel, long base) throws IOException {
+        channel.truncate(0);
+        ByteBuffer header = ByteBuffer.allocate(SEGMENT_HEADER);
+        header.putInt(MAGIC).putInt(VERSION).putLong(base).flip();
+        while (header.hasRemaining()) {
+            channel.write(header, header.position());
+        }
+        channel.force(true);
+    }
+
+    /**
+     * @return a cursor at the first undelivered entry
+     */
+    Cursor cursor() throws IOException {
+        long from = checkpoint;
+        Cursor cursor;
+        synchronized (writeLock) {
+            Map.Entry<Long, Segment> segment = segments.floorEntry(from);
+            cursor = new Cursor(segment != null ? segment.getKey() : segments.firstKey(), SEGMENT_HEADER);
+        }
+        while (true) {
+            Entry entry = read(cursor);
+            if (entry == null) {
+                return cursor;
+            }
+            if (entry.sequence >= from) {
+                return entry.position;
+            }
+        }
+    }
+
+    /**
+     * Reads the durable entry at the cursor and advances the cursor past it.
+     * Only the drainer reads, and only entries appended completely.
+     *
+     * @return the entry, or null if the cursor is at the end of the durable entries
+     */
+    Entry read(Cursor cursor) throws IOException {
+        long limit = durableSequence.get();
+        while (true) {
+            Segment segment;
+            Long nextBase;
+            long end;
+            synchronized (writeLock) {
+                segment = segments.get(cursor.segment);
+                nextBase = segments.higherKey(cursor.segment);
+                end = segment != null ? segment.size : 0;
+            }
+            if (segment == null) {
+                throw new IOException("Outbox segment " + cursor.segment + " was deleted while being read");
+            }
+
+            if (cursor.offset < end) {
+                Entry entry = readEntry(segment, cursor.offset);
+                if (entry == null) {
+                    skipCorrupt(segment, cursor);
+                    continue;
+                }
+                if (entry.sequence >= limit) {
+                    return null;
+                }
+                cursor.offset += entry.length;
+                return entry;
+            }
+            if (nextBase == null || nextBase >= limit) {
+                return null;
+            }
+            cursor.segment = nextBase;
+            cursor.offset = SEGMENT_HEADER;
+        }
+    }
+
+    /**
+     * Moves the cursor past a corrupt entry to the start of the next segment,
+     * first starting a new head if the corrupt entry is in the head, and logs
+     * the entries lost with the rest of the segment
+     */
+    private void skipCorrupt(Segment segment, Cursor cursor) throws IOException {
+        long nextBase;
+        synchronized (writeLock) {
+            if (segment == head) {
+                roll();
+            }
+            nextBase = segments.higherKey(segment.base);
+        }
+        logger.error("Corrupt outbox segment {} at offset {}; skipping its remaining reports, up to sequence {}",
+                segmentFile(segment.base), cursor.offset, nextBase - 1);
+        cursor.segment = nextBase;
+        cursor.offset = SEGMENT_HEADER;
+    }
+
+    /**
+     * Reads the entry at an offset of a segment
+     *
+     * @return the entry, or null if it is torn or corrupt
+     */
+    private Entry readEntry(Segment segment, long offset) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(ENTRY_HEADER);
+        if (!readFully(segment.channel, header, offset)) {
+            return null;
+        }
+        header.flip();
+        int bodyLength = header.getInt();
+        int checksum = header.getInt();
+        if (bodyLength < Long.BYTES + Integer.BYTES || bodyLength > segmentSize) {
+            return null;
+        }
+
+        ByteBuffer body = ByteBuffer.allocate(bodyLength);
+        if (!readFully(segment.channel, body, offset + ENTRY_HEADER)) {
+            return null;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(body.array(), 0, bodyLength);
+        if ((int) crc.getValue() != checksum) {
+            return null;
+        }
+
+        body.flip();
+        long sequence = body.getLong();
+        int keyLength = body.getInt();
+        if (keyLength < 0 || keyLength > body.remaining()) {
+            return null;
+        }
+        byte[] key = new byte[keyLength];
+        body.get(key);
+        byte[] json = new byte[body.remaining()];
+        body.get(json);
+        return new Entry(sequence, new String(key, StandardCharsets.UTF_8), json,
+                new Cursor(segment.base, offset), ENTRY_HEADER + bodyLength);
+    }
+
+    /**
+     * Records that every entry before the given sequence number has been
+     * delivered, and deletes the segments that hold only such entries
+     */
+    void release(long delivered) throws IOException {
+        if (delivered <= checkpoint) {
+            return;
+        }
+        writeCheckpoint(delivered);
+        checkpoint = delivered;
+
+        List<Segment> obsolete = new ArrayList<>();
+        synchronized (writeLock) {
+            for (Map.Entry<Long, Segment> entry : segments.entrySet()) {
+                Long next = segments.higherKey(entry.getKey());
+                if (next == null || next > delivered) {
+                    break;
+                }
+                obsolete.add(entry.getValue());
+            }
+            for (Segment segment : obsolete) {
+                segments.remove(segment.base);
+            }
+        }
+        for (Segment segment : obsolete) {
+            segment.channel.close();
+            Files.deleteIfExists(segmentFile(segment.base));
+        }
+    }
+
+    /**
+     * @return the number of appended entries that have not been delivered
+     */
+    long pendingCount() {
+        return writtenSequence - checkpoint;
+    }
+
+    /**
+     * @return the number of fsyncs of the head segment
+     */
+    long syncCount() {
+        return syncCount.get();
+    }
+
+    /**
+     * @return the size of the segment files
+     */
+    long diskBytes() {
+        synchronized (writeLock) {
+            long total = 0;
+            for (Segment segment : segments.values()) {
+                total += segment.size;
+            }
+            return total;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (syncLock) {
+            synchronized (writeLock) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                IOException failure = null;
+                for (Segment segment : segments.values()) {
+                    try {
+                        if (segment == head) {
+                            segment.channel.force(false);
+                        }
+                        segment.channel.close();
+                    } catch (IOException e) {
+                        failure = e;
+                    }
+                }
+                if (failure != null) {
+                    throw failure;
+                }
+            }
+        }
+    }
+
+    private long readCheckpoint() throws IOException {
+        Path file = directory.resolve(CHECKPOINT);
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+        if (buffer.remaining() != 24 || buffer.getInt() != CHECKPOINT_MAGIC || buffer.getInt() != VERSION) {
+            throw new IOException("Not an outbox checkpoint: " + file);
+        }
+        long delivered = buffer.getLong();
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, 16);
+        if (crc.getValue() != buffer.getLong()) {
+            throw new IOException("Outbox checkpoint checksum mismatch: " + file);
+        }
+        return delivered;
+    }
+
+    /**
+     * Replaces the checkpoint file atomically, as {@link ReplicaSnapshot#write} does
+     */
+    private void writeCheckpoint(long delivered) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(24);
+        buffer.putInt(CHECKPOINT_MAGIC).putInt(VERSION).putLong(delivered);
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, 16);
+        buffer.putLong(crc.getValue()).flip();
+
+        Path file = directory.resolve(CHECKPOINT);
+        Path temp = Files.createTempFile(directory, CHECKPOINT, ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Makes a new segment file's directory entry durable. Not every platform
+     * can open a directory; there the file system's own ordering applies.
+     */
+    private void forceDirectory() {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Unsupported on this platform
+        }
+    }
+
+    private Path segmentFile(long base) {
+        return directory.resolve(String.format("%020d%s", base, SEGMENT_SUFFIX));
+    }
+
+    /**
+     * @return false if the channel ended before the buffer was filled
+     */
+    private static boolean readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                return false;
+            }
+            position += read;
+        }
+        return true;
+    }
+
+    private static final class Segment {
+        final long base;
+        final FileChannel channel;
+        // Guarded by writeLock
+        long size;
+
+        Segment(long base, FileChannel channel) {
+            this.base = base;
+            this.channel = channel;
+        }
+    }
+
+    /**
+     * Read position: a segment and an offset within it
+     */
+    static final class Cursor {
+        long segment;
+        long offset;
+
+        Cursor(long segment, long offset) {
+            this.segment = segment;
+            this.offset = offset;
+        }
+
+        Cursor copy() {
+            return new Cursor(segment, offset);
+        }
+    }
+
+    /**
+     * One report waiting for delivery
+     */
+    static final class Entry {
+        final long sequence;
+        final String key;
+        final byte[] json;
+        final Cursor position;
+        final int length;
+
+        Entry(long sequence, String key, byte[] json, Cursor position, int length) {
+            this.sequence = sequence;
+            this.key = key;
+            this.json = json;
+            this.position = position;
+            this.length = length;
+        }
+    }
+}
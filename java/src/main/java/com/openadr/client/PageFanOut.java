@@ -0,0 +1,118 @@
+package com.openadr.client;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fetches every page of a search endpoint with several requests in flight
+ *
+ * Page k is requested with {@code skip = k * pageSize}. Up to
+ * {@code concurrency} pages are outstanding at once, and results are
+ * reassembled in page order. The first page shorter than the page size marks
+ * the end of the collection; any speculative request past it is cancelled as
+ * soon as that page arrives, even if earlier pages are still outstanding.
+ */
+final class PageFanOut<T> {
+    private final PagedIterator.PageFetcher<T> fetcher;
+    private final int pageSize;
+    private final int concurrency;
+    private final Map<Integer, CompletableFuture<APIResponse<List<T>>>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicInteger lastPage = new AtomicInteger(Integer.MAX_VALUE);
+
+    PageFanOut(PagedIterator.PageFetcher<T> fetcher, int pageSize, int concurrency) {
+        if (pageSize <= 0 || pageSize > PagedIterator.MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("pageSize must be between 1 and " + PagedIterator.MAX_PAGE_SIZE);
+        }
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("concurrency must be at least 1");
+        }
+        this.fetcher = fetcher;
+        this.pageSize = pageSize;
+        this.concurrency = concurrency;
+    }
+
+    /**
+     * Fetches the whole collection. If any page fails with an error response,
+     * outstanding requests are cancelled and that error response is returned.
+     */
+    APIResponse<List<T>> fetchAll() throws IOException {
+        List<T> results = new ArrayList<>();
+        int nextToLaunch = 0;
+        int status = 200;
+
+        try {
+            for (int page = 0; page <= lastPage.get(); page++) {
+                while (nextToLaunch < page + concurrency && nextToLaunch <= lastPage.get()) {
+                    launch(nextToLaunch++);
+                }
+
+                APIResponse<List<T>> response = await(page);
+                if (response.isError()) {
+                    return new APIResponse<>(response.getStatus(), response.getProblem());
+                }
+
+                List<T> items = response.getResponse() != null ? response.getResponse() : Collections.emptyList();
+                results.addAll(items);
+                status = response.getStatus();
+                if (items.size() < pageSize) {
+                    break;
+                }
+            }
+        } finally {
+            cancelAfter(-1);
+        }
+
+        return new APIResponse<>(status, results);
+    }
+
+    private void launch(int page) {
+        CompletableFuture<APIResponse<List<T>>> future = fetcher.fetch(page * pageSize, pageSize);
+        inFlight.put(page, future);
+        future.thenAccept(response -> {
+            List<T> items = response.getResponse();
+            if (response.isSuccess() && (items == null || items.size() < pageSize)) {
+                // End of collection: nothing past this page can contain data
+                if (lastPage.accumulateAndGet(page, Math::min) == page) {
+                    cancelAfter(page);
+                }
+            }
+        });
+    }
+
+    private void cancelAfter(int page) {
+        inFlight.forEach((index, future) -> {
+            if (index > page && inFlight.remove(index, future)) {
+                future.cancel(true);
+            }
+        });
+    }
+
+    private APIResponse<List<T>> await(int page) throws IOException {
+        CompletableFuture<APIResponse<List<T>>> future = inFlight.get(page);
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for page at skip " + page * pageSize);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        } finally {
+            inFlight.remove(page, future);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.openadr.client;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Lazy iterator over a paginated search endpoint
+ *
+ * Pages are requested with increasing skip values. As soon as page N arrives,
+ * the request for page N+1 is started in the background, so the next round
+ * trip overlaps with the caller consuming page N. At most two pages are held
+ * in memory at a time. Iteration ends at the first page shorter than the page
+ * size.
+ *
+ * @param <T> The element type
+ */
+final class PagedIterator<T> implements Iterator<T>, AutoCloseable {
+    /** Largest page size accepted by the VTN search endpoints */
+    static final int MAX_PAGE_SIZE = 50;
+
+    /**
+     * Fetches one page of a search endpoint
+     */
+    @FunctionalInterface
+    interface PageFetcher<T> {
+        CompletableFuture<APIResponse<List<T>>> fetch(int skip, int limit);
+    }
+
+    private final PageFetcher<T> fetcher;
+    private final int pageSize;
+    private Iterator<T> current = Collections.emptyIterator();
+    private CompletableFuture<APIResponse<List<T>>> pending;
+    private int nextSkip;
+    private boolean started;
+
+    PagedIterator(PageFetcher<T> fetcher, int pageSize) {
+        if (pageSize <= 0 || pageSize > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("pageSize must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        this.fetcher = fetcher;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Creates a sequential stream over every element of a search endpoint.
+     * Closing the stream cancels any outstanding prefetch.
+     */
+    static <T> Stream<T> stream(PageFetcher<T> fetcher, int pageSize) {
+        PagedIterator<T> iterator = new PagedIterator<>(fetcher, pageSize);
+        return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL),
+                false).onClose(iterator::close);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (!started) {
+            started = true;
+            requestNext();
+        }
+        while (!current.hasNext()) {
+            if (pending == null) {
+                return false;
+            }
+            List<T> page = await(pending);
+            pending = null;
+            if (page.size() >= pageSize) {
+                // Prefetch the following page while this one is consumed
+                requestNext();
+            }
+            current = page.iterator();
+        }
+        return true;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return current.next();
+    }
+
+    @Override
+    public void close() {
+        if (pending != null) {
+            pending.cancel(true);
+            pending = null;
+        }
+        current = Collections.emptyIterator();
+    }
+
+    private void requestNext() {
+        pending = fetcher.fetch(nextSkip, pageSize);
+        nextSkip += pageSize;
+    }
+
+    private List<T> await(CompletableFuture<APIResponse<List<T>>> future) {
+        APIResponse<List<T>> response;
+        try {
+            response = future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            close();
+            throw new CancellationException("Interrupted while waiting for page at skip " + (nextSkip - pageSize));
+        } catch (ExecutionException e) {
+            close();
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw new UncheckedIOException((IOException) cause);
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+
+        if (response.isError()) {
+            close();
+            throw new UncheckedIOException(new IOException(
+                    "Page request failed: " + response.getStatus() + " " + response.getProblem()));
+        }
+        return response.getResponse() != null ? response.getResponse() : Collections.emptyList();
+    }
+}
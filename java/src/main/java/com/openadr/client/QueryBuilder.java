@@ -0,0 +1,108 @@
+package com.openadr.client;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Builds a request path with its query string
+ *
+ * Values are form-encoded, so IDs and names containing reserved characters
+ * reach the VTN intact. Values made only of unreserved characters, which is
+ * the common case, are appended as they are. Parameters whose value is null
+ * are left out. Names are expected to be plain ASCII and are not encoded.
+ */
+final class QueryBuilder {
+    private final StringBuilder path;
+    private final int pathLength;
+
+    private QueryBuilder(String path) {
+        this.path = new StringBuilder(path.length() + 48).append(path);
+        this.pathLength = path.length();
+    }
+
+    /**
+     * @return a builder for the given path
+     */
+    static QueryBuilder path(String path) {
+        return new QueryBuilder(path);
+    }
+
+    /**
+     * @return a builder for a bare query string, without path or leading '?'
+     */
+    static QueryBuilder query() {
+        return new QueryBuilder("");
+    }
+
+    QueryBuilder add(String name, String value) {
+        if (value != null) {
+            separator().append(name).append('=');
+            encode(value);
+        }
+        return this;
+    }
+
+    QueryBuilder add(String name, Integer value) {
+        if (value != null) {
+            separator().append(name).append('=').append(value.intValue());
+        }
+        return this;
+    }
+
+    /**
+     * Adds the parameter once per value, as in {@code targets=a&targets=b}
+     */
+    QueryBuilder add(String name, List<String> values) {
+        if (values != null) {
+            for (String value : values) {
+                add(name, value);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Appends a query string that is already encoded, such as one built by
+     * {@link #query()}
+     */
+    QueryBuilder append(String encodedQuery) {
+        if (!encodedQuery.isEmpty()) {
+            separator().append(encodedQuery);
+        }
+        return this;
+    }
+
+    String build() {
+        return path.toString();
+    }
+
+    @Override
+    public String toString() {
+        return build();
+    }
+
+    private StringBuilder separator() {
+        if (path.length() > pathLength) {
+            path.append('&');
+        } else if (pathLength > 0) {
+            path.append('?');
+        }
+        return path;
+    }
+
+    private void encode(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (!isUnreserved(value.charAt(i))) {
+                path.append(URLEncoder.encode(value, StandardCharsets.UTF_8));
+                return;
+            }
+        }
+        path.append(value);
+    }
+
+    private static boolean isUnreserved(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                || c == '-' || c == '_' || c == '.' || c == '*';
+    }
+}
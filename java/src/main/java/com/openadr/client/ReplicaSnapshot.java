@@ -0,0 +1,256 @@
+package com.openadr.client;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * On-disk snapshot of a {@link DeltaSync} replica
+ *
+ * The file holds each element's JSON exactly as it will be bound, its
+ * fingerprint, and the validators and ids of every page, followed by a CRC-32
+ * of everything except the element JSON. It is memory-mapped when read, so
+ * opening a snapshot only walks and checks the record headers and pages;
+ * element JSON stays in the page cache until an element is first accessed,
+ * and is checked against its fingerprint then.
+ *
+ * Layout (big-endian): magic, version, source, record count, records
+ * (id, fingerprint, JSON length, JSON), page count, pages (skip, ETag,
+ * Last-Modified, element count, id count, ids), CRC-32. Strings are a length
+ * followed by UTF-8 bytes, with a length of -1 for null.
+ */
+final class ReplicaSnapshot {
+    private static final int MAGIC = 0x4F415233; // "OAR3"
+    private static final int VERSION = 2;
+
+    private final List<Record> records;
+    private final List<PageRecord> pages;
+
+    private ReplicaSnapshot(List<Record> records, List<PageRecord> pages) {
+        this.records = records;
+        this.pages = pages;
+    }
+
+    List<Record> getRecords() {
+        return records;
+    }
+
+    List<PageRecord> getPages() {
+        return pages;
+    }
+
+    /**
+     * Maps a snapshot file
+     *
+     * @param file The snapshot file
+     * @param source The collection the caller replicates, such as "Event /events?programId=1"
+     * @return the snapshot, or null if the file does not exist
+     * @throws IOException if the file cannot be read, is corrupt, or belongs to another source
+     */
+    static ReplicaSnapshot map(Path file, String source) throws IOException {
+        if (!Files.exists(file)) {
+            return null;
+        }
+
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        try {
+            if (buffer.limit() < 16 || buffer.getInt() != MAGIC) {
+                throw new IOException("Not a replica snapshot: " + file);
+            }
+            int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported snapshot version " + version + ": " + file);
+            }
+
+            String fileSource = readString(buffer);
+            if (!source.equals(fileSource)) {
+                throw new IOException("Snapshot " + file + " is for " + fileSource + ", not " + source);
+            }
+
+            // Everything but the element JSON, which is checked on access
+            CRC32 crc = new CRC32();
+            int unchecked = 0;
+            int recordCount = buffer.getInt();
+            List<Record> records = new ArrayList<>(Math.min(recordCount, buffer.remaining()));
+            for (int i = 0; i < recordCount; i++) {
+                String id = readString(buffer);
+                long fingerprint = buffer.getLong();
+                int length = buffer.getInt();
+                ByteBuffer json = buffer.slice(buffer.position(), length);
+                crc.update(buffer.slice(unchecked, buffer.position() - unchecked));
+                buffer.position(buffer.position() + length);
+                unchecked = buffer.position();
+                records.add(new Record(id, fingerprint, json));
+            }
+
+            int pageCount = buffer.getInt();
+            List<PageRecord> pages = new ArrayList<>(pageCount);
+            for (int i = 0; i < pageCount; i++) {
+                int skip = buffer.getInt();
+                String etag = readString(buffer);
+                String lastModified = readString(buffer);
+                int elementCount = buffer.getInt();
+                int idCount = buffer.getInt();
+                List<String> ids = new ArrayList<>(idCount);
+                for (int j = 0; j < idCount; j++) {
+                    ids.add(readString(buffer));
+                }
+                pages.add(new PageRecord(skip, etag, lastModified, elementCount, ids));
+            }
+
+            if (buffer.remaining() != Long.BYTES) {
+                throw new IOException("Corrupt snapshot " + file);
+            }
+            crc.update(buffer.slice(unchecked, buffer.position() - unchecked));
+            if (crc.getValue() != buffer.getLong()) {
+                throw new IOException("Snapshot checksum mismatch: " + file);
+            }
+            return new ReplicaSnapshot(records, pages);
+        } catch (RuntimeException e) {
+            // Buffer underflow or a bad length inside a file whose checksum matched
+            throw new IOException("Corrupt snapshot " + file, e);
+        }
+    }
+
+    /**
+     * Writes a snapshot to a temporary file next to the target, forces it to
+     * disk and moves it into place, so readers see either the old or the new
+     * snapshot and never a partial one
+     */
+    static void write(Path file, String source, List<Record> records, List<PageRecord> pages) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                CRC32 crc = new CRC32();
+                BufferedOutputStream buffered = new BufferedOutputStream(Channels.newOutputStream(channel), 64 * 1024);
+                DataOutputStream out = new DataOutputStream(new CheckedOutputStream(buffered, crc));
+
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                writeString(out, source);
+
+                out.writeInt(records.size());
+                for (Record record : records) {
+                    writeString(out, record.id);
+                    out.writeLong(record.fingerprint);
+                    ByteBuffer json = record.json.duplicate();
+                    out.writeInt(json.remaining());
+                    // Covered by the fingerprint instead of the file checksum
+                    write(buffered, json);
+                }
+
+                out.writeInt(pages.size());
+                for (PageRecord page : pages) {
+                    out.writeInt(page.skip);
+                    writeString(out, page.etag);
+                    writeString(out, page.lastModified);
+                    out.writeInt(page.elementCount);
+                    out.writeInt(page.ids.size());
+                    for (String id : page.ids) {
+                        writeString(out, id);
+                    }
+                }
+
+                out.flush();
+                // The checksum itself is written outside the checked stream
+                new DataOutputStream(Channels.newOutputStream(channel)).writeLong(crc.getValue());
+                channel.force(true);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static void write(OutputStream out, ByteBuffer buffer) throws IOException {
+        if (buffer.hasArray()) {
+            out.write(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+        } else {
+            byte[] chunk = new byte[Math.min(buffer.remaining(), 8192)];
+            while (buffer.hasRemaining()) {
+                int length = Math.min(chunk.length, buffer.remaining());
+                buffer.get(chunk, 0, length);
+                out.write(chunk, 0, length);
+            }
+        }
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * One replicated element
+     */
+    static final class Record {
+        final String id;
+        final long fingerprint;
+        final ByteBuffer json;
+
+        Record(String id, long fingerprint, ByteBuffer json) {
+            this.id = id;
+            this.fingerprint = fingerprint;
+            this.json = json;
+        }
+    }
+
+    /**
+     * Validators and element ids of one page
+     */
+    static final class PageRecord {
+        final int skip;
+        final String etag;
+        final String lastModified;
+        final int elementCount;
+        final List<String> ids;
+
+        PageRecord(int skip, String etag, String lastModified, int elementCount, List<String> ids) {
+            this.skip = skip;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.elementCount = elementCount;
+            this.ids = ids;
+        }
+    }
+}
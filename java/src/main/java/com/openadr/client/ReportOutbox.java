@@ -0,0 +1,525 @@
+package com.openadr.client;
+
+import com.openadr.client.model.Report;
+import com.openadr.client.validation.ValidationUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Durable outbox for report submissions
+ *
+ * {@link #submit} writes a report to an append-only log on local disk and
+ * returns once it is durable; a background thread then delivers the log to
+ * the VTN. Reports survive VTN outages and restarts of the
+ * application, and they wait on disk rather than on the heap, so the backlog
+ * is bounded by disk space only.
+ *
+ * Every report gets an idempotency key when it is submitted, sent with each
+ * delivery attempt in the {@code Idempotency-Key} header. Delivery is at
+ * least once: a report whose response was lost is sent again with the same
+ * key, and a VTN that honours the header creates it only once. A 409 answer
+ * is taken as such a duplicate and counts as delivered.
+ *
+ * Reports are read in submission order and sent in batches, by default one
+ * request at a time so that they reach the VTN in submission order; with a
+ * higher {@code concurrency}, reports of one batch may overtake each other.
+ * Requests that got no response, and 401, 403, 408, 429 and 5xx answers, are
+ * retried with exponential backoff, so an expired token or a VTN outage
+ * delays delivery but loses nothing; reports of the batch that were already
+ * delivered are not sent again. A 2xx response that cannot be read still
+ * counts as delivered, since the VTN has stored the report. Other 4xx answers
+ * mean the VTN will never accept the report; it is passed to the
+ * {@link DeliveryListener} and skipped, as is a report whose log entry cannot
+ * be read. A corrupt log segment is skipped to the next one, logging the
+ * reports lost with it. Concurrent submitters
+ * share fsyncs (group commit), and segments whose reports have all been
+ * delivered are deleted.
+ */
+public final class ReportOutbox implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(ReportOutbox.class);
+    static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+
+    /**
+     * Receives the final outcome of every report in the outbox
+     */
+    @FunctionalInterface
+    public interface DeliveryListener {
+        /**
+         * Called on the outbox's background thread once a report has been
+         * delivered, or rejected by the VTN for good
+         *
+         * @param idempotencyKey The key returned by {@link #submit}
+         * @param report The report, or null if its log entry could not be read
+         * @param response The VTN's response; a 2xx response that could not
+         *                 be read, and a report that could not be read from
+         *                 the log, carry a {@code CLIENT_ERROR} problem
+         */
+        void onDelivery(String idempotencyKey, Report report, APIResponse<Report> response);
+    }
+
+    private final OADR3 client;
+    private final OutboxLog log;
+    private final int batchSize;
+    private final int concurrency;
+    private final long initialBackoffNanos;
+    private final long maxBackoffNanos;
+    private final DeliveryListener listener;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition wakeUp = lock.newCondition();
+    private boolean closed;
+    private boolean woken;
+    private final Thread drainer;
+
+    private final AtomicLong submittedCount = new AtomicLong();
+    private final AtomicLong deliveredCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private final AtomicLong retryCount = new AtomicLong();
+    // Sequences delivered after an entry that is being retried; drainer thread only
+    private final Set<Long> deliveredAhead = new HashSet<>();
+
+    private ReportOutbox(Builder builder, OutboxLog log) {
+        this.client = builder.client;
+        this.log = log;
+        this.batchSize = builder.batchSize;
+        this.concurrency = builder.concurrency;
+        this.initialBackoffNanos = builder.initialBackoff.toNanos();
+        this.maxBackoffNanos = builder.maxBackoff.toNanos();
+        this.listener = builder.listener;
+        this.drainer = Thread.ofPlatform().daemon().name("openadr-report-outbox").start(this::run);
+    }
+
+    /**
+     * Creates a builder for an outbox in the given directory
+     *
+     * @param client The client used to deliver reports
+     * @param directory Directory of the log; reports left there by a previous
+     *                  run are delivered first
+     * @return A new builder
+     */
+    public static Builder builder(OADR3 client, Path directory) {
+        return new Builder(client, directory);
+    }
+
+    /**
+     * Writes a report to the outbox and waits until it is on disk
+     *
+     * @param report The report to deliver
+     * @return The report's idempotency key
+     * @throws IllegalArgumentException if the report is null, invalid, or larger than a segment
+     * @throws IOException if the report could not be written, or the outbox is closed
+     */
+    public String submit(Report report) throws IOException {
+        if (report == null) {
+            throw new IllegalArgumentException("report cannot be null");
+        }
+        ValidationUtils.validate(report).throwIfInvalid();
+
+        String key = UUID.randomUUID().toString();
+        long sequence = log.append(key, client.getCodec().write(report));
+        log.sync(sequence);
+        submittedCount.incrementAndGet();
+
+        lock.lock();
+        try {
+            woken = true;
+            wakeUp.signal();
+        } finally {
+            lock.unlock();
+        }
+        return key;
+    }
+
+    /**
+     * Stops delivering and closes the log. Undelivered reports stay on disk
+     * and are delivered by the next outbox opened on the directory.
+     */
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            closed = true;
+            wakeUp.signal();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            drainer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        log.close();
+    }
+
+    /**
+     * @return Point-in-time counters for this outbox
+     */
+    public Stats getStats() {
+        return new Stats(log.pendingCount(), submittedCount.get(), deliveredCount.get(), rejectedCount.get(),
+                retryCount.get(), log.syncCount(), log.diskBytes());
+    }
+
+    private void run() {
+        long backoff = 0;
+        OutboxLog.Cursor cursor = null;
+        while (!isClosed()) {
+            try {
+                if (cursor == null) {
+                    cursor = log.cursor();
+                }
+                List<OutboxLog.Entry> batch = new ArrayList<>(batchSize);
+                OutboxLog.Entry entry;
+                while (batch.size() < batchSize && (entry = log.read(cursor)) != null) {
+                    batch.add(entry);
+                }
+                if (batch.isEmpty()) {
+                    awaitSubmission();
+                    continue;
+                }
+
+                OutboxLog.Entry retry = deliver(batch);
+                if (retry == null) {
+                    backoff = 0;
+                    continue;
+                }
+                cursor = retry.position.copy();
+                backoff = backoff == 0 ? initialBackoffNanos : Math.min(backoff * 2, maxBackoffNanos);
+                retryCount.incrementAndGet();
+                backOff(backoff);
+            } catch (IOException | RuntimeException e) {
+                logger.error("Report outbox delivery failed, retrying", e);
+                cursor = null;
+                backoff = backoff == 0 ? initialBackoffNanos : Math.min(backoff * 2, maxBackoffNanos);
+                backOff(backoff);
+            }
+        }
+    }
+
+    /**
+     * Sends the entries of a batch that have not been delivered yet and
+     * releases the delivered prefix of the log
+     *
+     * @return the first entry that has to be retried, or null if the whole
+     *         batch is done
+     */
+    private OutboxLog.Entry deliver(List<OutboxLog.Entry> batch) throws IOException {
+        List<Report> reports = new ArrayList<>(batch.size());
+        List<APIResponse<Report>> results = new ArrayList<>(Collections.nCopies(batch.size(), null));
+        List<Integer> indexes = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            OutboxLog.Entry entry = batch.get(i);
+            Report report = null;
+            try {
+                report = client.getCodec().reader(Report.class).readValue(entry.json);
+            } catch (IOException e) {
+                // Retrying cannot make the entry readable
+                results.set(i, new APIResponse<>(0, new APIError(BatchSubmitter.CLIENT_ERROR,
+                        e.getClass().getSimpleName(), 0, e.getMessage())));
+            }
+            reports.add(report);
+            if (report != null && !deliveredAhead.contains(entry.sequence)) {
+                indexes.add(i);
+            }
+        }
+
+        List<APIResponse<Report>> sent = BatchSubmitter.await(new BatchSubmitter<Integer, Report>(i ->
+                client.makeAnsweredRequestAsync(client.post, "/reports", reports.get(i), JsonCodec.REPORT,
+                        Map.of(IDEMPOTENCY_KEY, batch.get(i).key)), concurrency).submitAll(indexes));
+        for (int i = 0; i < indexes.size(); i++) {
+            results.set(indexes.get(i), sent.get(i));
+        }
+
+        OutboxLog.Entry retry = null;
+        long delivered = batch.get(0).sequence;
+        for (int i = 0; i < batch.size(); i++) {
+            OutboxLog.Entry entry = batch.get(i);
+            APIResponse<Report> response = results.get(i);
+            if (response == null) {
+                // Delivered in an earlier attempt
+                if (retry == null) {
+                    deliveredAhead.remove(entry.sequence);
+                    delivered = entry.sequence + 1;
+                }
+                continue;
+            }
+            boolean readable = reports.get(i) != null;
+            if (readable && isRetryable(response.getStatus())) {
+                if (retry == null) {
+                    retry = entry;
+                }
+                continue;
+            }
+
+            boolean accepted = readable
+                    && (response.getStatus() >= 200 && response.getStatus() < 300 || response.getStatus() == 409);
+            (accepted ? deliveredCount : rejectedCount).incrementAndGet();
+            if (!readable) {
+                logger.error("Outbox report {} cannot be read, dropping it: {}", entry.key, response.getProblem());
+            } else if (!accepted) {
+                logger.warn("VTN rejected outbox report {}: {}", entry.key, response.getProblem());
+            }
+            try {
+                listener.onDelivery(entry.key, reports.get(i), response);
+            } catch (RuntimeException e) {
+                logger.warn("Report delivery listener failed", e);
+            }
+            if (retry == null) {
+                delivered = entry.sequence + 1;
+            } else {
+                deliveredAhead.add(entry.sequence);
+            }
+        }
+        log.release(delivered);
+        return retry;
+    }
+
+    /**
+     * @return true for answers worth another attempt; status 0 means the
+     *         request got no response at all
+     */
+    private static boolean isRetryable(int status) {
+        return status == 0 || status == 401 || status == 403 || status == 408 || status == 429 || status >= 500;
+    }
+
+    private boolean isClosed() {
+        lock.lock();
+        try {
+            return closed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits for a submission or close(). A submission made since the last
+     * wait ends it at once, so none is missed.
+     */
+    private void awaitSubmission() {
+        lock.lock();
+        try {
+            while (!closed && !woken) {
+                wakeUp.awaitUninterruptibly();
+            }
+            woken = false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits out a backoff; only close() ends it early, so new submissions do
+     * not hurry retries against a VTN that is down
+     */
+    private void backOff(long nanos) {
+        lock.lock();
+        try {
+            long remaining = nanos;
+            while (!closed && remaining > 0) {
+                remaining = wakeUp.awaitNanos(remaining);
+            }
+        } catch (InterruptedException e) {
+            // Only close() stops the background thread
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Builder for {@link ReportOutbox}
+     */
+    public static final class Builder {
+        private final OADR3 client;
+        private final Path directory;
+        private long segmentSize = 64L * 1024 * 1024;
+        private int batchSize = 50;
+        private int concurrency = 1;
+        private Duration initialBackoff = Duration.ofMillis(500);
+        private Duration maxBackoff = Duration.ofSeconds(30);
+        private DeliveryListener listener = (key, report, response) -> { };
+
+        private Builder(OADR3 client, Path directory) {
+            if (client == null) {
+                throw new IllegalArgumentException("client cannot be null");
+            }
+            if (directory == null) {
+                throw new IllegalArgumentException("directory cannot be null");
+            }
+            this.client = client;
+            this.directory = directory;
+        }
+
+        /**
+         * Sets the size at which a new log segment is started (default 64 MiB)
+         */
+        public Builder segmentSize(long segmentSize) {
+            if (segmentSize < 4096) {
+                throw new IllegalArgumentException("segmentSize must be at least 4096");
+            }
+            this.segmentSize = segmentSize;
+            return this;
+        }
+
+        /**
+         * Sets the number of reports read from disk and sent as one batch (default 50)
+         */
+        public Builder batchSize(int batchSize) {
+            if (batchSize < 1) {
+                throw new IllegalArgumentException("batchSize must be at least 1");
+            }
+            this.batchSize = batchSize;
+            return this;
+        }
+
+        /**
+         * Sets the number of requests in flight while a batch is sent
+         * (default 1, which delivers reports strictly in submission order);
+         * more speeds up delivery but lets reports of a batch overtake each
+         * other
+         */
+        public Builder concurrency(int concurrency) {
+            if (concurrency < 1) {
+                throw new IllegalArgumentException("concurrency must be at least 1");
+            }
+            this.concurrency = concurrency;
+            return this;
+        }
+
+        /**
+         * Sets the first and the longest wait between delivery attempts
+         * (defaults 500 ms and 30 seconds)
+         */
+        public Builder backoff(Duration initial, Duration max) {
+            if (initial == null || max == null) {
+                throw new IllegalArgumentException("backoff cannot be null");
+            }
+            if (initial.isNegative() || initial.isZero() || max.compareTo(initial) < 0) {
+                throw new IllegalArgumentException("backoff must be positive, with max at least initial");
+            }
+            this.initialBackoff = initial;
+            this.maxBackoff = max;
+            return this;
+        }
+
+        /**
+         * Sets the listener for delivered and rejected reports
+         */
+        public Builder listener(DeliveryListener listener) {
+            if (listener == null) {
+                throw new IllegalArgumentException("listener cannot be null");
+            }
+            this.listener = listener;
+            return this;
+        }
+
+        /**
+         * Opens the log, recovering any reports left by a previous run, and
+         * starts delivering
+         *
+         * @throws IOException if the log cannot be opened or is corrupt
+         */
+        public ReportOutbox build() throws IOException {
+            return new ReportOutbox(this, OutboxLog.open(directory, segmentSize));
+        }
+    }
+
+    /**
+     * Point-in-time counters for a report outbox
+     */
+    public static final class Stats {
+        private final long pendingCount;
+        private final long submittedCount;
+        private final long deliveredCount;
+        private final long rejectedCount;
+        private final long retryCount;
+        private final long syncCount;
+        private final long diskBytes;
+
+        Stats(long pendingCount, long submittedCount, long deliveredCount, long rejectedCount,
+              long retryCount, long syncCount, long diskBytes) {
+            this.pendingCount = pendingCount;
+            this.submittedCount = submittedCount;
+            this.deliveredCount = deliveredCount;
+            this.rejectedCount = rejectedCount;
+            this.retryCount = retryCount;
+            this.syncCount = syncCount;
+            this.diskBytes = diskBytes;
+        }
+
+        /**
+         * @return Number of reports on disk that have not been delivered yet
+         */
+        public long getPendingCount() {
+            return pendingCount;
+        }
+
+        /**
+         * @return Number of reports submitted since the outbox was opened
+         */
+        public long getSubmittedCount() {
+            return submittedCount;
+        }
+
+        /**
+         * @return Number of reports accepted by the VTN, including 409 duplicates
+         */
+        public long getDeliveredCount() {
+            return deliveredCount;
+        }
+
+        /**
+         * @return Number of reports the VTN rejected for good, with a 4xx other than 401, 403, 408, 409 or 429, or because their log entry could not be read
+         */
+        public long getRejectedCount() {
+            return rejectedCount;
+        }
+
+        /**
+         * @return Number of times delivery backed off before retrying
+         */
+        public long getRetryCount() {
+            return retryCount;
+        }
+
+        /**
+         * @return Number of fsyncs; lower than the number of submissions when
+         *         concurrent submitters shared them
+         */
+        public long getSyncCount() {
+            return syncCount;
+        }
+
+        /**
+         * @return Size of the log segments on disk
+         */
+        public long getDiskBytes() {
+            return diskBytes;
+        }
+
+        @Override
+        public String toString() {
+            return "Stats{" +
+                    "pendingCount=" + pendingCount +
+                    ", submittedCount=" + submittedCount +
+                    ", deliveredCount=" + deliveredCount +
+                    ", rejectedCount=" + rejectedCount +
+                    ", retryCount=" + retryCount +
+                    ", syncCount=" + syncCount +
+                    ", diskBytes=" + diskBytes +
+                    '}';
+        }
+    }
+}
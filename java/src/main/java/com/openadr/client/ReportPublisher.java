@@ -0,0 +1,584 @@
+package com.openadr.client;
+
+import com.openadr.client.model.Report;
+import com.openadr.client.validation.ValidationUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Submits reports to the VTN in the background
+ *
+ * Producers hand reports to {@link #publish} and return at once; a single
+ * background thread sends them in batches through
+ * {@link OADR3#createReports}. A batch is sent when {@code batchSize} reports
+ * are pending, or when the oldest pending report has waited
+ * {@code flushInterval}, whichever comes first. The next batch is taken only
+ * when the previous one has completed, so a slow VTN fills the queue instead
+ * of multiplying requests.
+ *
+ * A report for the same program, event and client name as one still pending
+ * replaces it in place: only the latest reading is sent, and it keeps the
+ * queue position and age of the first. The queue holds at most
+ * {@code capacity} reports; what happens when it is full depends on the
+ * {@link Overflow} policy.
+ *
+ * Reports are not retried. Every result, success or failure, is passed to
+ * the {@link ResultListener}.
+ */
+public final class ReportPublisher implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(ReportPublisher.class);
+
+    /**
+     * What {@link #publish} does when the queue is full
+     */
+    public enum Overflow {
+        /** Wait until the background thread frees space */
+        BLOCK,
+        /** Discard the oldest pending report to make room */
+        DROP_OLDEST,
+        /** Refuse the new report; {@link #publish} returns false */
+        REJECT
+    }
+
+    /**
+     * Receives the outcome of every submitted report
+     */
+    @FunctionalInterface
+    public interface ResultListener {
+        /**
+         * Called on the publisher's background thread
+         *
+         * @param report The report as it was sent, after coalescing
+         * @param response The VTN's response, or status 0 and a
+         *                 {@code CLIENT_ERROR} problem if the request failed
+         *                 or its response could not be parsed or validated
+         */
+        void onResult(Report report, APIResponse<Report> response);
+    }
+
+    private final OADR3 client;
+    private final int capacity;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final int concurrency;
+    private final Overflow overflow;
+    private final ResultListener listener;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notFull = lock.newCondition();
+    private final Condition flushNeeded = lock.newCondition();
+    private final Condition idle = lock.newCondition();
+    private final LinkedHashMap<Key, Pending> pending = new LinkedHashMap<>();
+    private int inFlight;
+    private boolean flushRequested;
+    private boolean closed;
+    private final Thread flusher;
+
+    private final AtomicLong publishedCount = new AtomicLong();
+    private final AtomicLong coalescedCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private final AtomicLong submittedCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private final AtomicLong latencyTotalNanos = new AtomicLong();
+    private final AtomicLong latencyMaxNanos = new AtomicLong();
+
+    private ReportPublisher(Builder builder) {
+        this.client = builder.client;
+        this.capacity = builder.capacity;
+        this.batchSize = builder.batchSize;
+        this.flushIntervalNanos = builder.flushInterval.toNanos();
+        this.concurrency = builder.concurrency;
+        this.overflow = builder.overflow;
+        this.listener = builder.listener;
+        this.flusher = Thread.ofPlatform().daemon().name("openadr-report-publisher").start(this::run);
+    }
+
+    /**
+     * Creates a builder for a publisher that sends reports with the given client
+     *
+     * @param client The client used to submit reports
+     * @return A new builder
+     */
+    public static Builder builder(OADR3 client) {
+        return new Builder(client);
+    }
+
+    /**
+     * Queues a report for submission. The report is validated on the calling
+     * thread, so invalid reports are refused here rather than failing a batch.
+     *
+     * @param report The report to send
+     * @return true if the report was queued or coalesced, false if the queue
+     *         was full and the overflow policy is {@link Overflow#REJECT}
+     * @throws IllegalArgumentException if the report is null or invalid
+     * @throws IllegalStateException if the publisher is closed
+     * @throws InterruptedException if interrupted while waiting for space
+     *                              under {@link Overflow#BLOCK}
+     */
+    public boolean publish(Report report) throws InterruptedException {
+        if (report == null) {
+            throw new IllegalArgumentException("report cannot be null");
+        }
+        ValidationUtils.validate(report).throwIfInvalid();
+
+        Key key = new Key(report);
+        lock.lockInterruptibly();
+        try {
+            while (true) {
+                if (closed) {
+                    throw new IllegalStateException("publisher is closed");
+                }
+                Pending existing = pending.get(key);
+                if (existing != null) {
+                    existing.report = report;
+                    coalescedCount.incrementAndGet();
+                    return true;
+                }
+                if (pending.size() < capacity) {
+                    break;
+                }
+
+                switch (overflow) {
+                    case BLOCK:
+                        notFull.await();
+                        break;
+                    case DROP_OLDEST:
+                        Iterator<Pending> oldest = pending.values().iterator();
+                        oldest.next();
+                        oldest.remove();
+                        droppedCount.incrementAndGet();
+                        break;
+                    default:
+                        rejectedCount.incrementAndGet();
+                        return false;
+                }
+            }
+
+            pending.put(key, new Pending(report, System.nanoTime()));
+            publishedCount.incrementAndGet();
+            // The first report starts the flush interval; a full batch ends it
+            if (pending.size() == 1 || pending.size() >= batchSize) {
+                flushNeeded.signal();
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Sends the pending reports without waiting for the flush interval, and
+     * waits until the queue is empty and no batch is in flight. Reports
+     * published meanwhile are sent as well.
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void flush() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            if (pending.isEmpty() && inFlight == 0) {
+                return;
+            }
+            flushRequested = true;
+            flushNeeded.signal();
+            while (!pending.isEmpty() || inFlight > 0) {
+                idle.await();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stops accepting reports, sends those still pending and waits for the
+     * background thread to finish. Producers blocked under
+     * {@link Overflow#BLOCK} fail with an {@link IllegalStateException}.
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            flushNeeded.signal();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @return Point-in-time counters for this publisher
+     */
+    public Stats getStats() {
+        int depth;
+        lock.lock();
+        try {
+            depth = pending.size();
+        } finally {
+            lock.unlock();
+        }
+        long completed = submittedCount.get() + failedCount.get();
+        return new Stats(depth, publishedCount.get(), coalescedCount.get(), droppedCount.get(),
+                rejectedCount.get(), submittedCount.get(), failedCount.get(),
+                completed > 0 ? Duration.ofNanos(latencyTotalNanos.get() / completed) : Duration.ZERO,
+                Duration.ofNanos(latencyMaxNanos.get()));
+    }
+
+    private void run() {
+        while (true) {
+            List<Pending> batch = nextBatch();
+            if (batch == null) {
+                return;
+            }
+            send(batch);
+
+            lock.lock();
+            try {
+                inFlight = 0;
+                if (pending.isEmpty()) {
+                    flushRequested = false;
+                    idle.signalAll();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Waits until a batch is due and takes it off the queue
+     *
+     * @return the batch, or null once the publisher is closed and drained
+     */
+    private List<Pending> nextBatch() {
+        lock.lock();
+        try {
+            while (!closed && !flushRequested && pending.size() < batchSize) {
+                if (pending.isEmpty()) {
+                    flushNeeded.awaitUninterruptibly();
+                    continue;
+                }
+                long wait = pending.values().iterator().next().enqueuedAt + flushIntervalNanos - System.nanoTime();
+                if (wait <= 0) {
+                    break;
+                }
+                try {
+                    flushNeeded.awaitNanos(wait);
+                } catch (InterruptedException e) {
+                    // Only close() stops the background thread
+                }
+            }
+            if (pending.isEmpty()) {
+                return null;
+            }
+
+            List<Pending> batch = new ArrayList<>(Math.min(batchSize, pending.size()));
+            Iterator<Pending> it = pending.values().iterator();
+            while (it.hasNext() && batch.size() < batchSize) {
+                batch.add(it.next());
+                it.remove();
+            }
+            inFlight = batch.size();
+            notFull.signalAll();
+            return batch;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void send(List<Pending> batch) {
+        List<Report> reports = new ArrayList<>(batch.size());
+        for (Pending entry : batch) {
+            reports.add(entry.report);
+        }
+
+        List<APIResponse<Report>> results;
+        try {
+            results = client.createReports(reports, concurrency);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Report batch of {} failed: {}", reports.size(), e.getMessage());
+            results = new ArrayList<>(reports.size());
+            for (int i = 0; i < reports.size(); i++) {
+                results.add(BatchSubmitter.failure(e));
+            }
+        }
+
+        long now = System.nanoTime();
+        for (int i = 0; i < batch.size(); i++) {
+            APIResponse<Report> response = results.get(i);
+            long latency = now - batch.get(i).enqueuedAt;
+            latencyTotalNanos.addAndGet(latency);
+            latencyMaxNanos.accumulateAndGet(latency, Math::max);
+            (response.isSuccess() ? submittedCount : failedCount).incrementAndGet();
+            try {
+                listener.onResult(reports.get(i), response);
+            } catch (RuntimeException e) {
+                logger.warn("Report result listener failed", e);
+            }
+        }
+    }
+
+    /**
+     * Coalescing key: reports with the same program, event and client name
+     * supersede each other while pending
+     */
+    private static final class Key {
+        private final String programId;
+        private final String eventId;
+        private final String clientName;
+
+        Key(Report report) {
+            this.programId = report.getProgramId();
+            this.eventId = report.getEventId();
+            this.clientName = report.getClientName();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return Objects.equals(programId, key.programId) && Objects.equals(eventId, key.eventId)
+                    && Objects.equals(clientName, key.clientName);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(programId, eventId, clientName);
+        }
+    }
+
+    private static final class Pending {
+        Report report;
+        final long enqueuedAt;
+
+        Pending(Report report, long enqueuedAt) {
+            this.report = report;
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+
+    /**
+     * Builder for {@link ReportPublisher}
+     */
+    public static final class Builder {
+        private final OADR3 client;
+        private int capacity = 10_000;
+        private int batchSize = 50;
+        private Duration flushInterval = Duration.ofSeconds(1);
+        private int concurrency = 4;
+        private Overflow overflow = Overflow.BLOCK;
+        private ResultListener listener = (report, response) -> {
+            if (response.isError()) {
+                logger.warn("Report for program {} failed: {}", report.getProgramId(), response.getProblem());
+            }
+        };
+
+        private Builder(OADR3 client) {
+            if (client == null) {
+                throw new IllegalArgumentException("client cannot be null");
+            }
+            this.client = client;
+        }
+
+        /**
+         * Sets the maximum number of pending reports (default 10000)
+         */
+        public Builder capacity(int capacity) {
+            if (capacity < 1) {
+                throw new IllegalArgumentException("capacity must be at least 1");
+            }
+            this.capacity = capacity;
+            return this;
+        }
+
+        /**
+         * Sets the number of pending reports that triggers a batch, and the
+         * largest batch sent at once (default 50)
+         */
+        public Builder batchSize(int batchSize) {
+            if (batchSize < 1) {
+                throw new IllegalArgumentException("batchSize must be at least 1");
+            }
+            this.batchSize = batchSize;
+            return this;
+        }
+
+        /**
+         * Sets how long a report may wait for its batch to fill (default 1 second)
+         */
+        public Builder flushInterval(Duration flushInterval) {
+            if (flushInterval == null) {
+                throw new IllegalArgumentException("flushInterval cannot be null");
+            }
+            if (flushInterval.isNegative()) {
+                throw new IllegalArgumentException("flushInterval cannot be negative");
+            }
+            this.flushInterval = flushInterval;
+            return this;
+        }
+
+        /**
+         * Sets the number of requests in flight while a batch is sent (default 4)
+         */
+        public Builder concurrency(int concurrency) {
+            if (concurrency < 1) {
+                throw new IllegalArgumentException("concurrency must be at least 1");
+            }
+            this.concurrency = concurrency;
+            return this;
+        }
+
+        /**
+         * Sets what {@link #publish} does when the queue is full (default {@link Overflow#BLOCK})
+         */
+        public Builder overflow(Overflow overflow) {
+            if (overflow == null) {
+                throw new IllegalArgumentException("overflow cannot be null");
+            }
+            this.overflow = overflow;
+            return this;
+        }
+
+        /**
+         * Sets the listener for submission results. The default logs failures.
+         */
+        public Builder listener(ResultListener listener) {
+            if (listener == null) {
+                throw new IllegalArgumentException("listener cannot be null");
+            }
+            this.listener = listener;
+            return this;
+        }
+
+        /**
+         * Creates the publisher and starts its background thread
+         */
+        public ReportPublisher build() {
+            return new ReportPublisher(this);
+        }
+    }
+
+    /**
+     * Point-in-time counters for a report publisher
+     */
+    public static final class Stats {
+        private final int queueDepth;
+        private final long publishedCount;
+        private final long coalescedCount;
+        private final long droppedCount;
+        private final long rejectedCount;
+        private final long submittedCount;
+        private final long failedCount;
+        private final Duration meanLatency;
+        private final Duration maxLatency;
+
+        Stats(int queueDepth, long publishedCount, long coalescedCount, long droppedCount, long rejectedCount,
+              long submittedCount, long failedCount, Duration meanLatency, Duration maxLatency) {
+            this.queueDepth = queueDepth;
+            this.publishedCount = publishedCount;
+            this.coalescedCount = coalescedCount;
+            this.droppedCount = droppedCount;
+            this.rejectedCount = rejectedCount;
+            this.submittedCount = submittedCount;
+            this.failedCount = failedCount;
+            this.meanLatency = meanLatency;
+            this.maxLatency = maxLatency;
+        }
+
+        /**
+         * @return Number of reports waiting to be sent
+         */
+        public int getQueueDepth() {
+            return queueDepth;
+        }
+
+        /**
+         * @return Number of reports queued, not counting those coalesced into a pending one
+         */
+        public long getPublishedCount() {
+            return publishedCount;
+        }
+
+        /**
+         * @return Number of reports that replaced a pending report with the same key
+         */
+        public long getCoalescedCount() {
+            return coalescedCount;
+        }
+
+        /**
+         * @return Number of pending reports discarded under {@link Overflow#DROP_OLDEST}
+         */
+        public long getDroppedCount() {
+            return droppedCount;
+        }
+
+        /**
+         * @return Number of reports refused under {@link Overflow#REJECT}
+         */
+        public long getRejectedCount() {
+            return rejectedCount;
+        }
+
+        /**
+         * @return Number of reports accepted by the VTN
+         */
+        public long getSubmittedCount() {
+            return submittedCount;
+        }
+
+        /**
+         * @return Number of reports that failed
+         */
+        public long getFailedCount() {
+            return failedCount;
+        }
+
+        /**
+         * @return Mean time from publishing a report to the VTN's answer
+         */
+        public Duration getMeanLatency() {
+            return meanLatency;
+        }
+
+        /**
+         * @return Longest time from publishing a report to the VTN's answer
+         */
+        public Duration getMaxLatency() {
+            return maxLatency;
+        }
+
+        @Override
+        public String toString() {
+            return "Stats{" +
+                    "queueDepth=" + queueDepth +
+                    ", publishedCount=" + publishedCount +
+                    ", coalescedCount=" + coalescedCount +
+                    ", droppedCount=" + droppedCount +
+                    ", rejectedCount=" + rejectedCount +
+                    ", submittedCount=" + submittedCount +
+                    ", failedCount=" + failedCount +
+                    ", meanLatency=" + meanLatency.toMillis() + "ms" +
+                    ", maxLatency=" + maxLatency.toMillis() + "ms" +
+                    '}';
+        }
+    }
+}
@@ -0,0 +1,346 @@
+package com.openadr.client;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * How a client shapes the traffic it sends to the VTN
+ *
+ * Reads (GET) and writes (POST, PUT, DELETE) have separate budgets, so that a
+ * burst of report submissions cannot starve event polling and the reverse.
+ * Each budget combines:
+ *
+ * <ul>
+ * <li>A token bucket: at most {@code rate} requests per second on average,
+ *     with bursts of up to {@code burst} requests. A rate of 0 does not limit
+ *     the request rate.</li>
+ * <li>An adaptive concurrency limit between {@code min} and {@code max}
+ *     requests in flight. It grows by about one request per round trip while
+ *     responses are healthy, and shrinks by {@code backoffRatio} when the VTN
+ *     answers 429 or 503, a request fails, or latency rises above
+ *     {@code latencyTolerance} times the lowest recently observed latency.</li>
+ * </ul>
+ *
+ * A 429 or 503 response carrying {@code Retry-After} pauses both budgets for
+ * the requested time, capped at {@code maxRetryAfter}. Requests that cannot be
+ * sent yet wait in a queue, in order.
+ *
+ * The default, {@link #unlimited()}, sends every request immediately.
+ */
+public final class RequestLimitPolicy {
+    private static final RequestLimitPolicy UNLIMITED = new RequestLimitPolicy(new Builder(), false);
+
+    private final boolean enabled;
+    private final double readRate;
+    private final int readBurst;
+    private final double writeRate;
+    private final int writeBurst;
+    private final int readInitialLimit;
+    private final int readMinLimit;
+    private final int readMaxLimit;
+    private final int writeInitialLimit;
+    private final int writeMinLimit;
+    private final int writeMaxLimit;
+    private final double latencyTolerance;
+    private final double backoffRatio;
+    private final Duration maxRetryAfter;
+
+    private RequestLimitPolicy(Builder builder, boolean enabled) {
+        this.enabled = enabled;
+        this.readRate = builder.readRate;
+        this.readBurst = builder.readBurst;
+        this.writeRate = builder.writeRate;
+        this.writeBurst = builder.writeBurst;
+        this.readInitialLimit = builder.readInitialLimit;
+        this.readMinLimit = builder.readMinLimit;
+        this.readMaxLimit = builder.readMaxLimit;
+        this.writeInitialLimit = builder.writeInitialLimit;
+        this.writeMinLimit = builder.writeMinLimit;
+        this.writeMaxLimit = builder.writeMaxLimit;
+        this.latencyTolerance = builder.latencyTolerance;
+        this.backoffRatio = builder.backoffRatio;
+        this.maxRetryAfter = builder.maxRetryAfter;
+    }
+
+    /**
+     * @return a policy that does not limit requests
+     */
+    public static RequestLimitPolicy unlimited() {
+        return UNLIMITED;
+    }
+
+    /**
+     * @return a policy with adaptive concurrency limits and no rate limit
+     */
+    public static RequestLimitPolicy adaptive() {
+        return builder().build();
+    }
+
+    /**
+     * @return a builder starting from adaptive concurrency limits of 1 to 200
+     *         reads and 1 to 100 writes in flight, and no rate limit
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return false if requests are sent without limits
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return average reads per second, 0 if unlimited
+     */
+    public double getReadRate() {
+        return readRate;
+    }
+
+    /**
+     * @return reads that may be sent at once after an idle period
+     */
+    public int getReadBurst() {
+        return readBurst;
+    }
+
+    /**
+     * @return average writes per second, 0 if unlimited
+     */
+    public double getWriteRate() {
+        return writeRate;
+    }
+
+    /**
+     * @return writes that may be sent at once after an idle period
+     */
+    public int getWriteBurst() {
+        return writeBurst;
+    }
+
+    public int getReadInitialLimit() {
+        return readInitialLimit;
+    }
+
+    public int getReadMinLimit() {
+        return readMinLimit;
+    }
+
+    public int getReadMaxLimit() {
+        return readMaxLimit;
+    }
+
+    public int getWriteInitialLimit() {
+        return writeInitialLimit;
+    }
+
+    public int getWriteMinLimit() {
+        return writeMinLimit;
+    }
+
+    public int getWriteMaxLimit() {
+        return writeMaxLimit;
+    }
+
+    /**
+     * @return the ratio to the lowest observed latency above which a response
+     *         counts as a sign of congestion
+     */
+    public double getLatencyTolerance() {
+        return latencyTolerance;
+    }
+
+    /**
+     * @return the factor applied to a concurrency limit on congestion
+     */
+    public double getBackoffRatio() {
+        return backoffRatio;
+    }
+
+    /**
+     * @return the longest pause accepted from a Retry-After header, zero if
+     *         Retry-After is ignored
+     */
+    public Duration getMaxRetryAfter() {
+        return maxRetryAfter;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        RequestLimitPolicy that = (RequestLimitPolicy) o;
+        return enabled == that.enabled &&
+                Double.compare(readRate, that.readRate) == 0 &&
+                readBurst == that.readBurst &&
+                Double.compare(writeRate, that.writeRate) == 0 &&
+                writeBurst == that.writeBurst &&
+                readInitialLimit == that.readInitialLimit &&
+                readMinLimit == that.readMinLimit &&
+                readMaxLimit == that.readMaxLimit &&
+                writeInitialLimit == that.writeInitialLimit &&
+                writeMinLimit == that.writeMinLimit &&
+                writeMaxLimit == that.writeMaxLimit &&
+                Double.compare(latencyTolerance, that.latencyTolerance) == 0 &&
+                Double.compare(backoffRatio, that.backoffRatio) == 0 &&
+                Objects.equals(maxRetryAfter, that.maxRetryAfter);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(enabled, readRate, readBurst, writeRate, writeBurst,
+                readInitialLimit, readMinLimit, readMaxLimit, writeInitialLimit, writeMinLimit, writeMaxLimit,
+                latencyTolerance, backoffRatio, maxRetryAfter);
+    }
+
+    @Override
+    public String toString() {
+        if (!enabled) {
+            return "RequestLimitPolicy{unlimited}";
+        }
+        return "RequestLimitPolicy{" +
+                "readRate=" + readRate +
+                ", readBurst=" + readBurst +
+                ", writeRate=" + writeRate +
+                ", writeBurst=" + writeBurst +
+                ", readLimit=" + readMinLimit + ".." + readInitialLimit + ".." + readMaxLimit +
+                ", writeLimit=" + writeMinLimit + ".." + writeInitialLimit + ".." + writeMaxLimit +
+                ", latencyTolerance=" + latencyTolerance +
+                ", backoffRatio=" + backoffRatio +
+                ", maxRetryAfter=" + maxRetryAfter +
+                '}';
+    }
+
+    /**
+     * Builder for {@link RequestLimitPolicy}
+     */
+    public static final class Builder {
+        private double readRate;
+        private int readBurst = 1;
+        private double writeRate;
+        private int writeBurst = 1;
+        private int readInitialLimit = 20;
+        private int readMinLimit = 1;
+        private int readMaxLimit = 200;
+        private int writeInitialLimit = 10;
+        private int writeMinLimit = 1;
+        private int writeMaxLimit = 100;
+        private double latencyTolerance = 2.0;
+        private double backoffRatio = 0.9;
+        private Duration maxRetryAfter = Duration.ofMinutes(1);
+
+        private Builder() {
+        }
+
+        /**
+         * @param requestsPerSecond Average GET requests per second; 0 for no limit
+         * @param burst Requests that may be sent at once after an idle period
+         */
+        public Builder readRate(double requestsPerSecond, int burst) {
+            requireRate(requestsPerSecond, burst);
+            this.readRate = requestsPerSecond;
+            this.readBurst = burst;
+            return this;
+        }
+
+        /**
+         * @param requestsPerSecond Average POST, PUT and DELETE requests per second; 0 for no limit
+         * @param burst Requests that may be sent at once after an idle period
+         */
+        public Builder writeRate(double requestsPerSecond, int burst) {
+            requireRate(requestsPerSecond, burst);
+            this.writeRate = requestsPerSecond;
+            this.writeBurst = burst;
+            return this;
+        }
+
+        /**
+         * @param initial GET requests allowed in flight before any response is seen
+         * @param min Lowest limit the adaptation may reach
+         * @param max Highest limit the adaptation may reach; equal to {@code min}
+         *            for a fixed limit
+         */
+        public Builder readConcurrency(int initial, int min, int max) {
+            requireLimits(initial, min, max);
+            this.readInitialLimit = initial;
+            this.readMinLimit = min;
+            this.readMaxLimit = max;
+            return this;
+        }
+
+        /**
+         * @param initial POST, PUT and DELETE requests allowed in flight before
+         *                any response is seen
+         * @param min Lowest limit the adaptation may reach
+         * @param max Highest limit the adaptation may reach; equal to {@code min}
+         *            for a fixed limit
+         */
+        public Builder writeConcurrency(int initial, int min, int max) {
+            requireLimits(initial, min, max);
+            this.writeInitialLimit = initial;
+            this.writeMinLimit = min;
+            this.writeMaxLimit = max;
+            return this;
+        }
+
+        /**
+         * @param latencyTolerance Ratio to the lowest observed latency above
+         *                         which a response counts as congestion; must be
+         *                         greater than 1
+         */
+        public Builder latencyTolerance(double latencyTolerance) {
+            if (!(latencyTolerance > 1)) {
+                throw new IllegalArgumentException("latencyTolerance must be greater than 1");
+            }
+            this.latencyTolerance = latencyTolerance;
+            return this;
+        }
+
+        /**
+         * @param backoffRatio Factor applied to a concurrency limit on
+         *                     congestion, between 0 and 1 exclusive
+         */
+        public Builder backoffRatio(double backoffRatio) {
+            if (!(backoffRatio > 0 && backoffRatio < 1)) {
+                throw new IllegalArgumentException("backoffRatio must be between 0 and 1");
+            }
+            this.backoffRatio = backoffRatio;
+            return this;
+        }
+
+        /**
+         * @param maxRetryAfter Longest pause accepted from a Retry-After header;
+         *                      zero ignores Retry-After
+         */
+        public Builder maxRetryAfter(Duration maxRetryAfter) {
+            if (maxRetryAfter == null || maxRetryAfter.isNegative()) {
+                throw new IllegalArgumentException("maxRetryAfter cannot be null or negative");
+            }
+            this.maxRetryAfter = maxRetryAfter;
+            return this;
+        }
+
+        public RequestLimitPolicy build() {
+            return new RequestLimitPolicy(this, true);
+        }
+
+        private static void requireRate(double requestsPerSecond, int burst) {
+            if (!(requestsPerSecond >= 0) || Double.isInfinite(requestsPerSecond)) {
+                throw new IllegalArgumentException("requestsPerSecond cannot be negative");
+            }
+            if (burst < 1) {
+                throw new IllegalArgumentException("burst must be at least 1");
+            }
+        }
+
+        private static void requireLimits(int initial, int min, int max) {
+            if (min < 1) {
+                throw new IllegalArgumentException("min must be at least 1");
+            }
+            if (initial < min || initial > max) {
+                throw new IllegalArgumentException("initial must be between min and max");
+            }
+        }
+    }
+}
@@ -0,0 +1,551 @@
+package com.openadr.client;
+
+import com.openadr.client.transport.HttpResponse;
+
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Limits the rate and concurrency of the requests sent to one VTN, as
+ * configured by a {@link RequestLimitPolicy}
+ *
+ * Every request takes a permit from the read or write budget before it is
+ * sent and returns it when the response headers arrive or the request fails.
+ * The outcome adjusts the budget's concurrency limit. Requests waiting for a
+ * permit are granted one in order; asynchronous requests wait without
+ * blocking a thread.
+ *
+ * Clients created from the same {@link OADR3Runtime} with the same base URL
+ * share one limiter, so the budgets apply to the VTN as a whole.
+ */
+public final class RequestLimiter {
+    private static final Permit UNLIMITED_PERMIT = new Permit(null, 0, 0);
+    private static final CompletableFuture<Permit> UNLIMITED_GRANT = CompletableFuture.completedFuture(UNLIMITED_PERMIT);
+
+    private final RequestLimitPolicy policy;
+    private final Budget read;
+    private final Budget write;
+    private final AtomicLong pausedUntil = new AtomicLong(System.nanoTime());
+
+    RequestLimiter(RequestLimitPolicy policy) {
+        this.policy = policy;
+        this.read = new Budget(policy.getReadRate(), policy.getReadBurst(),
+                policy.getReadInitialLimit(), policy.getReadMinLimit(), policy.getReadMaxLimit());
+        this.write = new Budget(policy.getWriteRate(), policy.getWriteBurst(),
+                policy.getWriteInitialLimit(), policy.getWriteMinLimit(), policy.getWriteMaxLimit());
+    }
+
+    /**
+     * @return the policy this limiter applies
+     */
+    public RequestLimitPolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * @return false if requests are sent without limits
+     */
+    public boolean isEnabled() {
+        return policy.isEnabled();
+    }
+
+    /**
+     * Waits for a permit on the calling thread
+     *
+     * @param isWrite true for POST, PUT and DELETE requests
+     */
+    Permit acquire(boolean isWrite) throws InterruptedIOException {
+        CompletableFuture<Permit> grant = acquireAsync(isWrite);
+        try {
+            return grant.get();
+        } catch (InterruptedException e) {
+            if (!grant.cancel(false) && !grant.isCompletedExceptionally()) {
+                // Granted concurrently with the interrupt; return the permit
+                grant.join().cancel();
+            }
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a request permit");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * @param isWrite true for POST, PUT and DELETE requests
+     * @return a future completed with a permit once the request may be sent;
+     *         cancelling it gives up the place in the queue
+     */
+    CompletableFuture<Permit> acquireAsync(boolean isWrite) {
+        if (!policy.isEnabled()) {
+            return UNLIMITED_GRANT;
+        }
+        return (isWrite ? write : read).enqueue();
+    }
+
+    /**
+     * @return Point-in-time counters of the read budget
+     */
+    public Stats getReadStats() {
+        return read.stats();
+    }
+
+    /**
+     * @return Point-in-time counters of the write budget
+     */
+    public Stats getWriteStats() {
+        return write.stats();
+    }
+
+    /**
+     * Pauses both budgets for the time requested by a 429 or 503 response
+     */
+    private void pause(String retryAfter) {
+        Duration delay = parseRetryAfter(retryAfter);
+        if (delay == null || delay.isZero() || delay.isNegative()) {
+            return;
+        }
+        if (delay.compareTo(policy.getMaxRetryAfter()) > 0) {
+            delay = policy.getMaxRetryAfter();
+        }
+        long until = System.nanoTime() + delay.toNanos();
+        pausedUntil.accumulateAndGet(until, (current, next) -> next - current > 0 ? next : current);
+        read.pauseCount.incrementAndGet();
+        write.pauseCount.incrementAndGet();
+    }
+
+    /**
+     * Parses a Retry-After value, either delay-seconds or an HTTP date
+     *
+     * @return the delay, or null if the value is missing or malformed
+     */
+    static Duration parseRetryAfter(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        value = value.trim();
+        try {
+            return Duration.ofSeconds(Long.parseLong(value));
+        } catch (NumberFormatException e) {
+            // Not delay-seconds, try an HTTP date
+        }
+        try {
+            ZonedDateTime date = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME);
+            return Duration.between(ZonedDateTime.now(date.getZone()), date);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Permission to send one request, returned with {@link #release}
+     */
+    static final class Permit {
+        private final Budget budget;
+        private final long grantedAt;
+        private final int inFlightAtGrant;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(Budget budget, long grantedAt, int inFlightAtGrant) {
+            this.budget = budget;
+            this.grantedAt = grantedAt;
+            this.inFlightAtGrant = inFlightAtGrant;
+        }
+
+        /**
+         * Returns the permit with the outcome of the request: the response,
+         * whose status and headers are read but which is not closed, or the
+         * error it failed with
+         */
+        void release(HttpResponse response, Throwable error) {
+            if (budget == null || !released.compareAndSet(false, true)) {
+                return;
+            }
+            long latency = System.nanoTime() - grantedAt;
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (cause instanceof CancellationException) {
+                budget.complete(this, -1, false, false);
+            } else if (cause != null) {
+                budget.complete(this, latency, true, false);
+            } else {
+                int status = response.getStatus();
+                boolean throttled = status == 429 || status == 503;
+                if (throttled) {
+                    budget.limiter().pause(response.getHeader("Retry-After"));
+                }
+                budget.complete(this, latency, throttled, throttled);
+            }
+        }
+
+        /**
+         * Returns a permit whose request was never sent
+         */
+        void cancel() {
+            if (budget != null && released.compareAndSet(false, true)) {
+                budget.refund();
+            }
+        }
+    }
+
+    /**
+     * A token bucket and an AIMD concurrency limit, with the queue of
+     * requests waiting for them
+     */
+    private final class Budget {
+        private final double rate;
+        private final int burst;
+        private final int minLimit;
+        private final int maxLimit;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final ArrayDeque<Waiter> queue = new ArrayDeque<>();
+        private double tokens;
+        private long refilledAt = System.nanoTime();
+        private double limit;
+        private int inFlight;
+        private long minLatency;
+        private long lastDecrease = refilledAt;
+        private boolean timerPending;
+        private final AtomicLong grantedCount = new AtomicLong();
+        private final AtomicLong queuedCount = new AtomicLong();
+        private final AtomicLong queueNanos = new AtomicLong();
+        private final AtomicLong maxQueueNanos = new AtomicLong();
+        private final AtomicLong throttledCount = new AtomicLong();
+        private final AtomicLong decreaseCount = new AtomicLong();
+        private final AtomicLong pauseCount = new AtomicLong();
+
+        Budget(double rate, int burst, int initialLimit, int minLimit, int maxLimit) {
+            this.rate = rate;
+            this.burst = burst;
+            this.tokens = burst;
+            this.limit = initialLimit;
+            this.minLimit = minLimit;
+            this.maxLimit = maxLimit;
+        }
+
+        RequestLimiter limiter() {
+            return RequestLimiter.this;
+        }
+
+        CompletableFuture<Permit> enqueue() {
+            Waiter waiter = new Waiter(System.nanoTime());
+            lock.lock();
+            try {
+                queue.add(waiter);
+            } finally {
+                lock.unlock();
+            }
+            waiter.grant.whenComplete((permit, error) -> {
+                if (waiter.grant.isCancelled()) {
+                    lock.lock();
+                    try {
+                        queue.remove(waiter);
+                    } finally {
+                        lock.unlock();
+                    }
+                }
+            });
+            dispatch();
+            if (!waiter.grant.isDone()) {
+                queuedCount.incrementAndGet();
+            }
+            return waiter.grant;
+        }
+
+        /**
+         * Grants permits to waiting requests while the limits allow. When the
+         * budget is paused or out of tokens, a timer dispatches again once it
+         * can grant the next permit; returned permits dispatch directly.
+         */
+        void dispatch() {
+            List<Waiter> granted = new ArrayList<>();
+            List<Permit> permits = new ArrayList<>();
+            lock.lock();
+            try {
+                long now = System.nanoTime();
+                long delay = 0;
+                while (!queue.isEmpty() && inFlight < (int) limit) {
+                    long paused = pausedUntil.get() - now;
+                    if (paused > 0) {
+                        delay = paused;
+                        break;
+                    }
+                    if (rate > 0) {
+                        tokens = Math.min(burst, tokens + (now - refilledAt) * rate / 1e9);
+                        refilledAt = now;
+                        if (tokens < 1) {
+                            delay = Math.max(1, (long) ((1 - tokens) / rate * 1e9));
+                            break;
+                        }
+                        tokens -= 1;
+                    }
+                    Waiter waiter = queue.poll();
+                    permits.add(new Permit(this, now, inFlight));
+                    granted.add(waiter);
+                    inFlight++;
+                }
+                if (delay > 0 && !timerPending) {
+                    timerPending = true;
+                    CompletableFuture.delayedExecutor(delay, TimeUnit.NANOSECONDS).execute(this::onTimer);
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            for (int i = 0; i < granted.size(); i++) {
+                Waiter waiter = granted.get(i);
+                Permit permit = permits.get(i);
+                long waited = permit.grantedAt - waiter.enqueuedAt;
+                if (waiter.grant.complete(permit)) {
+                    grantedCount.incrementAndGet();
+                    queueNanos.addAndGet(waited);
+                    maxQueueNanos.accumulateAndGet(waited, Math::max);
+                } else {
+                    permit.cancel();
+                }
+            }
+        }
+
+        private void onTimer() {
+            lock.lock();
+            try {
+                timerPending = false;
+            } finally {
+                lock.unlock();
+            }
+            dispatch();
+        }
+
+        /**
+         * Records the outcome of a request and adapts the concurrency limit:
+         * additive increase on success while the limit is in use,
+         * multiplicative decrease at most once per round trip on congestion.
+         * A negative latency returns the permit of a cancelled request
+         * without adapting the limit.
+         */
+        void complete(Permit permit, long latency, boolean congested, boolean throttled) {
+            if (throttled) {
+                throttledCount.incrementAndGet();
+            }
+            lock.lock();
+            try {
+                inFlight--;
+                if (latency >= 0) {
+                    adapt(permit, latency, congested);
+                }
+            } finally {
+                lock.unlock();
+            }
+            dispatch();
+        }
+
+        private void adapt(Permit permit, long latency, boolean congested) {
+            if (!congested && minLatency > 0 && latency > minLatency * policy.getLatencyTolerance()) {
+                congested = true;
+            }
+            if (minLatency == 0 || latency < minLatency) {
+                minLatency = latency;
+            } else {
+                // Let the baseline drift up slowly so that it follows a VTN
+                // whose latency has permanently changed
+                minLatency += (latency - minLatency) >> 12;
+            }
+            if (congested) {
+                if (permit.grantedAt - lastDecrease >= 0) {
+                    limit = Math.max(minLimit, limit * policy.getBackoffRatio());
+                    lastDecrease = System.nanoTime();
+                    decreaseCount.incrementAndGet();
+                }
+            } else if (permit.inFlightAtGrant * 2 >= (int) limit) {
+                limit = Math.min(maxLimit, limit + 1 / limit);
+            }
+        }
+
+        /**
+         * Returns an unused permit and its token
+         */
+        void refund() {
+            lock.lock();
+            try {
+                inFlight--;
+                if (rate > 0) {
+                    tokens = Math.min(burst, tokens + 1);
+                }
+            } finally {
+                lock.unlock();
+            }
+            dispatch();
+        }
+
+        Stats stats() {
+            int limit;
+            int inFlight;
+            int queued;
+            lock.lock();
+            try {
+                limit = (int) this.limit;
+                inFlight = this.inFlight;
+                queued = queue.size();
+            } finally {
+                lock.unlock();
+            }
+            long granted = grantedCount.get();
+            long paused = Math.max(0, pausedUntil.get() - System.nanoTime());
+            return new Stats(limit, inFlight, queued, granted, queuedCount.get(),
+                    granted > 0 ? Duration.ofNanos(queueNanos.get() / granted) : Duration.ZERO,
+                    Duration.ofNanos(maxQueueNanos.get()), throttledCount.get(), decreaseCount.get(),
+                    pauseCount.get(), Duration.ofNanos(paused));
+        }
+    }
+
+    /**
+     * A request waiting for a permit
+     */
+    private static final class Waiter {
+        private final long enqueuedAt;
+        private final CompletableFuture<Permit> grant = new CompletableFuture<>();
+
+        Waiter(long enqueuedAt) {
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+
+    /**
+     * Point-in-time counters for one budget of a request limiter
+     */
+    public static final class Stats {
+        private final int limit;
+        private final int inFlight;
+        private final int queueDepth;
+        private final long grantedCount;
+        private final long queuedCount;
+        private final Duration meanQueueTime;
+        private final Duration maxQueueTime;
+        private final long throttledCount;
+        private final long limitDecreaseCount;
+        private final long pauseCount;
+        private final Duration pausedFor;
+
+        Stats(int limit, int inFlight, int queueDepth, long grantedCount, long queuedCount,
+              Duration meanQueueTime, Duration maxQueueTime, long throttledCount, long limitDecreaseCount,
+              long pauseCount, Duration pausedFor) {
+            this.limit = limit;
+            this.inFlight = inFlight;
+            this.queueDepth = queueDepth;
+            this.grantedCount = grantedCount;
+            this.queuedCount = queuedCount;
+            this.meanQueueTime = meanQueueTime;
+            this.maxQueueTime = maxQueueTime;
+            this.throttledCount = throttledCount;
+            this.limitDecreaseCount = limitDecreaseCount;
+            this.pauseCount = pauseCount;
+            this.pausedFor = pausedFor;
+        }
+
+        /**
+         * @return Current concurrency limit
+         */
+        public int getLimit() {
+            return limit;
+        }
+
+        /**
+         * @return Number of requests sent and not yet answered
+         */
+        public int getInFlight() {
+            return inFlight;
+        }
+
+        /**
+         * @return Number of requests waiting for a permit
+         */
+        public int getQueueDepth() {
+            return queueDepth;
+        }
+
+        /**
+         * @return Number of permits granted
+         */
+        public long getGrantedCount() {
+            return grantedCount;
+        }
+
+        /**
+         * @return Number of requests that had to wait for a permit
+         */
+        public long getQueuedCount() {
+            return queuedCount;
+        }
+
+        /**
+         * @return Mean time between asking for a permit and getting it, over all permits
+         */
+        public Duration getMeanQueueTime() {
+            return meanQueueTime;
+        }
+
+        /**
+         * @return Longest time a request waited for a permit
+         */
+        public Duration getMaxQueueTime() {
+            return maxQueueTime;
+        }
+
+        /**
+         * @return Number of 429 and 503 responses
+         */
+        public long getThrottledCount() {
+            return throttledCount;
+        }
+
+        /**
+         * @return Number of times the concurrency limit was lowered
+         */
+        public long getLimitDecreaseCount() {
+            return limitDecreaseCount;
+        }
+
+        /**
+         * @return Number of Retry-After pauses
+         */
+        public long getPauseCount() {
+            return pauseCount;
+        }
+
+        /**
+         * @return Remaining time of the current Retry-After pause, zero if none
+         */
+        public Duration getPausedFor() {
+            return pausedFor;
+        }
+
+        @Override
+        public String toString() {
+            return "Stats{" +
+                    "limit=" + limit +
+                    ", inFlight=" + inFlight +
+                    ", queueDepth=" + queueDepth +
+                    ", grantedCount=" + grantedCount +
+                    ", queuedCount=" + queuedCount +
+                    ", meanQueueTime=" + meanQueueTime.toMillis() + "ms" +
+                    ", maxQueueTime=" + maxQueueTime.toMillis() + "ms" +
+                    ", throttledCount=" + throttledCount +
+                    ", limitDecreaseCount=" + limitDecreaseCount +
+                    ", pauseCount=" + pauseCount +
+                    ", pausedFor=" + pausedFor.toMillis() + "ms" +
+                    '}';
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.openadr.client;
+
+import com.openadr.client.transport.HttpRequest;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Precomputed parts of a client's authenticated requests for one HTTP method
+ *
+ * The method, the base URL and the constant headers are fixed when the client
+ * is created, so building a request only appends the path to the base URL.
+ * The header map is immutable and shared by every request sent with the same
+ * token; {@link HttpRequest} keeps such maps as they are instead of copying
+ * them. A new map is built only when the token changes.
+ */
+final class RequestTemplate {
+    static final String JSON = "application/json; charset=utf-8";
+
+    private final String method;
+    private final String baseUrl;
+    private final boolean hasBody;
+    private final Authorization authorization;
+
+    private RequestTemplate(String method, String baseUrl, boolean hasBody, Authorization authorization) {
+        this.method = method;
+        this.baseUrl = baseUrl;
+        this.hasBody = hasBody;
+        this.authorization = authorization;
+    }
+
+    /**
+     * Creates the GET template of a client
+     */
+    static RequestTemplate get(String baseUrl) {
+        return new RequestTemplate("GET", baseUrl, false, new Authorization());
+    }
+
+    /**
+     * @return a template for another method of the same client, sharing the
+     *         cached Authorization headers
+     */
+    RequestTemplate forMethod(String method, boolean hasBody) {
+        return new RequestTemplate(method, baseUrl, hasBody, authorization);
+    }
+
+    String getMethod() {
+        return method;
+    }
+
+    /**
+     * Builds a request for the given path, relative to the base URL
+     *
+     * @param body The serialized JSON body, or null for none
+     * @param extraHeaders Additional headers; usually empty
+     */
+    HttpRequest newRequest(String path, String token, byte[] body, Map<String, String> extraHeaders) {
+        if (body != null && !hasBody) {
+            throw new IllegalArgumentException("Unsupported method with body: " + method);
+        }
+
+        Map<String, String> headers = authorization.headers(token, body != null);
+        if (!extraHeaders.isEmpty()) {
+            Map<String, String> merged = new HashMap<>(headers);
+            merged.putAll(extraHeaders);
+            headers = Map.copyOf(merged);
+        }
+        return new HttpRequest(method, baseUrl + path, headers, body);
+    }
+
+    /**
+     * Copies a request with a different bearer token
+     */
+    HttpRequest withToken(HttpRequest request, String token) {
+        return request.withHeader("Authorization", authorization.value(token));
+    }
+
+    /**
+     * Header maps for the current token, with and without a JSON body
+     */
+    private static final class Authorization {
+        private volatile Headers current;
+
+        Map<String, String> headers(String token, boolean json) {
+            Headers headers = current;
+            // Tokens come from the token manager, which hands out the same instance until it refreshes
+            if (headers == null || headers.token != token) {
+                headers = new Headers(token);
+                current = headers;
+            }
+            return json ? headers.json : headers.plain;
+        }
+
+        String value(String token) {
+            Headers headers = current;
+            return headers != null && headers.token == token ? headers.value : "Bearer " + token;
+        }
+    }
+
+    private static final class Headers {
+        final String token;
+        final String value;
+        final Map<String, String> plain;
+        final Map<String, String> json;
+
+        Headers(String token) {
+            this.token = token;
+            this.value = "Bearer " + token;
+            this.plain = Map.of("Authorization", value, "Accept", "application/json");
+            this.json = Map.of("Authorization", value, "Accept", "application/json", "Content-Type", JSON);
+        }
+    }
+}
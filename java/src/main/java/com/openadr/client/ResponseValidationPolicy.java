@@ -0,0 +1,151 @@
+package com.openadr.client;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * How a client validates the entities returned by the VTN
+ *
+ * Request bodies and arguments are always validated. Response entities are
+ * validated according to one of these modes:
+ *
+ * <ul>
+ * <li>{@link Mode#STRICT}: every entity is validated and a violation fails the
+ *     call with an {@link IllegalArgumentException}. This is the default.</li>
+ * <li>{@link Mode#SAMPLED}: one entity in every {@code n} is validated, and a
+ *     violation fails the call as in strict mode.</li>
+ * <li>{@link Mode#ASYNC}: entities are returned without waiting for validation,
+ *     which runs on a background executor and reports violations to a
+ *     {@link ViolationListener}. Calls never fail on invalid responses.</li>
+ * <li>{@link Mode#OFF}: responses are not validated.</li>
+ * </ul>
+ *
+ * In every mode the outcome is counted in the client's
+ * {@link ResponseValidator.Stats}.
+ */
+public final class ResponseValidationPolicy {
+    /**
+     * Response validation mode
+     */
+    public enum Mode {
+        /** Validate every entity on the calling thread */
+        STRICT,
+        /** Validate one entity in every n on the calling thread */
+        SAMPLED,
+        /** Validate every entity on a background executor */
+        ASYNC,
+        /** Do not validate responses */
+        OFF
+    }
+
+    /**
+     * Receives the violations found by asynchronous validation
+     */
+    @FunctionalInterface
+    public interface ViolationListener {
+        /**
+         * Called on the validation executor for every invalid entity
+         *
+         * @param entity The invalid entity, which has already been returned to the caller
+         * @param errorMessage The violations, as reported by
+         *                     {@link com.openadr.client.validation.ValidationUtils#validate}
+         */
+        void onViolation(Object entity, String errorMessage);
+    }
+
+    private static final ResponseValidationPolicy STRICT = new ResponseValidationPolicy(Mode.STRICT, 1, null, null);
+    private static final ResponseValidationPolicy OFF = new ResponseValidationPolicy(Mode.OFF, 0, null, null);
+
+    private final Mode mode;
+    private final int sampleRate;
+    private final Executor executor;
+    private final ViolationListener listener;
+
+    private ResponseValidationPolicy(Mode mode, int sampleRate, Executor executor, ViolationListener listener) {
+        this.mode = mode;
+        this.sampleRate = sampleRate;
+        this.executor = executor;
+        this.listener = listener;
+    }
+
+    /**
+     * @return a policy that validates every response entity before returning it
+     */
+    public static ResponseValidationPolicy strict() {
+        return STRICT;
+    }
+
+    /**
+     * @param sampleRate Validate one response entity in every {@code sampleRate};
+     *                   1 is equivalent to {@link #strict()}
+     * @return a policy that validates a deterministic sample of response entities
+     */
+    public static ResponseValidationPolicy sampled(int sampleRate) {
+        if (sampleRate < 1) {
+            throw new IllegalArgumentException("sampleRate must be at least 1");
+        }
+        return new ResponseValidationPolicy(Mode.SAMPLED, sampleRate, null, null);
+    }
+
+    /**
+     * Validates responses on the common fork-join pool
+     *
+     * @param listener Receives every violation
+     * @return a policy that validates response entities in the background
+     */
+    public static ResponseValidationPolicy async(ViolationListener listener) {
+        return async(ForkJoinPool.commonPool(), listener);
+    }
+
+    /**
+     * @param executor Runs the validation of each response
+     * @param listener Receives every violation
+     * @return a policy that validates response entities in the background
+     */
+    public static ResponseValidationPolicy async(Executor executor, ViolationListener listener) {
+        if (executor == null) {
+            throw new IllegalArgumentException("executor cannot be null");
+        }
+        if (listener == null) {
+            throw new IllegalArgumentException("listener cannot be null");
+        }
+        return new ResponseValidationPolicy(Mode.ASYNC, 1, executor, listener);
+    }
+
+    /**
+     * @return a policy that does not validate responses
+     */
+    public static ResponseValidationPolicy off() {
+        return OFF;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * @return one in how many entities is validated, 0 when validation is off
+     */
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    /**
+     * @return the executor for asynchronous validation, null for other modes
+     */
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * @return the listener for asynchronous validation, null for other modes
+     */
+    public ViolationListener getListener() {
+        return listener;
+    }
+
+    @Override
+    public String toString() {
+        return mode == Mode.SAMPLED ? "SAMPLED(1/" + sampleRate + ")" : mode.name();
+    }
+}
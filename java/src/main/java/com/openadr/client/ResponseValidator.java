@@ -0,0 +1,182 @@
+package com.openadr.client;
+
+import com.openadr.client.validation.ValidationUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Applies a client's {@link ResponseValidationPolicy} to response entities
+ *
+ * Every entity returned by the VTN, whether in a list, a single-entity
+ * response, a streaming search or a {@link DeltaSync} cycle, passes through
+ * here. The counters show how much of the traffic was actually validated and
+ * how many violations were found, including those found in the background.
+ */
+public final class ResponseValidator {
+    private static final Logger logger = LoggerFactory.getLogger(ResponseValidator.class);
+
+    private final ResponseValidationPolicy policy;
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLong validated = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    private final AtomicLong violations = new AtomicLong();
+
+    ResponseValidator(ResponseValidationPolicy policy) {
+        this.policy = policy;
+    }
+
+    /**
+     * @return the policy this validator applies
+     */
+    public ResponseValidationPolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * @return a snapshot of the validation counters
+     */
+    public Stats getStats() {
+        return new Stats(validated.get(), skipped.get(), violations.get());
+    }
+
+    /**
+     * Validates one response entity according to the policy
+     *
+     * @throws IllegalArgumentException if the entity is checked on the calling
+     *         thread and is invalid
+     */
+    void validate(Object entity) {
+        switch (policy.getMode()) {
+            case STRICT:
+                check(entity).throwIfInvalid();
+                break;
+            case SAMPLED:
+                if (sequence.getAndIncrement() % policy.getSampleRate() == 0) {
+                    check(entity).throwIfInvalid();
+                } else {
+                    skipped.incrementAndGet();
+                }
+                break;
+            case ASYNC:
+                submit(() -> checkAndReport(entity), 1);
+                break;
+            default:
+                skipped.incrementAndGet();
+        }
+    }
+
+    /**
+     * Validates a single-object response payload
+     */
+    <T> APIResponse<T> validateOne(APIResponse<T> response) {
+        if (response.isSuccess() && response.getResponse() != null) {
+            validate(response.getResponse());
+        }
+        return response;
+    }
+
+    /**
+     * Validates the elements of a list response payload. In asynchronous mode
+     * the whole page is validated by a single background task.
+     */
+    <T> APIResponse<List<T>> validateList(APIResponse<List<T>> response) {
+        if (!response.isSuccess() || response.getResponse() == null) {
+            return response;
+        }
+
+        if (policy.getMode() == ResponseValidationPolicy.Mode.ASYNC) {
+            // Copy so that the caller is free to modify the returned list
+            Object[] entities = response.getResponse().toArray();
+            submit(() -> {
+                for (Object entity : entities) {
+                    checkAndReport(entity);
+                }
+            }, entities.length);
+        } else {
+            for (T item : response.getResponse()) {
+                validate(item);
+            }
+        }
+        return response;
+    }
+
+    private ValidationUtils.ValidationResult check(Object entity) {
+        ValidationUtils.ValidationResult result = ValidationUtils.validate(entity);
+        validated.incrementAndGet();
+        if (!result.isValid()) {
+            violations.incrementAndGet();
+        }
+        return result;
+    }
+
+    private void checkAndReport(Object entity) {
+        ValidationUtils.ValidationResult result = check(entity);
+        if (result.isValid()) {
+            return;
+        }
+        try {
+            policy.getListener().onViolation(entity, result.getErrorMessage());
+        } catch (RuntimeException e) {
+            logger.warn("Response validation listener failed", e);
+        }
+    }
+
+    private void submit(Runnable task, int entityCount) {
+        try {
+            policy.getExecutor().execute(task);
+        } catch (RejectedExecutionException e) {
+            skipped.addAndGet(entityCount);
+            logger.debug("Response validation executor rejected {} entities", entityCount);
+        }
+    }
+
+    /**
+     * Point-in-time counters for a response validator
+     */
+    public static final class Stats {
+        private final long validatedCount;
+        private final long skippedCount;
+        private final long violationCount;
+
+        Stats(long validatedCount, long skippedCount, long violationCount) {
+            this.validatedCount = validatedCount;
+            this.skippedCount = skippedCount;
+            this.violationCount = violationCount;
+        }
+
+        /**
+         * @return Number of response entities checked, including background checks that have finished
+         */
+        public long getValidatedCount() {
+            return validatedCount;
+        }
+
+        /**
+         * @return Number of response entities not checked because of sampling, the
+         *         policy being off, or the validation executor rejecting them
+         */
+        public long getSkippedCount() {
+            return skippedCount;
+        }
+
+        /**
+         * @return Number of checked entities that were invalid
+         */
+        public long getViolationCount() {
+            return violationCount;
+        }
+
+        @Override
+        public String toString() {
+            return "Stats{" +
+                    "validatedCount=" + validatedCount +
+                    ", skippedCount=" + skippedCount +
+                    ", violationCount=" + violationCount +
+                    '}';
+        }
+    }
+}
@@ -0,0 +1,486 @@
+package com.openadr.client;
+
+import com.openadr.client.transport.HttpResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Retries and hedges a client's idempotent requests, as configured by a
+ * {@link RetryPolicy}
+ *
+ * Each attempt is a complete request, including its permit from the
+ * {@link RequestLimiter} and the 401 token refresh. The retry budget and the
+ * GET latencies that set the hedge delay are kept per client.
+ */
+public final class Retrier {
+    private static final Logger logger = LoggerFactory.getLogger(Retrier.class);
+
+    private static final long CREDIT = 1_000_000;
+    private static final int LATENCY_WINDOW = 1024;
+    private static final int MIN_LATENCY_SAMPLES = 32;
+    private static final int LATENCY_REFRESH = 64;
+
+    private final RetryPolicy policy;
+    private final long depositCredits;
+    private final long reserveCredits;
+    private final AtomicLong balance;
+    private final long[] latencies = new long[LATENCY_WINDOW];
+    private long latencyCount;
+    private volatile long hedgeDelayNanos = -1;
+    private final AtomicLong retryCount = new AtomicLong();
+    private final AtomicLong budgetExhaustedCount = new AtomicLong();
+    private final AtomicLong hedgeCount = new AtomicLong();
+    private final AtomicLong hedgeWinCount = new AtomicLong();
+
+    Retrier(RetryPolicy policy) {
+        this.policy = policy;
+        this.depositCredits = (long) (policy.getBudgetRatio() * CREDIT);
+        this.reserveCredits = policy.getBudgetReserve() * CREDIT;
+        this.balance = new AtomicLong(reserveCredits);
+    }
+
+    /**
+     * One attempt of a blocking request
+     */
+    @FunctionalInterface
+    interface Attempt {
+        HttpResponse send() throws IOException;
+    }
+
+    /**
+     * @return the policy this retrier applies
+     */
+    public RetryPolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * @return true if requests with this method are hedged, which takes the
+     *         asynchronous path even for blocking calls
+     */
+    boolean isHedged(String method) {
+        return policy.isHedging() && "GET".equals(method);
+    }
+
+    /**
+     * Sends a blocking request, retrying it on the calling thread
+     */
+    HttpResponse execute(String method, Attempt attempt) throws IOException {
+        if (!isRetried(method)) {
+            return attempt.send();
+        }
+
+        deposit();
+        for (int n = 1; ; n++) {
+            HttpResponse response;
+            try {
+                response = attempt.send();
+            } catch (IOException e) {
+                if (isInterruption(e)) {
+                    throw e;
+                }
+                long delay = retryDelay(n, null);
+                if (delay < 0) {
+                    throw e;
+                }
+                logger.debug("{} request failed with {}, retrying in {}ms", method, e.toString(), delay / 1_000_000);
+                sleep(delay);
+                continue;
+            }
+
+            if (!isRetryable(response.getStatus())) {
+                return response;
+            }
+            long delay = retryDelay(n, response.getHeader("Retry-After"));
+            if (delay < 0) {
+                return response;
+            }
+            logger.debug("{} request answered {}, retrying in {}ms", method, response.getStatus(), delay / 1_000_000);
+            response.close();
+            sleep(delay);
+        }
+    }
+
+    /**
+     * Sends an asynchronous request, retrying it from a timer and hedging it
+     * if it is a GET. Cancelling the returned future cancels the attempt in
+     * flight and any pending retry.
+     */
+    CompletableFuture<HttpResponse> executeAsync(String method, Supplier<CompletableFuture<HttpResponse>> attempt) {
+        boolean hedged = isHedged(method);
+        if (!hedged && !isRetried(method)) {
+            return attempt.get();
+        }
+
+        deposit();
+        Supplier<CompletableFuture<HttpResponse>> send = hedged ? () -> hedge(attempt) : attempt;
+        if (policy.getMaxAttempts() == 1) {
+            return send.get();
+        }
+        return new Run(method, send).start();
+    }
+
+    /**
+     * Waits for a request sent by {@link #executeAsync}
+     */
+    static HttpResponse await(CompletableFuture<HttpResponse> call) throws IOException {
+        try {
+            return call.get();
+        } catch (InterruptedException e) {
+            call.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for response");
+        } catch (ExecutionException e) {
+            Throwable cause = unwrap(e.getCause());
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * @return Point-in-time counters for retries and hedges
+     */
+    public Stats getStats() {
+        long delay = hedgeDelayNanos;
+        return new Stats(retryCount.get(), budgetExhaustedCount.get(), hedgeCount.get(), hedgeWinCount.get(),
+                balance.get() / (double) CREDIT, delay >= 0 ? Duration.ofNanos(delay) : Duration.ZERO);
+    }
+
+    private boolean isRetried(String method) {
+        return policy.getMaxAttempts() > 1
+                && ("GET".equals(method) || "PUT".equals(method) || "DELETE".equals(method));
+    }
+
+    private static boolean isRetryable(int status) {
+        return status == 408 || status == 429 || status == 502 || status == 503 || status == 504;
+    }
+
+    /**
+     * @return true if the request failed because the calling thread was
+     *         interrupted, as opposed to a socket timeout
+     */
+    private static boolean isInterruption(IOException e) {
+        return e.getClass() == InterruptedIOException.class || Thread.currentThread().isInterrupted();
+    }
+
+    /**
+     * Decides whether attempt {@code n} is retried and takes a retry from the
+     * budget if it is
+     *
+     * @param retryAfter The response's Retry-After header, or null
+     * @return the wait in nanoseconds before the next attempt, or -1 to give up
+     */
+    private long retryDelay(int n, String retryAfter) {
+        if (n >= policy.getMaxAttempts()) {
+            return -1;
+        }
+        long max = policy.getMaxBackoff().toNanos();
+        long cap = policy.getInitialBackoff().toNanos();
+        for (int i = 1; i < n && cap < max; i++) {
+            cap <<= 1;
+        }
+        cap = Math.min(cap, max);
+        long delay = ThreadLocalRandom.current().nextLong(cap + 1);
+        Duration requested = RequestLimiter.parseRetryAfter(retryAfter);
+        if (requested != null) {
+            if (requested.compareTo(policy.getMaxBackoff()) > 0) {
+                return -1;
+            }
+            delay = Math.max(delay, requested.toNanos());
+        }
+        if (!withdraw()) {
+            return -1;
+        }
+        retryCount.incrementAndGet();
+        return delay;
+    }
+
+    private void deposit() {
+        if (depositCredits > 0) {
+            balance.accumulateAndGet(depositCredits, (current, credits) -> Math.min(current + credits, reserveCredits));
+        }
+    }
+
+    private boolean withdraw() {
+        long current;
+        do {
+            current = balance.get();
+            if (current < CREDIT) {
+                budgetExhaustedCount.incrementAndGet();
+                return false;
+            }
+        } while (!balance.compareAndSet(current, current - CREDIT));
+        return true;
+    }
+
+    private static void sleep(long nanos) throws InterruptedIOException {
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting to retry");
+        }
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    /**
+     * Sends a GET and, if it is still unanswered after the hedge delay, sends
+     * it again. The first response wins and the other call is cancelled; the
+     * future fails only when every call has failed. Until enough latencies
+     * have been observed, GETs are not hedged.
+     */
+    private CompletableFuture<HttpResponse> hedge(Supplier<CompletableFuture<HttpResponse>> attempt) {
+        CompletableFuture<HttpResponse> first = timed(attempt);
+        long delay = hedgeDelayNanos;
+        if (delay < 0 || first.isDone()) {
+            return first;
+        }
+
+        CompletableFuture<HttpResponse> result = new CompletableFuture<>();
+        AtomicReference<CompletableFuture<HttpResponse>> second = new AtomicReference<>();
+        AtomicInteger pending = new AtomicInteger(1);
+        first.whenComplete((response, error) -> settle(result, second.get(), pending, response, error, false));
+        CompletableFuture.delayedExecutor(delay, TimeUnit.NANOSECONDS).execute(() -> {
+            if (result.isDone() || !withdraw()) {
+                return;
+            }
+            hedgeCount.incrementAndGet();
+            pending.incrementAndGet();
+            CompletableFuture<HttpResponse> hedge = timed(attempt);
+            second.set(hedge);
+            hedge.whenComplete((response, error) -> settle(result, first, pending, response, error, true));
+        });
+        result.whenComplete((response, error) -> {
+            if (result.isCancelled()) {
+                first.cancel(true);
+                CompletableFuture<HttpResponse> hedge = second.get();
+                if (hedge != null) {
+                    hedge.cancel(true);
+                }
+            }
+        });
+        return result;
+    }
+
+    private void settle(CompletableFuture<HttpResponse> result, CompletableFuture<HttpResponse> other,
+                        AtomicInteger pending, HttpResponse response, Throwable error, boolean isHedge) {
+        if (error == null) {
+            if (result.complete(response)) {
+                if (isHedge) {
+                    hedgeWinCount.incrementAndGet();
+                }
+                if (other != null) {
+                    other.cancel(true);
+                }
+            } else {
+                response.close();
+            }
+        } else if (pending.decrementAndGet() == 0) {
+            result.completeExceptionally(unwrap(error));
+        }
+    }
+
+    /**
+     * Starts one call and records its latency for the hedge delay
+     */
+    private CompletableFuture<HttpResponse> timed(Supplier<CompletableFuture<HttpResponse>> attempt) {
+        long start = System.nanoTime();
+        CompletableFuture<HttpResponse> call = attempt.get();
+        call.whenComplete((response, error) -> {
+            if (error == null) {
+                recordLatency(System.nanoTime() - start);
+            }
+        });
+        return call;
+    }
+
+    /**
+     * Keeps the most recent GET latencies and recomputes the hedge delay
+     * from them every {@value #LATENCY_REFRESH} samples
+     */
+    private void recordLatency(long nanos) {
+        synchronized (latencies) {
+            latencies[(int) (latencyCount++ % LATENCY_WINDOW)] = nanos;
+            if (latencyCount < MIN_LATENCY_SAMPLES || latencyCount % LATENCY_REFRESH != 0 && hedgeDelayNanos >= 0) {
+                return;
+            }
+            long[] sorted = Arrays.copyOf(latencies, (int) Math.min(latencyCount, LATENCY_WINDOW));
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(policy.getHedgePercentile() / 100 * sorted.length) - 1;
+            hedgeDelayNanos = Math.max(policy.getMinHedgeDelay().toNanos(), sorted[Math.max(0, index)]);
+        }
+    }
+
+    /**
+     * The attempts of one asynchronous request
+     */
+    private final class Run {
+        private final String method;
+        private final Supplier<CompletableFuture<HttpResponse>> send;
+        private final CompletableFuture<HttpResponse> result = new CompletableFuture<>();
+        private final AtomicReference<CompletableFuture<HttpResponse>> current = new AtomicReference<>();
+
+        Run(String method, Supplier<CompletableFuture<HttpResponse>> send) {
+            this.method = method;
+            this.send = send;
+        }
+
+        CompletableFuture<HttpResponse> start() {
+            result.whenComplete((response, error) -> {
+                CompletableFuture<HttpResponse> call = current.get();
+                if (result.isCancelled() && call != null) {
+                    call.cancel(true);
+                }
+            });
+            attempt(1);
+            return result;
+        }
+
+        private void attempt(int n) {
+            if (result.isDone()) {
+                return;
+            }
+            CompletableFuture<HttpResponse> call;
+            try {
+                call = send.get();
+            } catch (RuntimeException e) {
+                call = CompletableFuture.failedFuture(e);
+            }
+            current.set(call);
+            if (result.isCancelled()) {
+                call.cancel(true);
+            }
+            call.whenComplete((response, error) -> onComplete(n, response, error));
+        }
+
+        private void onComplete(int n, HttpResponse response, Throwable error) {
+            if (result.isDone()) {
+                if (response != null) {
+                    response.close();
+                }
+                return;
+            }
+
+            long delay;
+            if (error != null) {
+                Throwable cause = unwrap(error);
+                delay = cause instanceof IOException ? retryDelay(n, null) : -1;
+                if (delay < 0) {
+                    result.completeExceptionally(cause);
+                    return;
+                }
+                logger.debug("{} request failed with {}, retrying in {}ms", method, cause.toString(), delay / 1_000_000);
+            } else {
+                delay = isRetryable(response.getStatus()) ? retryDelay(n, response.getHeader("Retry-After")) : -1;
+                if (delay < 0) {
+                    if (!result.complete(response)) {
+                        response.close();
+                    }
+                    return;
+                }
+                logger.debug("{} request answered {}, retrying in {}ms", method, response.getStatus(), delay / 1_000_000);
+                response.close();
+            }
+            CompletableFuture.delayedExecutor(delay, TimeUnit.NANOSECONDS).execute(() -> attempt(n + 1));
+        }
+    }
+
+    /**
+     * Point-in-time counters for retries and hedges
+     */
+    public static final class Stats {
+        private final long retryCount;
+        private final long budgetExhaustedCount;
+        private final long hedgeCount;
+        private final long hedgeWinCount;
+        private final double budget;
+        private final Duration hedgeDelay;
+
+        Stats(long retryCount, long budgetExhaustedCount, long hedgeCount, long hedgeWinCount,
+              double budget, Duration hedgeDelay) {
+            this.retryCount = retryCount;
+            this.budgetExhaustedCount = budgetExhaustedCount;
+            this.hedgeCount = hedgeCount;
+            this.hedgeWinCount = hedgeWinCount;
+            this.budget = budget;
+            this.hedgeDelay = hedgeDelay;
+        }
+
+        /**
+         * @return Number of retries sent
+         */
+        public long getRetryCount() {
+            return retryCount;
+        }
+
+        /**
+         * @return Number of retries and hedges not sent because the budget was empty
+         */
+        public long getBudgetExhaustedCount() {
+            return budgetExhaustedCount;
+        }
+
+        /**
+         * @return Number of hedged GET requests sent
+         */
+        public long getHedgeCount() {
+            return hedgeCount;
+        }
+
+        /**
+         * @return Number of hedged GET requests answered before the original
+         */
+        public long getHedgeWinCount() {
+            return hedgeWinCount;
+        }
+
+        /**
+         * @return Retries and hedges currently available in the budget
+         */
+        public double getBudget() {
+            return budget;
+        }
+
+        /**
+         * @return Current delay before a GET is hedged, zero until enough
+         *         latencies have been observed
+         */
+        public Duration getHedgeDelay() {
+            return hedgeDelay;
+        }
+
+        @Override
+        public String toString() {
+            return "Stats{" +
+                    "retryCount=" + retryCount +
+                    ", budgetExhaustedCount=" + budgetExhaustedCount +
+                    ", hedgeCount=" + hedgeCount +
+                    ", hedgeWinCount=" + hedgeWinCount +
+                    ", budget=" + budget +
+                    ", hedgeDelay=" + hedgeDelay.toMillis() + "ms" +
+                    '}';
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package com.openadr.client;
+
+import java.time.Duration;
+
+/**
+ * How a client retries and hedges idempotent requests
+ *
+ * GET, PUT and DELETE requests that fail with an I/O error or are answered
+ * 408, 429, 502, 503 or 504 are sent again, up to {@code maxAttempts} times in
+ * total. POST requests are never retried. Before each retry the client waits
+ * a random time between zero and an exponentially growing backoff, so that
+ * clients failing together do not retry together; a {@code Retry-After}
+ * header lengthens the wait, and a response asking for more than the maximum
+ * backoff is returned as is.
+ *
+ * Retries are limited by a budget: every GET, PUT or DELETE request adds
+ * {@code budgetRatio} of a retry to it, up to {@code budgetReserve} retries,
+ * and every retry takes one. A VTN that fails every request therefore sees at most
+ * {@code budgetRatio} extra requests per request instead of
+ * {@code maxAttempts} times the load.
+ *
+ * With hedging enabled, a GET that has not been answered after the given
+ * percentile of recent GET latencies is sent a second time, and the first
+ * response wins. Hedges are drawn from the same budget.
+ *
+ * The default, {@link #none()}, sends every request once.
+ */
+public final class RetryPolicy {
+    private static final RetryPolicy NONE = builder().maxAttempts(1).build();
+
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final double budgetRatio;
+    private final int budgetReserve;
+    private final double hedgePercentile;
+    private final Duration minHedgeDelay;
+
+    private RetryPolicy(Builder builder) {
+        this.maxAttempts = builder.maxAttempts;
+        this.initialBackoff = builder.initialBackoff;
+        this.maxBackoff = builder.maxBackoff;
+        this.budgetRatio = builder.budgetRatio;
+        this.budgetReserve = builder.budgetReserve;
+        this.hedgePercentile = builder.hedgePercentile;
+        this.minHedgeDelay = builder.minHedgeDelay;
+    }
+
+    /**
+     * @return a policy that sends every request once
+     */
+    public static RetryPolicy none() {
+        return NONE;
+    }
+
+    /**
+     * @return a builder starting from 3 attempts with backoff from 50ms to 2s,
+     *         a budget of 1 retry per 5 requests with a reserve of 10, and
+     *         no hedging
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return the number of times a request may be sent, including the first
+     */
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * @return the upper bound of the wait before the first retry
+     */
+    public Duration getInitialBackoff() {
+        return initialBackoff;
+    }
+
+    /**
+     * @return the upper bound of the wait before any retry
+     */
+    public Duration getMaxBackoff() {
+        return maxBackoff;
+    }
+
+    /**
+     * @return retries added to the budget by every request
+     */
+    public double getBudgetRatio() {
+        return budgetRatio;
+    }
+
+    /**
+     * @return the most retries the budget can hold
+     */
+    public int getBudgetReserve() {
+        return budgetReserve;
+    }
+
+    /**
+     * @return true if GET requests are hedged
+     */
+    public boolean isHedging() {
+        return hedgePercentile > 0;
+    }
+
+    /**
+     * @return the percentile of recent GET latencies after which a GET is
+     *         hedged, 0 if hedging is disabled
+     */
+    public double getHedgePercentile() {
+        return hedgePercentile;
+    }
+
+    /**
+     * @return the shortest time a GET waits before it is hedged
+     */
+    public Duration getMinHedgeDelay() {
+        return minHedgeDelay;
+    }
+
+    @Override
+    public String toString() {
+        return "RetryPolicy{" +
+                "maxAttempts=" + maxAttempts +
+                ", initialBackoff=" + initialBackoff +
+                ", maxBackoff=" + maxBackoff +
+                ", budgetRatio=" + budgetRatio +
+                ", budgetReserve=" + budgetReserve +
+                ", hedgePercentile=" + hedgePercentile +
+                ", minHedgeDelay=" + minHedgeDelay +
+                '}';
+    }
+
+    /**
+     * Builder for {@link RetryPolicy}
+     */
+    public static final class Builder {
+        private int maxAttempts = 3;
+        private Duration initialBackoff = Duration.ofMillis(50);
+        private Duration maxBackoff = Duration.ofSeconds(2);
+        private double budgetRatio = 0.2;
+        private int budgetReserve = 10;
+        private double hedgePercentile;
+        private Duration minHedgeDelay = Duration.ofMillis(10);
+
+        private Builder() {
+        }
+
+        /**
+         * @param maxAttempts Number of times a request may be sent, including
+         *                    the first; 1 disables retries
+         */
+        public Builder maxAttempts(int maxAttempts) {
+            if (maxAttempts < 1) {
+                throw new IllegalArgumentException("maxAttempts must be at least 1");
+            }
+            this.maxAttempts = maxAttempts;
+            return this;
+        }
+
+        /**
+         * @param initial Upper bound of the wait before the first retry,
+         *                doubled for every further retry
+         * @param max Upper bound of the wait before any retry
+         */
+        public Builder backoff(Duration initial, Duration max) {
+            if (initial == null || initial.isNegative() || initial.isZero()) {
+                throw new IllegalArgumentException("initial must be positive");
+            }
+            if (max == null || max.compareTo(initial) < 0) {
+                throw new IllegalArgumentException("max cannot be less than initial");
+            }
+            this.initialBackoff = initial;
+            this.maxBackoff = max;
+            return this;
+        }
+
+        /**
+         * @param ratio Retries added to the budget by every request, such as
+         *              0.2 for one retry per five requests
+         * @param reserve Most retries the budget can hold, which is also what
+         *                it holds initially
+         */
+        public Builder retryBudget(double ratio, int reserve) {
+            if (!(ratio >= 0) || Double.isInfinite(ratio)) {
+                throw new IllegalArgumentException("ratio cannot be negative");
+            }
+            if (reserve < 1) {
+                throw new IllegalArgumentException("reserve must be at least 1");
+            }
+            this.budgetRatio = ratio;
+            this.budgetReserve = reserve;
+            return this;
+        }
+
+        /**
+         * Enables hedged GET requests
+         *
+         * @param percentile Percentile of recent GET latencies after which a
+         *                   second request is sent, such as 95
+         * @param minDelay Shortest time to wait before hedging
+         */
+        public Builder hedgeGets(double percentile, Duration minDelay) {
+            if (!(percentile > 0 && percentile < 100)) {
+                throw new IllegalArgumentException("percentile must be between 0 and 100");
+            }
+            if (minDelay == null || minDelay.isNegative()) {
+                throw new IllegalArgumentException("minDelay cannot be null or negative");
+            }
+            this.hedgePercentile = percentile;
+            this.minHedgeDelay = minDelay;
+            return this;
+        }
+
+        public RetryPolicy build() {
+            return new RetryPolicy(this);
+        }
+    }
+}
@@ -0,0 +1,288 @@
+package com.openadr.client;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Coalesces identical GET requests that are in flight at the same time
+ *
+ * The first caller for a request path sends the request; callers asking for
+ * the same path before it completes wait for that request instead of sending
+ * their own. The first caller receives the parsed and validated response and
+ * every other caller a copy of it, so no two callers share model objects;
+ * failures are shared as is. Nothing is kept once the request completes, so
+ * this is not a cache: a call that starts afterwards sends a new request.
+ *
+ * Each client has its own instance, so requests are only coalesced with
+ * others made with the same credentials. An asynchronous caller that cancels
+ * its future stops waiting; the request itself is cancelled once the last
+ * waiter has cancelled, and callers arriving after that send a new request.
+ */
+public final class SingleFlight {
+    private final boolean enabled;
+    private final Map<String, Flight> flights = new ConcurrentHashMap<>();
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong mergedCount = new AtomicLong();
+
+    SingleFlight(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * A blocking request
+     */
+    @FunctionalInterface
+    interface Call<T> {
+        T call() throws IOException;
+    }
+
+    /**
+     * @return true if identical concurrent requests are coalesced
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Runs a blocking request on the calling thread, or waits for the
+     * identical request already in flight
+     *
+     * @param copy Copies the response for callers that joined the request
+     */
+    <T> T execute(String key, Call<T> call, UnaryOperator<T> copy) throws IOException {
+        if (!enabled) {
+            requestCount.incrementAndGet();
+            return call.call();
+        }
+
+        Flight flight = new Flight(key);
+        Flight existing;
+        while ((existing = flights.putIfAbsent(key, flight)) != null) {
+            if (existing.enter()) {
+                mergedCount.incrementAndGet();
+                return existing.await(copy);
+            }
+            // Every waiter cancelled it, and it is being removed
+            flights.remove(key, existing);
+        }
+
+        requestCount.incrementAndGet();
+        try {
+            T value = call.call();
+            flight.complete(value, null);
+            return value;
+        } catch (IOException | RuntimeException | Error e) {
+            flight.complete(null, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Starts an asynchronous request, or joins the identical request already
+     * in flight
+     *
+     * @param copy Copies the response for callers that joined the request
+     */
+    <T> CompletableFuture<T> executeAsync(String key, Supplier<CompletableFuture<T>> call, UnaryOperator<T> copy) {
+        if (!enabled) {
+            requestCount.incrementAndGet();
+            return call.get();
+        }
+
+        Flight flight = new Flight(key);
+        Flight existing;
+        while ((existing = flights.putIfAbsent(key, flight)) != null) {
+            if (existing.enter()) {
+                mergedCount.incrementAndGet();
+                return existing.join(copy);
+            }
+            flights.remove(key, existing);
+        }
+
+        requestCount.incrementAndGet();
+        CompletableFuture<T> waiter = flight.join(UnaryOperator.identity());
+        CompletableFuture<T> started;
+        try {
+            started = call.get();
+        } catch (RuntimeException e) {
+            started = CompletableFuture.failedFuture(e);
+        }
+        flight.call = started;
+        if (flight.waiters.get() == 0) {
+            // Every waiter cancelled before the call was published
+            started.cancel(true);
+        }
+        started.whenComplete(flight::complete);
+        return waiter;
+    }
+
+    /**
+     * @return Point-in-time counters for request coalescing
+     */
+    public Stats getStats() {
+        return new Stats(requestCount.get(), mergedCount.get(), flights.size());
+    }
+
+    /**
+     * One request in flight and the callers waiting for it
+     */
+    private final class Flight {
+        private final String key;
+        private final CompletableFuture<Object> result = new CompletableFuture<>();
+        // Starts at one for the caller that sends the request; zero means
+        // every waiter cancelled and the flight can no longer be joined
+        private final AtomicInteger waiters = new AtomicInteger(1);
+        private volatile CompletableFuture<?> call;
+
+        Flight(String key) {
+            this.key = key;
+        }
+
+        /**
+         * Completes every waiter. The flight is removed first, so callers
+         * arriving from now on send a new request.
+         */
+        void complete(Object value, Throwable error) {
+            flights.remove(key, this);
+            if (error != null) {
+                result.completeExceptionally(error);
+            } else {
+                result.complete(value);
+            }
+        }
+
+        /**
+         * Registers another waiter
+         *
+         * @return false if every earlier waiter has cancelled, so the request
+         *         is being cancelled and must not be joined
+         */
+        boolean enter() {
+            int count;
+            do {
+                count = waiters.get();
+                if (count == 0) {
+                    return false;
+                }
+            } while (!waiters.compareAndSet(count, count + 1));
+            return true;
+        }
+
+        /**
+         * @return a dependent future of the result, passed through
+         *         {@code copy}, that the caller may cancel without affecting
+         *         the other waiters
+         */
+        @SuppressWarnings("unchecked")
+        <T> CompletableFuture<T> join(UnaryOperator<T> copy) {
+            CompletableFuture<T> waiter = result.thenApply(value -> {
+                try {
+                    return copy.apply((T) value);
+                } catch (UncheckedIOException e) {
+                    throw new CompletionException(e.getCause());
+                }
+            });
+            waiter.whenComplete((value, error) -> {
+                if (waiter.isCancelled() && waiters.decrementAndGet() == 0) {
+                    flights.remove(key, this);
+                    CompletableFuture<?> inFlight = call;
+                    if (inFlight != null) {
+                        inFlight.cancel(true);
+                    }
+                }
+            });
+            return waiter;
+        }
+
+        /**
+         * Waits for the result on the calling thread and returns a copy of
+         * it. Blocking waiters cannot cancel, so they keep the request alive.
+         */
+        @SuppressWarnings("unchecked")
+        <T> T await(UnaryOperator<T> copy) throws IOException {
+            T value;
+            try {
+                value = (T) result.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for an identical request to " + key);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof CompletionException && cause.getCause() != null) {
+                    cause = cause.getCause();
+                }
+                if (cause instanceof IOException) {
+                    throw (IOException) cause;
+                }
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw new IOException(cause);
+            }
+            try {
+                return copy.apply(value);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    /**
+     * Point-in-time counters for request coalescing
+     */
+    public static final class Stats {
+        private final long requestCount;
+        private final long mergedCount;
+        private final int inFlightCount;
+
+        Stats(long requestCount, long mergedCount, int inFlightCount) {
+            this.requestCount = requestCount;
+            this.mergedCount = mergedCount;
+            this.inFlightCount = inFlightCount;
+        }
+
+        /**
+         * @return Number of GET requests sent
+         */
+        public long getRequestCount() {
+            return requestCount;
+        }
+
+        /**
+         * @return Number of calls served by an identical request already in
+         *         flight instead of sending their own
+         */
+        public long getMergedCount() {
+            return mergedCount;
+        }
+
+        /**
+         * @return Number of distinct GET requests in flight
+         */
+        public int getInFlightCount() {
+            return inFlightCount;
+        }
+
+        @Override
+        public String toString() {
+            return "Stats{" +
+                    "requestCount=" + requestCount +
+                    ", mergedCount=" + mergedCount +
+                    ", inFlightCount=" + inFlightCount +
+                    '}';
+        }
+    }
+}
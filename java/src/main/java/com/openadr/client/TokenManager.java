@@ -0,0 +1,187 @@
+package com.openadr.client;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Caches an OAuth2 access token and coordinates its renewal
+ *
+ * Reads of a valid token are a single volatile load with no locking. Renewal is
+ * single-flight: however many callers find the token missing or stale, only one
+ * token request is made and every caller waits on the same future. Once a token
+ * has used three quarters of its lifetime, the next read starts a background
+ * refresh and keeps returning the current token, so active clients never wait
+ * for a token at rollover.
+ */
+final class TokenManager {
+    private static final Logger logger = LoggerFactory.getLogger(TokenManager.class);
+
+    /** Safety margin before expiry after which a token is no longer handed out */
+    private static final long EXPIRY_SKEW_MILLIS = 30000;
+
+    private final Supplier<CompletableFuture<Token>> fetcher;
+    private final AtomicReference<Token> current = new AtomicReference<>();
+    private final AtomicReference<CompletableFuture<Token>> inFlight = new AtomicReference<>();
+
+    /**
+     * @param fetcher Requests a new token from the authorization server
+     */
+    TokenManager(Supplier<CompletableFuture<Token>> fetcher) {
+        this.fetcher = fetcher;
+    }
+
+    /**
+     * Gets a valid token, blocking only if no usable token is cached
+     */
+    String getToken() throws IOException {
+        Token token = usableToken();
+        if (token != null) {
+            return token.value;
+        }
+
+        try {
+            return refresh().get().value;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for OAuth2 token");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * Gets a valid token without blocking the calling thread
+     */
+    CompletableFuture<String> getTokenAsync() {
+        Token token = usableToken();
+        if (token != null) {
+            return CompletableFuture.completedFuture(token.value);
+        }
+        return refresh().thenApply(t -> t.value);
+    }
+
+    /**
+     * Discards the cached token if it is still the given value, typically
+     * after the VTN rejected it with a 401. Concurrent callers rejected with
+     * the same token only invalidate it once.
+     */
+    void invalidate(String rejectedToken) {
+        Token token = current.get();
+        if (token != null && token.value.equals(rejectedToken)) {
+            current.compareAndSet(token, null);
+            logger.debug("Invalidated rejected OAuth2 access token");
+        }
+    }
+
+    /**
+     * Returns the cached token if it can be handed out, starting a background
+     * refresh when it is past its refresh point
+     */
+    private Token usableToken() {
+        Token token = current.get();
+        if (token == null) {
+            return null;
+        }
+
+        long now = System.currentTimeMillis();
+        if (now >= token.staleAt) {
+            return null;
+        }
+        if (now >= token.refreshAt) {
+            refresh().exceptionally(error -> {
+                logger.warn("Background OAuth2 token refresh failed: {}", error.getMessage());
+                return null;
+            });
+        }
+        return token;
+    }
+
+    /**
+     * Starts a token request, or joins the one already in flight
+     */
+    private CompletableFuture<Token> refresh() {
+        while (true) {
+            CompletableFuture<Token> running = inFlight.get();
+            if (running != null) {
+                return running;
+            }
+
+            CompletableFuture<Token> mine = new CompletableFuture<>();
+            if (!inFlight.compareAndSet(null, mine)) {
+                continue;
+            }
+
+            CompletableFuture<Token> request;
+            try {
+                request = fetcher.get();
+            } catch (RuntimeException e) {
+                request = CompletableFuture.failedFuture(e);
+            }
+            request.whenComplete((token, error) -> {
+                if (token != null) {
+                    current.set(token);
+                }
+                // Clear before completing so later callers see the new token
+                inFlight.compareAndSet(mine, null);
+                if (error != null) {
+                    mine.completeExceptionally(error instanceof CompletionException
+                            && error.getCause() != null ? error.getCause() : error);
+                } else {
+                    mine.complete(token);
+                }
+            });
+            return mine;
+        }
+    }
+
+    /**
+     * An access token with its renewal deadlines
+     */
+    static final class Token {
+        private final String value;
+        private final long refreshAt;
+        private final long staleAt;
+
+        private Token(String value, long refreshAt, long staleAt) {
+            this.value = value;
+            this.refreshAt = refreshAt;
+            this.staleAt = staleAt;
+        }
+
+        /**
+         * Creates a token obtained at the given time
+         *
+         * @param value The access token
+         * @param expiresInSeconds Lifetime reported by the authorization server
+         * @param obtainedAt Time the token was requested, in epoch milliseconds
+         */
+        static Token of(String value, long expiresInSeconds, long obtainedAt) {
+            if (value == null || value.isEmpty()) {
+                throw new IllegalArgumentException("access_token missing from token response");
+            }
+            long lifetime = Math.max(0, expiresInSeconds) * 1000L;
+            long staleAt = obtainedAt + lifetime - Math.min(EXPIRY_SKEW_MILLIS, lifetime / 10);
+            long refreshAt = Math.min(obtainedAt + lifetime * 3 / 4, staleAt);
+            return new Token(value, refreshAt, staleAt);
+        }
+
+        String getValue() {
+            return value;
+        }
+    }
+}
@@ -0,0 +1,320 @@
+package com.openadr.client;
+
+import java.time.Duration;
+
+/**
+ * HTTP transport settings for an {@link OADR3Runtime}
+ *
+ * The backend defaults to OkHttp when it is on the classpath and to the JDK
+ * HTTP client otherwise.
+ *
+ * The defaults match the client's historical behavior: 30 second connect and
+ * write timeouts, a 60 second read timeout, at most 64 concurrent asynchronous
+ * requests of which 5 may target the same host (blocking requests are only
+ * limited by the calling threads), and a pool of 5 idle connections kept for
+ * 5 minutes. Gateways that fan out many concurrent requests to one VTN will
+ * usually want to raise {@code maxRequestsPerHost} and the pool size, or use
+ * {@link #highThroughput()}.
+ */
+public final class TransportProfile {
+    /**
+     * HTTP protocol selection
+     */
+    public enum Protocol {
+        /** HTTP/1.1 only */
+        HTTP_1_1,
+        /** Prefer HTTP/2, negotiated over TLS with ALPN, falling back to HTTP/1.1 */
+        HTTP_2,
+        /**
+         * Cleartext HTTP/2 without negotiation (h2c prior knowledge). Only for
+         * local stand-ins and test VTNs that are known to speak HTTP/2.
+         */
+        H2_PRIOR_KNOWLEDGE
+    }
+
+    /**
+     * HTTP client implementation
+     */
+    public enum Backend {
+        /** OkHttp, the default when it is on the classpath */
+        OKHTTP,
+        /**
+         * The JDK's {@code java.net.http.HttpClient} with virtual threads.
+         * Does not need OkHttp, Okio or the Kotlin standard library.
+         */
+        JDK
+    }
+
+    private static final Backend DEFAULT_BACKEND = isOkHttpAvailable() ? Backend.OKHTTP : Backend.JDK;
+    private static final TransportProfile DEFAULTS = builder().build();
+
+    private final Backend backend;
+    private final Protocol protocol;
+    private final Duration connectTimeout;
+    private final Duration readTimeout;
+    private final Duration writeTimeout;
+    private final int maxRequests;
+    private final int maxRequestsPerHost;
+    private final int maxIdleConnections;
+    private final Duration keepAlive;
+    private final int sendBufferSize;
+    private final int receiveBufferSize;
+
+    private TransportProfile(Builder builder) {
+        this.backend = builder.backend;
+        this.protocol = builder.protocol;
+        this.connectTimeout = builder.connectTimeout;
+        this.readTimeout = builder.readTimeout;
+        this.writeTimeout = builder.writeTimeout;
+        this.maxRequests = builder.maxRequests;
+        this.maxRequestsPerHost = builder.maxRequestsPerHost;
+        this.maxIdleConnections = builder.maxIdleConnections;
+        this.keepAlive = builder.keepAlive;
+        this.sendBufferSize = builder.sendBufferSize;
+        this.receiveBufferSize = builder.receiveBufferSize;
+    }
+
+    /**
+     * @return the default transport profile
+     */
+    public static TransportProfile defaults() {
+        return DEFAULTS;
+    }
+
+    /**
+     * @return a profile for high fan-out to a single VTN: HTTP/2 preferred,
+     *         up to 256 concurrent requests per host and a pool of 64 connections
+     */
+    public static TransportProfile highThroughput() {
+        return builder()
+                .protocol(Protocol.HTTP_2)
+                .maxRequests(256)
+                .maxRequestsPerHost(256)
+                .maxIdleConnections(64)
+                .build();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    private static boolean isOkHttpAvailable() {
+        try {
+            Class.forName("okhttp3.OkHttpClient", false, TransportProfile.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    /**
+     * @return a builder initialized with this profile's settings
+     */
+    public Builder toBuilder() {
+        return new Builder()
+                .backend(backend)
+                .protocol(protocol)
+                .connectTimeout(connectTimeout)
+                .readTimeout(readTimeout)
+                .writeTimeout(writeTimeout)
+                .maxRequests(maxRequests)
+                .maxRequestsPerHost(maxRequestsPerHost)
+                .maxIdleConnections(maxIdleConnections)
+                .keepAlive(keepAlive)
+                .sendBufferSize(sendBufferSize)
+                .receiveBufferSize(receiveBufferSize);
+    }
+
+    public Backend getBackend() {
+        return backend;
+    }
+
+    public Protocol getProtocol() {
+        return protocol;
+    }
+
+    public Duration getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    public Duration getReadTimeout() {
+        return readTimeout;
+    }
+
+    public Duration getWriteTimeout() {
+        return writeTimeout;
+    }
+
+    public int getMaxRequests() {
+        return maxRequests;
+    }
+
+    public int getMaxRequestsPerHost() {
+        return maxRequestsPerHost;
+    }
+
+    public int getMaxIdleConnections() {
+        return maxIdleConnections;
+    }
+
+    public Duration getKeepAlive() {
+        return keepAlive;
+    }
+
+    /**
+     * @return socket send buffer size in bytes, or 0 for the OS default
+     */
+    public int getSendBufferSize() {
+        return sendBufferSize;
+    }
+
+    /**
+     * @return socket receive buffer size in bytes, or 0 for the OS default
+     */
+    public int getReceiveBufferSize() {
+        return receiveBufferSize;
+    }
+
+    @Override
+    public String toString() {
+        return "TransportProfile{" +
+                "backend=" + backend +
+                ", protocol=" + protocol +
+                ", connectTimeout=" + connectTimeout +
+                ", readTimeout=" + readTimeout +
+                ", writeTimeout=" + writeTimeout +
+                ", maxRequests=" + maxRequests +
+                ", maxRequestsPerHost=" + maxRequestsPerHost +
+                ", maxIdleConnections=" + maxIdleConnections +
+                ", keepAlive=" + keepAlive +
+                ", sendBufferSize=" + sendBufferSize +
+                ", receiveBufferSize=" + receiveBufferSize +
+                '}';
+    }
+
+    /**
+     * Builder for {@link TransportProfile}
+     */
+    public static final class Builder {
+        private Backend backend = DEFAULT_BACKEND;
+        private Protocol protocol = Protocol.HTTP_2;
+        private Duration connectTimeout = Duration.ofSeconds(30);
+        private Duration readTimeout = Duration.ofSeconds(60);
+        private Duration writeTimeout = Duration.ofSeconds(30);
+        private int maxRequests = 64;
+        private int maxRequestsPerHost = 5;
+        private int maxIdleConnections = 5;
+        private Duration keepAlive = Duration.ofMinutes(5);
+        private int sendBufferSize;
+        private int receiveBufferSize;
+
+        private Builder() {
+        }
+
+        public Builder backend(Backend backend) {
+            if (backend == null) {
+                throw new IllegalArgumentException("backend cannot be null");
+            }
+            this.backend = backend;
+            return this;
+        }
+
+        public Builder protocol(Protocol protocol) {
+            if (protocol == null) {
+                throw new IllegalArgumentException("protocol cannot be null");
+            }
+            this.protocol = protocol;
+            return this;
+        }
+
+        public Builder connectTimeout(Duration connectTimeout) {
+            this.connectTimeout = requireNonNegative(connectTimeout, "connectTimeout");
+            return this;
+        }
+
+        public Builder readTimeout(Duration readTimeout) {
+            this.readTimeout = requireNonNegative(readTimeout, "readTimeout");
+            return this;
+        }
+
+        public Builder writeTimeout(Duration writeTimeout) {
+            this.writeTimeout = requireNonNegative(writeTimeout, "writeTimeout");
+            return this;
+        }
+
+        /**
+         * @param maxRequests Maximum concurrent asynchronous requests across all hosts
+         */
+        public Builder maxRequests(int maxRequests) {
+            this.maxRequests = requirePositive(maxRequests, "maxRequests");
+            return this;
+        }
+
+        /**
+         * @param maxRequestsPerHost Maximum concurrent asynchronous requests to one host
+         */
+        public Builder maxRequestsPerHost(int maxRequestsPerHost) {
+            this.maxRequestsPerHost = requirePositive(maxRequestsPerHost, "maxRequestsPerHost");
+            return this;
+        }
+
+        /**
+         * @param maxIdleConnections Maximum idle connections kept in the pool
+         */
+        public Builder maxIdleConnections(int maxIdleConnections) {
+            if (maxIdleConnections < 0) {
+                throw new IllegalArgumentException("maxIdleConnections cannot be negative");
+            }
+            this.maxIdleConnections = maxIdleConnections;
+            return this;
+        }
+
+        /**
+         * @param keepAlive How long an idle pooled connection is kept open
+         */
+        public Builder keepAlive(Duration keepAlive) {
+            this.keepAlive = requireNonNegative(keepAlive, "keepAlive");
+            return this;
+        }
+
+        /**
+         * @param sendBufferSize Socket send buffer size in bytes, 0 for the OS default
+         */
+        public Builder sendBufferSize(int sendBufferSize) {
+            if (sendBufferSize < 0) {
+                throw new IllegalArgumentException("sendBufferSize cannot be negative");
+            }
+            this.sendBufferSize = sendBufferSize;
+            return this;
+        }
+
+        /**
+         * @param receiveBufferSize Socket receive buffer size in bytes, 0 for the OS default
+         */
+        public Builder receiveBufferSize(int receiveBufferSize) {
+            if (receiveBufferSize < 0) {
+                throw new IllegalArgumentException("receiveBufferSize cannot be negative");
+            }
+            this.receiveBufferSize = receiveBufferSize;
+            return this;
+        }
+
+        public TransportProfile build() {
+            return new TransportProfile(this);
+        }
+
+        private static Duration requireNonNegative(Duration value, String name) {
+            if (value == null || value.isNegative()) {
+                throw new IllegalArgumentException(name + " cannot be null or negative");
+            }
+            return value;
+        }
+
+        private static int requirePositive(int value, String name) {
+            if (value < 1) {
+                throw new IllegalArgumentException(name + " must be at least 1");
+            }
+            return value;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.openadr.client.example;
+
+import com.openadr.client.APIResponse;
+import com.openadr.client.DeltaSync;
+import com.openadr.client.OADR3;
+import com.openadr.client.OADR3Config;
+import com.openadr.client.model.Event;
+import com.openadr.client.model.Program;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Minimal VEN agent, and the entry point of the native executable
+ *
+ * Loads the VTN's programs, then keeps a replica of its events and logs every
+ * change. With {@code --once} it runs a single cycle, prints a summary line
+ * and exits, which is what the native smoke test checks.
+ *
+ * Usage: VenAgent baseUrl clientId clientSecret [--once] [--interval seconds]
+ */
+public class VenAgent {
+    private static final Logger logger = LoggerFactory.getLogger(VenAgent.class);
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 3) {
+            System.err.println("Usage: VenAgent baseUrl clientId clientSecret [--once] [--interval seconds]");
+            System.exit(2);
+        }
+
+        boolean once = false;
+        long intervalSeconds = 30;
+        for (int i = 3; i < args.length; i++) {
+            switch (args[i]) {
+                case "--once":
+                    once = true;
+                    break;
+                case "--interval":
+                    intervalSeconds = Long.parseLong(args[++i]);
+                    break;
+                default:
+                    System.err.println("Unknown option: " + args[i]);
+                    System.exit(2);
+            }
+        }
+
+        OADR3 client = new OADR3(new OADR3Config(args[0], args[1], args[2]));
+        logger.info("Warm-up: {}", client.warmUp());
+
+        APIResponse<List<Program>> programs = client.searchAllPrograms(null, 0, 50);
+        if (!programs.isSuccess()) {
+            throw new IOException("Program search failed: " + programs.getProblem());
+        }
+        logger.info("Found {} programs", programs.getResponse().size());
+
+        DeltaSync<Event> events = DeltaSync.events(client, null);
+        events.addListener(change -> logger.info("{} event {}", change.getType(), change.getId()));
+        while (true) {
+            APIResponse<List<DeltaSync.Change<Event>>> changes = events.sync();
+            if (!changes.isSuccess()) {
+                logger.warn("Event sync failed: {}", changes.getProblem());
+            }
+            if (once) {
+                System.out.println("programs=" + programs.getResponse().size() + " events=" + events.size());
+                System.exit(changes.isSuccess() ? 0 : 1);
+            }
+            Thread.sleep(intervalSeconds * 1000);
+        }
+    }
+}
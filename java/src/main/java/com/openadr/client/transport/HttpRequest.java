@@ -0,0 +1,81 @@
+package com.openadr.client.transport;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Transport-neutral HTTP request
+ *
+ * Requests are immutable; {@link #withHeader} returns a modified copy.
+ * Headers are kept in an immutable map, so a map built once with
+ * {@link Map#of} or {@link Map#copyOf} can be shared by many requests
+ * without being copied for each one.
+ */
+public final class HttpRequest {
+    private final String method;
+    private final String url;
+    private final Map<String, String> headers;
+    private final byte[] body;
+
+    /**
+     * @param method HTTP method, in upper case
+     * @param url Absolute request URL
+     * @param headers Request headers; at most one value per name, none null
+     * @param body Request body, or null for none. Content-Type is taken from the headers.
+     */
+    public HttpRequest(String method, String url, Map<String, String> headers, byte[] body) {
+        if (method == null || method.isEmpty()) {
+            throw new IllegalArgumentException("method cannot be null or empty");
+        }
+        if (url == null || url.isEmpty()) {
+            throw new IllegalArgumentException("url cannot be null or empty");
+        }
+        this.method = method;
+        this.url = url;
+        this.headers = Map.copyOf(headers);
+        this.body = body;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public Map<String, String> getHeaders() {
+        return headers;
+    }
+
+    /**
+     * @return the value of a header, or null if it is not set
+     */
+    public String getHeader(String name) {
+        return headers.get(name);
+    }
+
+    /**
+     * @return the request body, or null if the request has none
+     */
+    public byte[] getBody() {
+        return body;
+    }
+
+    /**
+     * @return a copy of this request with the header set to the given value
+     */
+    public HttpRequest withHeader(String name, String value) {
+        Map<String, String> copy = new HashMap<>(headers);
+        copy.put(name, value);
+        return new HttpRequest(method, url, copy, body);
+    }
+
+    @Override
+    public String toString() {
+        return "HttpRequest{" +
+                "method='" + method + '\'' +
+                ", url='" + url + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,54 @@
+package com.openadr.client.transport;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Transport-neutral HTTP response
+ *
+ * The body is exposed as a stream so it can be parsed without buffering.
+ * Closing the response releases its connection.
+ */
+public interface HttpResponse extends Closeable {
+
+    /**
+     * @return HTTP status code
+     */
+    int getStatus();
+
+    /**
+     * @return HTTP reason phrase, or an empty string if the protocol has none
+     */
+    String getMessage();
+
+    /**
+     * @return the first value of a header, matched case-insensitively, or null
+     */
+    String getHeader(String name);
+
+    /**
+     * @return the response body; empty if the response has none
+     */
+    InputStream getBody();
+
+    /**
+     * @return true for 2xx status codes
+     */
+    default boolean isSuccessful() {
+        return getStatus() >= 200 && getStatus() < 300;
+    }
+
+    /**
+     * Reads the whole body as UTF-8 text
+     */
+    default String getBodyAsString() throws IOException {
+        try (InputStream body = getBody()) {
+            return new String(body.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    @Override
+    void close();
+}
@@ -0,0 +1,42 @@
+package com.openadr.client.transport;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * HTTP transport used by the OpenADR 3 client
+ *
+ * The client builds {@link HttpRequest}s and reads {@link HttpResponse}s; how
+ * they travel is up to the transport. Two implementations are provided:
+ * {@link OkHttpTransport}, and {@link JdkHttpTransport}, which depends only on
+ * {@code java.net.http} and lets applications drop OkHttp and its Okio and
+ * Kotlin dependencies entirely.
+ *
+ * Implementations must be thread-safe.
+ */
+public interface HttpTransport extends AutoCloseable {
+
+    /**
+     * Sends a request and blocks until the response headers arrive. The
+     * caller must close the returned response.
+     */
+    HttpResponse send(HttpRequest request) throws IOException;
+
+    /**
+     * Sends a request without blocking the calling thread. Cancelling the
+     * returned future cancels the request. The consumer of the future must
+     * close the response.
+     */
+    CompletableFuture<HttpResponse> sendAsync(HttpRequest request);
+
+    /**
+     * @return a snapshot of the transport's connection and request usage
+     */
+    TransportStats getStats();
+
+    /**
+     * Releases connections and threads. The transport cannot be used afterwards.
+     */
+    @Override
+    void close();
+}
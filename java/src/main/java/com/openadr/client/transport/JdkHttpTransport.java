@@ -0,0 +1,274 @@
+package com.openadr.client.transport;
+
+import com.openadr.client.TransportProfile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link HttpTransport} backed by the JDK's {@code java.net.http.HttpClient}
+ *
+ * Has no dependencies outside the JDK. Every request, synchronous or not, is
+ * executed as a blocking call: asynchronous requests each run on their own
+ * virtual thread, so waiting on the network costs no platform thread. As with
+ * OkHttp's dispatcher, the profile's {@code maxRequests} and
+ * {@code maxRequestsPerHost} limits only apply to asynchronous requests; they
+ * are enforced with semaphores held until the response is closed. Synchronous
+ * requests are bounded by the calling threads.
+ *
+ * The JDK client does not support HTTP/2 with prior knowledge, per-client
+ * pool sizing, keep-alive, write timeouts or socket buffer sizes; the pool and
+ * keep-alive can be tuned JVM-wide with the {@code jdk.httpclient.connectionPoolSize}
+ * and {@code jdk.httpclient.keepalive.timeout} system properties. The read
+ * timeout applies to receiving the response headers.
+ *
+ * As with OkHttp, HTTP/2 is only negotiated over TLS: requests to
+ * {@code http://} URLs use HTTP/1.1, since the JDK client would otherwise
+ * offer an {@code Upgrade: h2c} that many servers and proxies reject.
+ */
+public final class JdkHttpTransport implements HttpTransport {
+    private final HttpClient httpClient;
+    private final ExecutorService executor;
+    private final Duration readTimeout;
+    private final Semaphore requestPermits;
+    private final int maxRequestsPerHost;
+    private final Map<String, Semaphore> hostPermits = new ConcurrentHashMap<>();
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicInteger queued = new AtomicInteger();
+
+    /**
+     * Creates a transport configured by the given profile
+     *
+     * @param profile The transport profile
+     * @throws IllegalArgumentException if the profile requests HTTP/2 prior knowledge
+     */
+    public JdkHttpTransport(TransportProfile profile) {
+        if (profile == null) {
+            throw new IllegalArgumentException("profile cannot be null");
+        }
+        if (profile.getProtocol() == TransportProfile.Protocol.H2_PRIOR_KNOWLEDGE) {
+            throw new IllegalArgumentException("The JDK HTTP client does not support HTTP/2 prior knowledge");
+        }
+
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        HttpClient.Builder builder = HttpClient.newBuilder()
+                .executor(executor)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .version(profile.getProtocol() == TransportProfile.Protocol.HTTP_1_1
+                        ? HttpClient.Version.HTTP_1_1 : HttpClient.Version.HTTP_2);
+        if (!profile.getConnectTimeout().isZero()) {
+            builder.connectTimeout(profile.getConnectTimeout());
+        }
+        this.httpClient = builder.build();
+        this.readTimeout = profile.getReadTimeout().isZero() ? null : profile.getReadTimeout();
+        this.requestPermits = new Semaphore(profile.getMaxRequests());
+        this.maxRequestsPerHost = profile.getMaxRequestsPerHost();
+    }
+
+    @Override
+    public HttpResponse send(HttpRequest request) throws IOException {
+        running.incrementAndGet();
+        return exchange(URI.create(request.getUrl()), request, running::decrementAndGet);
+    }
+
+    /**
+     * Waits for the request and host permits, then sends the request
+     */
+    private HttpResponse sendLimited(HttpRequest request) throws IOException {
+        URI uri = URI.create(request.getUrl());
+        Semaphore hostPermit = hostPermits.computeIfAbsent(uri.getHost() + ":" + uri.getPort(),
+                host -> new Semaphore(maxRequestsPerHost));
+
+        queued.incrementAndGet();
+        try {
+            requestPermits.acquire();
+            try {
+                hostPermit.acquire();
+            } catch (InterruptedException e) {
+                requestPermits.release();
+                throw e;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a request slot");
+        } finally {
+            queued.decrementAndGet();
+        }
+
+        running.incrementAndGet();
+        return exchange(uri, request, () -> {
+            running.decrementAndGet();
+            hostPermit.release();
+            requestPermits.release();
+        });
+    }
+
+    /**
+     * Sends a request, running {@code release} when the response is closed or
+     * the exchange fails
+     */
+    private HttpResponse exchange(URI uri, HttpRequest request, Runnable release) throws IOException {
+        try {
+            java.net.http.HttpResponse<InputStream> response =
+                    httpClient.send(toJdk(uri, request), java.net.http.HttpResponse.BodyHandlers.ofInputStream());
+            return new JdkResponse(response, release);
+        } catch (InterruptedException e) {
+            release.run();
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for " + request.getUrl());
+        } catch (IOException | RuntimeException e) {
+            release.run();
+            throw e;
+        }
+    }
+
+    @Override
+    public CompletableFuture<HttpResponse> sendAsync(HttpRequest request) {
+        CompletableFuture<HttpResponse> future = new CompletableFuture<>();
+        Future<?> task = executor.submit(() -> {
+            try {
+                HttpResponse response = sendLimited(request);
+                if (!future.complete(response)) {
+                    response.close();
+                }
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        });
+        future.whenComplete((response, error) -> {
+            if (future.isCancelled()) {
+                // Interrupting the virtual thread aborts the exchange
+                task.cancel(true);
+            }
+        });
+        return future;
+    }
+
+    @Override
+    public TransportStats getStats() {
+        return new TransportStats(-1, -1, running.get(), queued.get());
+    }
+
+    @Override
+    public void close() {
+        httpClient.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    private java.net.http.HttpRequest toJdk(URI uri, HttpRequest request) {
+        java.net.http.HttpRequest.BodyPublisher body = request.getBody() != null
+                ? java.net.http.HttpRequest.BodyPublishers.ofByteArray(request.getBody())
+                : java.net.http.HttpRequest.BodyPublishers.noBody();
+
+        java.net.http.HttpRequest.Builder builder = java.net.http.HttpRequest.newBuilder(uri)
+                .method(request.getMethod(), body);
+        if ("http".equalsIgnoreCase(uri.getScheme())) {
+            builder.version(HttpClient.Version.HTTP_1_1);
+        }
+        for (Map.Entry<String, String> header : request.getHeaders().entrySet()) {
+            builder.header(header.getKey(), header.getValue());
+        }
+        if (readTimeout != null) {
+            builder.timeout(readTimeout);
+        }
+        return builder.build();
+    }
+
+    /**
+     * @return the RFC 9110 reason phrase of a status, or an empty string for
+     *         an unregistered status
+     */
+    static String reasonPhrase(int status) {
+        switch (status) {
+            case 200: return "OK";
+            case 201: return "Created";
+            case 202: return "Accepted";
+            case 204: return "No Content";
+            case 304: return "Not Modified";
+            case 400: return "Bad Request";
+            case 401: return "Unauthorized";
+            case 403: return "Forbidden";
+            case 404: return "Not Found";
+            case 405: return "Method Not Allowed";
+            case 406: return "Not Acceptable";
+            case 408: return "Request Timeout";
+            case 409: return "Conflict";
+            case 410: return "Gone";
+            case 412: return "Precondition Failed";
+            case 413: return "Content Too Large";
+            case 415: return "Unsupported Media Type";
+            case 422: return "Unprocessable Content";
+            case 429: return "Too Many Requests";
+            case 500: return "Internal Server Error";
+            case 501: return "Not Implemented";
+            case 502: return "Bad Gateway";
+            case 503: return "Service Unavailable";
+            case 504: return "Gateway Timeout";
+            default: return "";
+        }
+    }
+
+    /**
+     * Adapts a JDK response, releasing the request permits when closed
+     */
+    private static final class JdkResponse implements HttpResponse {
+        private final java.net.http.HttpResponse<InputStream> response;
+        private final Runnable release;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        JdkResponse(java.net.http.HttpResponse<InputStream> response, Runnable release) {
+            this.response = response;
+            this.release = release;
+        }
+
+        @Override
+        public int getStatus() {
+            return response.statusCode();
+        }
+
+        /**
+         * @return the standard reason phrase for the status, since the JDK
+         *         client does not expose the one the server sent
+         */
+        @Override
+        public String getMessage() {
+            return reasonPhrase(response.statusCode());
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return response.headers().firstValue(name).orElse(null);
+        }
+
+        @Override
+        public InputStream getBody() {
+            return response.body();
+        }
+
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true)) {
+                try {
+                    response.body().close();
+                } catch (IOException e) {
+                    // The connection is discarded; nothing else to release
+                } finally {
+                    release.run();
+                }
+            }
+        }
+    }
+}
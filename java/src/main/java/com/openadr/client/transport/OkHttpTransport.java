@@ -0,0 +1,216 @@
+package com.openadr.client.transport;
+
+import com.openadr.client.TransportProfile;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.Headers;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link HttpTransport} backed by OkHttp
+ *
+ * Asynchronous requests run on OkHttp's dispatcher, which enforces the
+ * profile's {@code maxRequests} and {@code maxRequestsPerHost} limits.
+ */
+public final class OkHttpTransport implements HttpTransport {
+    private static final byte[] EMPTY = new byte[0];
+
+    private final OkHttpClient httpClient;
+    private final boolean ownsClient;
+
+    /**
+     * Creates a transport whose OkHttp client is configured by the given profile
+     *
+     * @param profile The transport profile
+     */
+    public OkHttpTransport(TransportProfile profile) {
+        this(buildHttpClient(profile), true);
+    }
+
+    /**
+     * Creates a transport around an existing OkHttp client, for applications
+     * that need interceptors, proxies or TLS settings not covered by
+     * {@link TransportProfile}. The client stays owned by the caller:
+     * {@link #close} leaves its dispatcher and connection pool running.
+     *
+     * @param httpClient The OkHttp client to use
+     */
+    public OkHttpTransport(OkHttpClient httpClient) {
+        this(httpClient, false);
+    }
+
+    private OkHttpTransport(OkHttpClient httpClient, boolean ownsClient) {
+        if (httpClient == null) {
+            throw new IllegalArgumentException("httpClient cannot be null");
+        }
+        this.httpClient = httpClient;
+        this.ownsClient = ownsClient;
+    }
+
+    @Override
+    public HttpResponse send(HttpRequest request) throws IOException {
+        return new OkHttpResponse(httpClient.newCall(toOkHttp(request)).execute());
+    }
+
+    @Override
+    public CompletableFuture<HttpResponse> sendAsync(HttpRequest request) {
+        CompletableFuture<HttpResponse> future = new CompletableFuture<>();
+        Call call = httpClient.newCall(toOkHttp(request));
+        call.enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                future.completeExceptionally(e);
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) {
+                if (!future.complete(new OkHttpResponse(response))) {
+                    response.close();
+                }
+            }
+        });
+        future.whenComplete((response, error) -> {
+            if (future.isCancelled()) {
+                call.cancel();
+            }
+        });
+        return future;
+    }
+
+    @Override
+    public TransportStats getStats() {
+        ConnectionPool pool = httpClient.connectionPool();
+        Dispatcher dispatcher = httpClient.dispatcher();
+        return new TransportStats(
+                pool.connectionCount(),
+                pool.idleConnectionCount(),
+                dispatcher.runningCallsCount(),
+                dispatcher.queuedCallsCount());
+    }
+
+    /**
+     * Shuts down the dispatcher and connection pool of a client this
+     * transport built; a client passed in by the caller is left untouched
+     */
+    @Override
+    public void close() {
+        if (!ownsClient) {
+            return;
+        }
+        httpClient.dispatcher().executorService().shutdown();
+        httpClient.connectionPool().evictAll();
+    }
+
+    private static Request toOkHttp(HttpRequest request) {
+        Headers.Builder headers = new Headers.Builder();
+        for (Map.Entry<String, String> header : request.getHeaders().entrySet()) {
+            headers.add(header.getKey(), header.getValue());
+        }
+
+        RequestBody body = null;
+        if (request.getBody() != null) {
+            // Content-Type is carried in the headers
+            body = RequestBody.create(request.getBody(), null);
+        } else if (requiresBody(request.getMethod())) {
+            body = RequestBody.create(EMPTY, null);
+        }
+
+        return new Request.Builder()
+                .url(request.getUrl())
+                .headers(headers.build())
+                .method(request.getMethod(), body)
+                .build();
+    }
+
+    private static boolean requiresBody(String method) {
+        return "POST".equals(method) || "PUT".equals(method) || "PATCH".equals(method);
+    }
+
+    private static OkHttpClient buildHttpClient(TransportProfile profile) {
+        if (profile == null) {
+            throw new IllegalArgumentException("profile cannot be null");
+        }
+
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(profile.getMaxRequests());
+        dispatcher.setMaxRequestsPerHost(profile.getMaxRequestsPerHost());
+
+        OkHttpClient.Builder builder = new OkHttpClient.Builder()
+                .dispatcher(dispatcher)
+                .connectionPool(new ConnectionPool(profile.getMaxIdleConnections(),
+                        profile.getKeepAlive().toMillis(), TimeUnit.MILLISECONDS))
+                .connectTimeout(profile.getConnectTimeout())
+                .readTimeout(profile.getReadTimeout())
+                .writeTimeout(profile.getWriteTimeout());
+
+        switch (profile.getProtocol()) {
+            case HTTP_1_1:
+                builder.protocols(List.of(Protocol.HTTP_1_1));
+                break;
+            case H2_PRIOR_KNOWLEDGE:
+                builder.protocols(List.of(Protocol.H2_PRIOR_KNOWLEDGE));
+                break;
+            default:
+                builder.protocols(List.of(Protocol.HTTP_2, Protocol.HTTP_1_1));
+                break;
+        }
+
+        if (profile.getSendBufferSize() > 0 || profile.getReceiveBufferSize() > 0) {
+            builder.socketFactory(new TunedSocketFactory(profile.getSendBufferSize(),
+                    profile.getReceiveBufferSize()));
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * Adapts an OkHttp response
+     */
+    private static final class OkHttpResponse implements HttpResponse {
+        private final Response response;
+
+        OkHttpResponse(Response response) {
+            this.response = response;
+        }
+
+        @Override
+        public int getStatus() {
+            return response.code();
+        }
+
+        @Override
+        public String getMessage() {
+            return response.message();
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return response.header(name);
+        }
+
+        @Override
+        public InputStream getBody() {
+            ResponseBody body = response.body();
+            return body != null ? body.byteStream() : InputStream.nullInputStream();
+        }
+
+        @Override
+        public void close() {
+            response.close();
+        }
+    }
+}
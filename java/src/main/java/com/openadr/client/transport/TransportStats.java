@@ -0,0 +1,58 @@
+package com.openadr.client.transport;
+
+/**
+ * Point-in-time usage statistics for an {@link HttpTransport}
+ *
+ * Counts a transport cannot observe are reported as -1.
+ */
+public final class TransportStats {
+    private final int connectionCount;
+    private final int idleConnectionCount;
+    private final int runningCalls;
+    private final int queuedCalls;
+
+    public TransportStats(int connectionCount, int idleConnectionCount, int runningCalls, int queuedCalls) {
+        this.connectionCount = connectionCount;
+        this.idleConnectionCount = idleConnectionCount;
+        this.runningCalls = runningCalls;
+        this.queuedCalls = queuedCalls;
+    }
+
+    /**
+     * @return Number of open pooled connections, or -1 if unknown
+     */
+    public int getConnectionCount() {
+        return connectionCount;
+    }
+
+    /**
+     * @return Number of pooled connections currently idle, or -1 if unknown
+     */
+    public int getIdleConnectionCount() {
+        return idleConnectionCount;
+    }
+
+    /**
+     * @return Number of calls currently executing
+     */
+    public int getRunningCalls() {
+        return runningCalls;
+    }
+
+    /**
+     * @return Number of calls waiting for a request slot
+     */
+    public int getQueuedCalls() {
+        return queuedCalls;
+    }
+
+    @Override
+    public String toString() {
+        return "TransportStats{" +
+                "connectionCount=" + connectionCount +
+                ", idleConnectionCount=" + idleConnectionCount +
+                ", runningCalls=" + runningCalls +
+                ", queuedCalls=" + queuedCalls +
+                '}';
+    }
+}
@@ -0,0 +1,75 @@
+package com.openadr.client.transport;
+
+import com.openadr.client.TransportProfile;
+
+import javax.net.SocketFactory;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketException;
+
+/**
+ * Socket factory that applies the send and receive buffer sizes from a
+ * {@link TransportProfile} before the socket connects. TLS is layered on top
+ * of these sockets, so the sizes apply to HTTPS connections as well.
+ */
+final class TunedSocketFactory extends SocketFactory {
+    private final SocketFactory delegate = SocketFactory.getDefault();
+    private final int sendBufferSize;
+    private final int receiveBufferSize;
+
+    TunedSocketFactory(int sendBufferSize, int receiveBufferSize) {
+        this.sendBufferSize = sendBufferSize;
+        this.receiveBufferSize = receiveBufferSize;
+    }
+
+    @Override
+    public Socket createSocket() throws IOException {
+        return tune(delegate.createSocket());
+    }
+
+    @Override
+    public Socket createSocket(String host, int port) throws IOException {
+        return connect(createSocket(), host, port);
+    }
+
+    @Override
+    public Socket createSocket(String host, int port, InetAddress localHost, int localPort) throws IOException {
+        Socket socket = createSocket();
+        socket.bind(new InetSocketAddress(localHost, localPort));
+        return connect(socket, host, port);
+    }
+
+    @Override
+    public Socket createSocket(InetAddress host, int port) throws IOException {
+        Socket socket = createSocket();
+        socket.connect(new InetSocketAddress(host, port));
+        return socket;
+    }
+
+    @Override
+    public Socket createSocket(InetAddress address, int port, InetAddress localAddress, int localPort)
+            throws IOException {
+        Socket socket = createSocket();
+        socket.bind(new InetSocketAddress(localAddress, localPort));
+        socket.connect(new InetSocketAddress(address, port));
+        return socket;
+    }
+
+    private static Socket connect(Socket socket, String host, int port) throws IOException {
+        socket.connect(new InetSocketAddress(host, port));
+        return socket;
+    }
+
+    private Socket tune(Socket socket) throws SocketException {
+        // Buffer sizes must be set before connecting to affect the TCP window
+        if (sendBufferSize > 0) {
+            socket.setSendBufferSize(sendBufferSize);
+        }
+        if (receiveBufferSize > 0) {
+            socket.setReceiveBufferSize(receiveBufferSize);
+        }
+        return socket;
+    }
+}
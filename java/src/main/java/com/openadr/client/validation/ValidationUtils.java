@@ -10,13 +10,16 @@ import java.util.stream.Collectors;
 
 /**
  * Utility class for validating OpenADR objects
+ *
+ * The model classes are checked by validators generated from their Jakarta
+ * Bean Validation annotations at compile time, which avoid reflection and
+ * allocate nothing for valid objects. Other classes fall back to Hibernate
+ * Validator, which is only bootstrapped when first needed.
  */
 public class ValidationUtils {
-    private static final ValidatorFactory validatorFactory = Validation.buildDefaultValidatorFactory();
-    private static final Validator validator = validatorFactory.getValidator();
 
     /**
-     * Validates an object using Jakarta Bean Validation
+     * Validates an object against its Jakarta Bean Validation constraints
      * @param object The object to validate
      * @param <T> The type of the object
      * @return ValidationResult containing validation status and errors
@@ -26,7 +29,27 @@ public class ValidationUtils {
             return ValidationResult.failure("Object cannot be null");
         }
 
-        Set<ConstraintViolation<T>> violations = validator.validate(object);
+        if (GeneratedValidators.supports(object)) {
+            String errors = GeneratedValidators.validate(object);
+            return errors == null ? ValidationResult.success() : ValidationResult.failure(errors);
+        }
+        return validateReflectively(object);
+    }
+
+    /**
+     * Validates an object with Hibernate Validator, bypassing the generated
+     * validators. Reports the same violations as {@link #validate}, possibly
+     * in a different order.
+     * @param object The object to validate
+     * @param <T> The type of the object
+     * @return ValidationResult containing validation status and errors
+     */
+    public static <T> ValidationResult validateReflectively(T object) {
+        if (object == null) {
+            return ValidationResult.failure("Object cannot be null");
+        }
+
+        Set<ConstraintViolation<T>> violations = ValidatorHolder.VALIDATOR.validate(object);
         
         if (violations.isEmpty()) {
             return ValidationResult.success();
@@ -64,10 +87,20 @@ public class ValidationUtils {
         return ValidationResult.success();
     }
 
+    /**
+     * Builds the Hibernate Validator factory on first use
+     */
+    private static final class ValidatorHolder {
+        private static final ValidatorFactory FACTORY = Validation.buildDefaultValidatorFactory();
+        private static final Validator VALIDATOR = FACTORY.getValidator();
+    }
+
     /**
      * Result of a validation operation
      */
     public static class ValidationResult {
+        private static final ValidationResult SUCCESS = new ValidationResult(true, null);
+
         private final boolean valid;
         private final String errorMessage;
 
@@ -77,7 +110,7 @@ public class ValidationUtils {
         }
 
         public static ValidationResult success() {
-            return new ValidationResult(true, null);
+            return SUCCESS;
         }
 
         public static ValidationResult failure(String errorMessage) {
@@ -0,0 +1,414 @@
+package com.openadr.client.validation.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedOptions;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Generates plain Java validators for classes with Jakarta Bean Validation
+ * field constraints
+ *
+ * For every class with a {@code @NotNull} or {@code @Size} field, a
+ * package-private {@code <Class>Validator} is generated that checks the
+ * constraints through the class's getters, in field declaration order, and
+ * reports violations as {@code property: message} with the default English
+ * messages of Hibernate Validator. A {@code GeneratedValidators} class
+ * dispatches on the exact runtime class of an object.
+ *
+ * Any other constraint, {@code @Valid} cascading, or a message expression
+ * other than {@code {min}} and {@code {max}} is a compile error, so the
+ * generated checks can never silently diverge from the annotations.
+ *
+ * The target package is set with {@code -Aopenadr.validation.package} and
+ * defaults to {@code com.openadr.client.validation}.
+ */
+@SupportedAnnotationTypes({
+        "jakarta.validation.constraints.NotNull",
+        "jakarta.validation.constraints.Size"
+})
+@SupportedOptions(ConstraintValidatorProcessor.PACKAGE_OPTION)
+public class ConstraintValidatorProcessor extends AbstractProcessor {
+    static final String PACKAGE_OPTION = "openadr.validation.package";
+
+    private static final String CONSTRAINTS_PACKAGE = "jakarta.validation.constraints";
+    private static final String NOT_NULL = CONSTRAINTS_PACKAGE + ".NotNull";
+    private static final String SIZE = CONSTRAINTS_PACKAGE + ".Size";
+    private static final String VALID = "jakarta.validation.Valid";
+    private static final String DEFAULT_PACKAGE = "com.openadr.client.validation";
+
+    private Filer filer;
+    private Messager messager;
+    private Elements elements;
+    private Types types;
+    private String targetPackage;
+    private boolean dispatcherWritten;
+
+    @Override
+    public synchronized void init(ProcessingEnvironment processingEnv) {
+        super.init(processingEnv);
+        this.filer = processingEnv.getFiler();
+        this.messager = processingEnv.getMessager();
+        this.elements = processingEnv.getElementUtils();
+        this.types = processingEnv.getTypeUtils();
+        this.targetPackage = processingEnv.getOptions().getOrDefault(PACKAGE_OPTION, DEFAULT_PACKAGE);
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        Set<TypeElement> classes = new TreeSet<>((a, b) ->
+                a.getQualifiedName().toString().compareTo(b.getQualifiedName().toString()));
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind() != ElementKind.FIELD) {
+                    error(element, "@" + annotation.getSimpleName() + " is only supported on fields");
+                    continue;
+                }
+                classes.add((TypeElement) element.getEnclosingElement());
+            }
+        }
+        if (classes.isEmpty()) {
+            return false;
+        }
+        if (dispatcherWritten) {
+            error(classes.iterator().next(), "Constrained classes must all be compiled in the first processing round");
+            return false;
+        }
+
+        List<TypeElement> generated = new ArrayList<>();
+        for (TypeElement type : classes) {
+            List<String> checks = checksFor(type);
+            if (checks != null) {
+                write(validatorName(type), validatorSource(type, checks), type);
+                generated.add(type);
+            }
+        }
+        write("GeneratedValidators", dispatcherSource(generated), generated.toArray(new Element[0]));
+        dispatcherWritten = true;
+        return false;
+    }
+
+    /**
+     * @return the statements checking every constrained field, or null after reporting an error
+     */
+    private List<String> checksFor(TypeElement type) {
+        if (type.getNestingKind().isNested() && !type.getModifiers().contains(Modifier.STATIC)) {
+            error(type, "Constrained inner classes are not supported");
+            return null;
+        }
+        if (!type.getModifiers().contains(Modifier.PUBLIC)) {
+            error(type, "Constrained classes must be public");
+            return null;
+        }
+
+        boolean ok = true;
+        List<String> checks = new ArrayList<>();
+        for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+            if (field.getModifiers().contains(Modifier.STATIC)) {
+                continue;
+            }
+
+            boolean notNull = false;
+            AnnotationMirror size = null;
+            for (AnnotationMirror annotation : field.getAnnotationMirrors()) {
+                String name = ((TypeElement) annotation.getAnnotationType().asElement()).getQualifiedName().toString();
+                if (name.equals(NOT_NULL)) {
+                    ok &= checkMessage(field, annotation, "{jakarta.validation.constraints.NotNull.message}");
+                    notNull = true;
+                } else if (name.equals(SIZE)) {
+                    ok &= checkMessage(field, annotation, "{jakarta.validation.constraints.Size.message}");
+                    size = annotation;
+                } else if (name.startsWith(CONSTRAINTS_PACKAGE + ".") || name.equals(VALID)) {
+                    error(field, "@" + name.substring(name.lastIndexOf('.') + 1)
+                            + " is not supported by the generated validators");
+                    ok = false;
+                }
+            }
+            if (!notNull && size == null) {
+                continue;
+            }
+
+            String getter = getterFor(type, field);
+            if (getter == null) {
+                error(field, "No public getter for constrained field " + field.getSimpleName());
+                ok = false;
+                continue;
+            }
+
+            String property = field.getSimpleName().toString();
+            String variable = property.equals("object") || property.equals("errors") ? property + "Value" : property;
+            checks.add(typeName(field.asType()) + " " + variable + " = object." + getter + "();");
+            if (notNull) {
+                String message = message(field, NOT_NULL, "must not be null", 0, 0);
+                checks.add("if (" + variable + " == null) {\n"
+                        + "            errors = GeneratedValidators.append(errors, " + literal(property + ": " + message) + ");\n"
+                        + "        }");
+            }
+            if (size != null) {
+                String length = lengthExpression(field, variable);
+                if (length == null) {
+                    ok = false;
+                    continue;
+                }
+                int min = intValue(size, "min", 0);
+                int max = intValue(size, "max", Integer.MAX_VALUE);
+                String message = message(field, SIZE, "size must be between {min} and {max}", min, max);
+                List<String> bounds = new ArrayList<>();
+                if (min > 0) {
+                    bounds.add(length + " < " + min);
+                }
+                if (max < Integer.MAX_VALUE) {
+                    bounds.add(length + " > " + max);
+                }
+                if (!bounds.isEmpty()) {
+                    checks.add("if (" + variable + " != null && (" + String.join(" || ", bounds) + ")) {\n"
+                            + "            errors = GeneratedValidators.append(errors, " + literal(property + ": " + message) + ");\n"
+                            + "        }");
+                }
+            }
+        }
+        return ok ? checks : null;
+    }
+
+    private String getterFor(TypeElement type, VariableElement field) {
+        String name = field.getSimpleName().toString();
+        String suffix = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+        Set<String> candidates = new LinkedHashSet<>();
+        candidates.add("get" + suffix);
+        if (field.asType().getKind() == TypeKind.BOOLEAN) {
+            candidates.add("is" + suffix);
+        }
+        for (ExecutableElement method : ElementFilter.methodsIn(elements.getAllMembers(type))) {
+            if (candidates.contains(method.getSimpleName().toString())
+                    && method.getParameters().isEmpty()
+                    && method.getModifiers().contains(Modifier.PUBLIC)
+                    && !method.getModifiers().contains(Modifier.STATIC)) {
+                return method.getSimpleName().toString();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the expression giving the size of a {@code @Size} field, or null after reporting an error
+     */
+    private String lengthExpression(VariableElement field, String variable) {
+        TypeMirror type = field.asType();
+        if (type.getKind() == TypeKind.ARRAY) {
+            return variable + ".length";
+        }
+        if (isAssignable(type, "java.lang.CharSequence")) {
+            return variable + ".length()";
+        }
+        if (isAssignable(type, "java.util.Collection") || isAssignable(type, "java.util.Map")) {
+            return variable + ".size()";
+        }
+        error(field, "@Size is not supported on " + type);
+        return null;
+    }
+
+    private boolean isAssignable(TypeMirror type, String className) {
+        TypeElement target = elements.getTypeElement(className);
+        return target != null && types.isAssignable(types.erasure(type), types.erasure(target.asType()));
+    }
+
+    /**
+     * Only the default message key, or a literal message using {min} and {max}, can be reproduced
+     */
+    private boolean checkMessage(VariableElement field, AnnotationMirror annotation, String defaultKey) {
+        String message = stringValue(annotation, "message", defaultKey);
+        if (message.equals(defaultKey)) {
+            return true;
+        }
+        String stripped = message.replace("{min}", "").replace("{max}", "");
+        if (stripped.contains("{") || stripped.contains("$")) {
+            error(field, "Message expressions are not supported by the generated validators: " + message);
+            return false;
+        }
+        return true;
+    }
+
+    private String message(VariableElement field, String annotationName, String defaultMessage, int min, int max) {
+        for (AnnotationMirror annotation : field.getAnnotationMirrors()) {
+            String name = ((TypeElement) annotation.getAnnotationType().asElement()).getQualifiedName().toString();
+            if (name.equals(annotationName)) {
+                String message = stringValue(annotation, "message", null);
+                String template = message == null || message.startsWith("{jakarta.") ? defaultMessage : message;
+                return template.replace("{min}", String.valueOf(min)).replace("{max}", String.valueOf(max));
+            }
+        }
+        return defaultMessage;
+    }
+
+    private static String stringValue(AnnotationMirror annotation, String name, String defaultValue) {
+        Object value = value(annotation, name);
+        return value != null ? value.toString() : defaultValue;
+    }
+
+    private static int intValue(AnnotationMirror annotation, String name, int defaultValue) {
+        Object value = value(annotation, name);
+        return value != null ? (Integer) value : defaultValue;
+    }
+
+    private static Object value(AnnotationMirror annotation, String name) {
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry
+                : annotation.getElementValues().entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals(name)) {
+                return entry.getValue().getValue();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Names the erased type of a field for a local variable declaration.
+     * Primitives are boxed so that every field can be compared with null.
+     * The name is built from elements rather than {@code TypeMirror.toString()},
+     * which would include type-use annotations such as the constraints themselves.
+     */
+    private String typeName(TypeMirror type) {
+        if (type.getKind().isPrimitive()) {
+            return types.boxedClass(types.getPrimitiveType(type.getKind())).getQualifiedName().toString();
+        }
+        return erasedName(type);
+    }
+
+    private String erasedName(TypeMirror type) {
+        if (type.getKind().isPrimitive()) {
+            return type.getKind().name().toLowerCase();
+        }
+        if (type.getKind() == TypeKind.ARRAY) {
+            return erasedName(((ArrayType) type).getComponentType()) + "[]";
+        }
+        Element element = types.asElement(types.erasure(type));
+        if (element instanceof TypeElement typeElement) {
+            return typeElement.getQualifiedName().toString();
+        }
+        return "java.lang.Object";
+    }
+
+    private static String validatorName(TypeElement type) {
+        return type.getSimpleName() + "Validator";
+    }
+
+    private String validatorSource(TypeElement type, List<String> checks) {
+        String className = type.getQualifiedName().toString();
+        StringBuilder source = new StringBuilder();
+        source.append("package ").append(targetPackage).append(";\n\n")
+                .append("import javax.annotation.processing.Generated;\n\n")
+                .append("/**\n")
+                .append(" * Constraint checks for {@link ").append(className).append("}\n")
+                .append(" */\n")
+                .append("@Generated(\"").append(getClass().getName()).append("\")\n")
+                .append("final class ").append(validatorName(type)).append(" {\n")
+                .append("    private ").append(validatorName(type)).append("() {\n")
+                .append("    }\n\n")
+                .append("    /**\n")
+                .append("     * @return the violations as \"property: message\" joined by \", \", or null if valid\n")
+                .append("     */\n")
+                .append("    static String validate(").append(className).append(" object) {\n")
+                .append("        StringBuilder errors = null;\n");
+        for (String check : checks) {
+            source.append("        ").append(check).append('\n');
+        }
+        source.append("        return errors != null ? errors.toString() : null;\n")
+                .append("    }\n")
+                .append("}\n");
+        return source.toString();
+    }
+
+    private String dispatcherSource(List<TypeElement> generated) {
+        StringBuilder supports = new StringBuilder();
+        StringBuilder dispatch = new StringBuilder();
+        for (TypeElement type : generated) {
+            String className = type.getQualifiedName().toString();
+            supports.append("                || type == ").append(className).append(".class\n");
+            dispatch.append("        if (type == ").append(className).append(".class) {\n")
+                    .append("            return ").append(validatorName(type))
+                    .append(".validate((").append(className).append(") object);\n")
+                    .append("        }\n");
+        }
+
+        return "package " + targetPackage + ";\n\n"
+                + "import javax.annotation.processing.Generated;\n\n"
+                + "/**\n"
+                + " * Dispatches to the generated validator for an object's exact class\n"
+                + " */\n"
+                + "@Generated(\"" + getClass().getName() + "\")\n"
+                + "final class GeneratedValidators {\n"
+                + "    private GeneratedValidators() {\n"
+                + "    }\n\n"
+                + "    /**\n"
+                + "     * @return true if a validator was generated for the object's class\n"
+                + "     */\n"
+                + "    static boolean supports(Object object) {\n"
+                + "        Class<?> type = object.getClass();\n"
+                + "        return false\n"
+                + supports
+                + "                ;\n"
+                + "    }\n\n"
+                + "    /**\n"
+                + "     * @return the violations as \"property: message\" joined by \", \", or null if valid\n"
+                + "     */\n"
+                + "    static String validate(Object object) {\n"
+                + "        Class<?> type = object.getClass();\n"
+                + dispatch
+                + "        throw new IllegalArgumentException(\"No generated validator for \" + type.getName());\n"
+                + "    }\n\n"
+                + "    static StringBuilder append(StringBuilder errors, String error) {\n"
+                + "        if (errors == null) {\n"
+                + "            return new StringBuilder(error);\n"
+                + "        }\n"
+                + "        return errors.append(\", \").append(error);\n"
+                + "    }\n"
+                + "}\n";
+    }
+
+    private void write(String simpleName, String source, Element... originatingElements) {
+        try (Writer writer = filer.createSourceFile(targetPackage + "." + simpleName, originatingElements).openWriter()) {
+            writer.write(source);
+        } catch (IOException e) {
+            messager.printMessage(Diagnostic.Kind.ERROR, "Cannot write " + simpleName + ": " + e.getMessage());
+        }
+    }
+
+    private static String literal(String value) {
+        return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+
+    private void error(Element element, String message) {
+        messager.printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+}